@@ -0,0 +1,31 @@
+package com.beowulf.clinical.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PATIENTS_BY_MRN = "patientsByMrn";
+    public static final String RESULT_REPORTS = "resultReports";
+
+    /**
+     * Rebuilt report texts never go stale, but vary widely in size, so their cache is bounded by the total
+     * length of the texts it holds rather than by the entry count of {@code spring.cache.caffeine.spec}.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> resultReportsCache(
+            @Value("${clinical.results.delta.cache-max-chars}") long maxChars) {
+        return cacheManager -> cacheManager.registerCustomCache(RESULT_REPORTS, Caffeine.newBuilder()
+            .maximumWeight(maxChars)
+            .weigher((Object id, Object text) -> text instanceof String report ? Math.max(1, report.length()) : 1)
+            .recordStats()
+            .build());
+    }
+}
@@ -0,0 +1,76 @@
+package com.beowulf.clinical.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Wraps each Hikari pool in a {@link ConnectionLimitingDataSource} when
+ * {@code clinical.datasource.limiter.enabled} is set, as it is in the {@code virtual-threads} profile.
+ * Only the pools themselves are wrapped, not the replica router in front of them, so each limit matches
+ * the pool it guards. The limit and wait default to that pool's maximum size and connection timeout;
+ * {@code clinical.datasource.limiter.max-concurrent} and {@code .acquire-timeout-ms} override them for the
+ * primary pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "clinical.datasource.limiter.enabled", havingValue = "true")
+public class ConnectionLimiterConfig {
+
+    // Hikari reports -1 until the pool starts and then falls back to this size
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource pool)) {
+                    return bean;
+                }
+                int poolSize = pool.getMaximumPoolSize() > 0 ? pool.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+                if (ReplicaRoutingConfig.REPLICA_DATA_SOURCE.equals(beanName)) {
+                    return new ConnectionLimitingDataSource(pool, poolSize, pool.getConnectionTimeout());
+                }
+                int maxConcurrent = environment.getProperty("clinical.datasource.limiter.max-concurrent",
+                    Integer.class, poolSize);
+                long acquireTimeout = environment.getProperty("clinical.datasource.limiter.acquire-timeout-ms",
+                    Long.class, pool.getConnectionTimeout());
+                return new ConnectionLimitingDataSource(pool, maxConcurrent, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionLimiterMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+            .filter(ConnectionLimitingDataSource.class::isInstance)
+            .map(ConnectionLimitingDataSource.class::cast)
+            .forEach(limiter -> {
+                String pool = poolName(limiter);
+                Gauge.builder("clinical.datasource.limiter.waiting", limiter, ConnectionLimitingDataSource::getWaiting)
+                    .description("Threads queued for a database connection")
+                    .tag("pool", pool)
+                    .register(registry);
+                Gauge.builder("clinical.datasource.limiter.available", limiter, ConnectionLimitingDataSource::getAvailablePermits)
+                    .description("Connections that can be handed out without waiting")
+                    .tag("pool", pool)
+                    .register(registry);
+            });
+    }
+
+    private static String poolName(ConnectionLimitingDataSource limiter) {
+        try {
+            return limiter.unwrap(HikariDataSource.class).getPoolName();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Connection limiter does not wrap a Hikari pool", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.beowulf.clinical.config;
+
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements, entity loads and flushes Hibernate performs on the current thread while a
+ * request's counters are {@link #attach attached} to it. The session factory wide statistics cannot be
+ * split by request, so these hooks count per thread instead. The counters follow a request onto the
+ * thread of an async MVC handler, such as a streamed export; work the request hands to any other
+ * thread, an executor of its own or the event stream's senders, is not counted.
+ */
+public class HibernateRequestStatistics implements StatementInspector, PostLoadEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    static final int STATEMENTS = 0;
+    static final int ENTITY_LOADS = 1;
+    static final int FLUSHES = 2;
+    /** Request attribute holding the request's counters across its async dispatches. */
+    static final String COUNTS_ATTRIBUTE = HibernateRequestStatistics.class.getName() + ".counts";
+
+    private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+
+    static long[] newCounts() {
+        return new long[3];
+    }
+
+    /** Counts this thread's work into {@code counts}, until {@link #detach()}. */
+    static void attach(long[] counts) {
+        CURRENT.set(counts);
+    }
+
+    static void detach() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        increment(STATEMENTS);
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        increment(ENTITY_LOADS);
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        increment(FLUSHES);
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        // Runs after Hibernate's own listener, which decides whether the query needed a flush
+        if (event.isFlushRequired()) {
+            increment(FLUSHES);
+        }
+    }
+
+    private static void increment(int counter) {
+        long[] counts = CURRENT.get();
+        if (counts != null) {
+            counts[counter]++;
+        }
+    }
+}
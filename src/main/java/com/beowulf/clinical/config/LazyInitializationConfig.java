@@ -0,0 +1,62 @@
+package com.beowulf.clinical.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springdoc.core.configuration.SpringDocUIConfiguration;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Adjusts {@code spring.main.lazy-initialization}, which the {@code fast-start} profile turns on so that
+ * the actuator endpoints, controllers and the services only they use are created on first use. A bean with
+ * {@code @Scheduled} methods has to exist for its jobs to be registered, and Flyway and the
+ * {@code EntityManagerFactory} would otherwise migrate and bootstrap Hibernate inside the first request,
+ * so those stay eager. springdoc marks its beans {@code @Lazy(false)}, which lazy initialization leaves
+ * alone, so they are made lazy here, except {@link SpringDocUIConfiguration}: nothing depends on it, and
+ * the Swagger UI only finds its files once it has looked up the UI version.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+            && (FlywayMigrationInitializer.class.isAssignableFrom(beanType)
+                || EntityManagerFactory.class.isAssignableFrom(beanType)
+                || hasScheduledMethods(beanType));
+    }
+
+    // Checks the property when it runs rather than through a condition, which an AOT build would fix
+    @Bean
+    public static BeanFactoryPostProcessor lazyApiDocs(Environment environment) {
+        return beanFactory -> {
+            if (!environment.getProperty("spring.main.lazy-initialization", Boolean.class, false)) {
+                return;
+            }
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                Class<?> type = beanFactory.getType(name, false);
+                if (type != null && type.getName().startsWith(SPRINGDOC_PACKAGE)
+                        && ClassUtils.getUserClass(type) != SpringDocUIConfiguration.class) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType),
+            (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, Schedules.class) ? Boolean.TRUE : null).isEmpty();
+    }
+}
@@ -0,0 +1,157 @@
+package com.beowulf.clinical.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.Callable;
+
+/**
+ * Metrics that Spring Boot does not provide out of the box: Hibernate work per HTTP request and time
+ * spent serializing JSON responses. Service timers come from {@code @Timed} on the service classes,
+ * Hibernate totals and Hikari pool gauges from Boot's auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+    static final String REQUEST_STATEMENTS = "hibernate.request.statements";
+    static final String REQUEST_ENTITY_LOADS = "hibernate.request.entity.loads";
+    static final String REQUEST_FLUSHES = "hibernate.request.flushes";
+    static final String JSON_WRITE = "clinical.json.write";
+
+    @Bean
+    public HibernateRequestStatistics hibernateRequestStatistics() {
+        return new HibernateRequestStatistics();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestStatementInspector(HibernateRequestStatistics statistics) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statistics);
+    }
+
+    @Bean
+    public SmartInitializingSingleton hibernateRequestEventListeners(EntityManagerFactory entityManagerFactory,
+                                                                     HibernateRequestStatistics statistics) {
+        return () -> {
+            EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_LOAD, statistics);
+            registry.appendListeners(EventType.FLUSH, statistics);
+            registry.appendListeners(EventType.AUTO_FLUSH, statistics);
+        };
+    }
+
+    @Bean
+    public OncePerRequestFilter hibernateRequestMetricsFilter(MeterRegistry meterRegistry) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                long[] counts = (long[]) request.getAttribute(HibernateRequestStatistics.COUNTS_ATTRIBUTE);
+                if (counts == null) {
+                    counts = HibernateRequestStatistics.newCounts();
+                    request.setAttribute(HibernateRequestStatistics.COUNTS_ATTRIBUTE, counts);
+                }
+                HibernateRequestStatistics.attach(counts);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    HibernateRequestStatistics.detach();
+                    if (request.isAsyncStarted()) {
+                        // Recorded by the dispatch that ends the request, once its async handler has run
+                        return;
+                    }
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+                    record(meterRegistry, REQUEST_STATEMENTS, request.getMethod(), uri, counts[HibernateRequestStatistics.STATEMENTS]);
+                    record(meterRegistry, REQUEST_ENTITY_LOADS, request.getMethod(), uri, counts[HibernateRequestStatistics.ENTITY_LOADS]);
+                    record(meterRegistry, REQUEST_FLUSHES, request.getMethod(), uri, counts[HibernateRequestStatistics.FLUSHES]);
+                }
+            }
+
+            @Override
+            protected boolean shouldNotFilterAsyncDispatch() {
+                return false;
+            }
+        };
+    }
+
+    /** Carries a request's Hibernate counters onto the thread that runs its async handler. */
+    @Bean
+    public WebMvcConfigurer hibernateRequestAsyncStatistics() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+                        long[] counts = (long[]) request.getAttribute(HibernateRequestStatistics.COUNTS_ATTRIBUTE,
+                            RequestAttributes.SCOPE_REQUEST);
+                        if (counts != null) {
+                            HibernateRequestStatistics.attach(counts);
+                        }
+                    }
+
+                    @Override
+                    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object result) {
+                        HibernateRequestStatistics.detach();
+                    }
+                });
+            }
+        };
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    sample.stop(Timer.builder(JSON_WRITE)
+                        .tag("type", object.getClass().getSimpleName())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+                }
+            }
+        };
+    }
+
+    private static void record(MeterRegistry meterRegistry, String name, String method, String uri, long count) {
+        DistributionSummary.builder(name)
+            .tag("method", method)
+            .tag("uri", uri)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(count);
+    }
+}
@@ -0,0 +1,78 @@
+package com.beowulf.clinical.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary connections everywhere else,
+ * including reads of a client that {@link ReadYourWritesFilter} has pinned to the primary. The read-only
+ * flag is only known once the transaction has started, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the connection
+ * at the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route().getConnection(username, password);
+    }
+
+    private DataSource route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            return primary;
+        }
+        if (ReadYourWritesFilter.isPinned()) {
+            pinnedReads.increment();
+            return primary;
+        }
+        replicaReads.increment();
+        return replica;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /** Connections taken from the replica for read-only transactions. */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /** Connections taken from the primary for read-only transactions of a pinned client. */
+    public long getPinnedReads() {
+        return pinnedReads.sum();
+    }
+
+    /** Connections taken from the primary for read-write transactions and work outside a transaction. */
+    public long getWrites() {
+        return writes.sum();
+    }
+}
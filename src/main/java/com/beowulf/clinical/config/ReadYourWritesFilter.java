@@ -0,0 +1,135 @@
+package com.beowulf.clinical.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Read-your-writes guard for {@link ReadWriteRoutingDataSource}: once a request commits a read-write
+ * transaction, its remaining reads and those of the same client for the next {@code pinSeconds} go to the
+ * primary, so that the client never reads a replica that has not caught up with its own write. The client
+ * is recognised by a cookie holding the time the pin ends, set on the response that wrote. Work outside a
+ * request, such as scheduled jobs, is never pinned.
+ *
+ * <p>The cookie is signed with an HMAC, so a client cannot pin itself to the primary by writing its own.
+ * Instances behind one load balancer need the same key; without one each instance makes up its own, and
+ * a pin is only honoured by the instance that set it. A pin never lasts longer than {@code pinSeconds}
+ * from the request that presents it, even if the setting was lowered after it was issued.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter implements TransactionExecutionListener {
+
+    public static final String PIN_COOKIE = "clinical-primary-until";
+
+    private static final ThreadLocal<RequestState> CURRENT = new ThreadLocal<>();
+    private static final String HMAC = "HmacSHA256";
+
+    private final int pinSeconds;
+    private final SecretKeySpec key;
+
+    /** With an empty {@code secret} a random key is used, which only this instance knows. */
+    public ReadYourWritesFilter(int pinSeconds, String secret) {
+        this.pinSeconds = pinSeconds;
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length == 0) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC);
+    }
+
+    static boolean isPinned() {
+        RequestState state = CURRENT.get();
+        return state != null && state.pinned;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        long until = Math.min(pinnedUntil(request), now + pinSeconds * 1000L);
+        CURRENT.set(new RequestState(response, until > now));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        RequestState state = CURRENT.get();
+        if (state == null || commitFailure != null || transaction.isReadOnly() || state.wrote) {
+            return;
+        }
+        state.wrote = true;
+        state.pinned = true;
+        // Ignored by the container if the response is already committed, as a streamed one may be
+        String until = Long.toString(System.currentTimeMillis() + pinSeconds * 1000L);
+        Cookie cookie = new Cookie(PIN_COOKIE, until + "." + sign(until));
+        cookie.setMaxAge(pinSeconds);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        state.response.addCookie(cookie);
+    }
+
+    /** The end of the pin the cookie carries, or 0 if there is none or its signature does not match. */
+    private long pinnedUntil(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, PIN_COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        String value = cookie.getValue();
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            return 0;
+        }
+        String until = value.substring(0, dot);
+        byte[] signature = sign(until).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(signature, value.substring(dot + 1).getBytes(StandardCharsets.US_ASCII))) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(until);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private String sign(String value) {
+        try {
+            // Mac is not thread-safe, and creating one is cheap next to the request it guards
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            byte[] signature = mac.doFinal(value.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " is not available", e);
+        }
+    }
+
+    private static final class RequestState {
+
+        private final HttpServletResponse response;
+        private boolean pinned;
+        private boolean wrote;
+
+        private RequestState(HttpServletResponse response, boolean pinned) {
+            this.response = response;
+            this.pinned = pinned;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.beowulf.clinical.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sends read-only transactions to a replica when {@code clinical.datasource.replica.url} is set. The
+ * primary pool is configured from {@code spring.datasource.*} as usual, the replica pool from
+ * {@code clinical.datasource.replica.url}, {@code .username}, {@code .password} and {@code .hikari.*},
+ * with the credentials defaulting to the primary's. Hibernate gives the connection back when each
+ * transaction ends, since open-session-in-view would otherwise keep the first one, replica or not, for
+ * the rest of the request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "clinical.datasource.replica.url")
+public class ReplicaRoutingConfig {
+
+    static final String CONNECTIONS = "clinical.datasource.connections";
+    static final String REPLICA_DATA_SOURCE = "replicaDataSource";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean(REPLICA_DATA_SOURCE)
+    @ConfigurationProperties("clinical.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties primary, Environment environment) {
+        HikariDataSource pool = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(environment.getRequiredProperty("clinical.datasource.replica.url"))
+            .username(environment.getProperty("clinical.datasource.replica.username", primary.determineUsername()))
+            .password(environment.getProperty("clinical.datasource.replica.password", primary.determinePassword()))
+            .build();
+        pool.setPoolName("replica");
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier(REPLICA_DATA_SOURCE) DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(Environment environment) {
+        return new ReadYourWritesFilter(environment.getProperty("clinical.datasource.replica.pin-seconds", Integer.class, 5),
+            environment.getProperty("clinical.datasource.replica.pin-secret", ""));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(DataSource dataSource) throws SQLException {
+        ReadWriteRoutingDataSource router = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        return registry -> {
+            registerConnections(registry, router, ReadWriteRoutingDataSource::getReplicaReads, "read", "replica");
+            registerConnections(registry, router, ReadWriteRoutingDataSource::getPinnedReads, "read", "primary");
+            registerConnections(registry, router, ReadWriteRoutingDataSource::getWrites, "write", "primary");
+        };
+    }
+
+    private static void registerConnections(MeterRegistry registry, ReadWriteRoutingDataSource router,
+                                            ToDoubleFunction<ReadWriteRoutingDataSource> count, String route, String target) {
+        FunctionCounter.builder(CONNECTIONS, router, count)
+            .description("Connections handed out, by transaction kind and the database that served them")
+            .tag("route", route)
+            .tag("target", target)
+            .register(registry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.beowulf.clinical.controller;
+
+import com.beowulf.clinical.dto.StorageBackup;
+import com.beowulf.clinical.service.FileStoreService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** {@code POST /actuator/backup} takes a hot backup of the file database; exposed by the {@code durable} profile. */
+@Component
+@Endpoint(id = "backup")
+@ConditionalOnProperty(name = "clinical.storage.dir")
+public class BackupEndpoint {
+
+    private final FileStoreService fileStoreService;
+
+    public BackupEndpoint(FileStoreService fileStoreService) {
+        this.fileStoreService = fileStoreService;
+    }
+
+    @WriteOperation
+    public StorageBackup backup() {
+        return fileStoreService.backup();
+    }
+}
@@ -0,0 +1,21 @@
+package com.beowulf.clinical.controller;
+
+import com.beowulf.clinical.dto.CursorPage;
+import org.springframework.http.ResponseEntity;
+import java.util.List;
+
+final class CursorPageResponses {
+
+    private CursorPageResponses() {}
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        return ok(page, ResponseEntity.ok());
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page, ResponseEntity.BodyBuilder builder) {
+        if (page.getNextCursor() != null) {
+            builder.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return builder.body(page.getItems());
+    }
+}
@@ -0,0 +1,69 @@
+package com.beowulf.clinical.controller;
+
+import com.beowulf.clinical.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "Export", description = "Bulk export endpoints")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ExportService exportService;
+    private final long timeoutMs;
+
+    public ExportController(ExportService exportService, @Value("${clinical.export.timeout-ms}") long timeoutMs) {
+        this.exportService = exportService;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @GetMapping("/orders.ndjson")
+    @Operation(summary = "Stream every order joined with its study and current result as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "false") boolean gzip,
+                                                              HttpServletRequest request) {
+        applyTimeout(request);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return builder.body(out -> {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                exportService.exportOrders(compressed);
+                compressed.finish();
+            });
+        }
+        return builder.body(exportService::exportOrders);
+    }
+
+    /**
+     * A full export runs far longer than the application-wide async timeout. The streaming body runs as a
+     * Callable with that timeout, so this interceptor swaps in the export's own just before the request
+     * goes async.
+     */
+    private void applyTimeout(HttpServletRequest request) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ExportController.class,
+            new CallableProcessingInterceptor() {
+                @Override
+                public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                    ((AsyncWebRequest) webRequest).setTimeout(timeoutMs);
+                }
+            });
+    }
+}
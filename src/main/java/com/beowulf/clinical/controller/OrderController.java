@@ -1,8 +1,12 @@
 package com.beowulf.clinical.controller;
 
+import com.beowulf.clinical.dto.BatchOrderItemResult;
+import com.beowulf.clinical.dto.CursorPage;
 import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.OrderSummary;
 import com.beowulf.clinical.entity.Order;
 import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderBatchService;
 import com.beowulf.clinical.service.OrderService;
 import com.beowulf.clinical.service.StudyService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -22,10 +26,12 @@ public class OrderController {
 
     private final OrderService orderService;
     private final StudyService studyService;
+    private final OrderBatchService orderBatchService;
 
-    public OrderController(OrderService orderService, StudyService studyService) {
+    public OrderController(OrderService orderService, StudyService studyService, OrderBatchService orderBatchService) {
         this.orderService = orderService;
         this.studyService = studyService;
+        this.orderBatchService = orderBatchService;
     }
 
     @PostMapping
@@ -53,6 +59,12 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create many orders at once; returns a created/invalid/conflict result per item")
+    public ResponseEntity<List<BatchOrderItemResult>> createOrders(@RequestBody List<OrderRequest> requests) {
+        return ResponseEntity.ok(orderBatchService.createOrders(requests));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get order by ID with nested study")
     public ResponseEntity<Map<String, Object>> getOrder(@PathVariable Long id) {
@@ -84,31 +96,33 @@ public class OrderController {
     }
 
     @GetMapping
-    @Operation(summary = "List all orders with optional filters")
+    @Operation(summary = "List orders with optional filters, keyset-paginated by id (next cursor in X-Next-Cursor)")
     public ResponseEntity<List<Map<String, Object>>> getOrders(
             @RequestParam(required = false) Long patientId,
-            @RequestParam(required = false) String type) {
-        List<Order> orders = orderService.getAllOrders(patientId, type);
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<OrderSummary> page = orderService.getOrderSummaries(patientId, type, after, limit);
         List<Map<String, Object>> result = new java.util.ArrayList<>();
-        for (Order order : orders) {
-            Map<String, Object> map = new LinkedHashMap<>();
-            map.put("id", order.getId());
-            map.put("patientId", order.getPatientId());
-            map.put("mrn", order.getMrn());
-            map.put("firstName", order.getFirstName());
-            map.put("lastName", order.getLastName());
-            map.put("dateOfBirth", order.getDateOfBirth());
-            map.put("type", order.getType());
-            map.put("createDate", order.getCreateDate());
-            map.put("updateDate", order.getUpdateDate());
-            try {
-                Study study = studyService.getStudyByOrderId(order.getId());
-                map.put("studyStatus", study.getStatus().name());
-            } catch (Exception e) {
-                map.put("studyStatus", "UNKNOWN");
-            }
-            result.add(map);
+        for (OrderSummary order : page.getItems()) {
+            result.add(toListItem(order));
         }
-        return ResponseEntity.ok(result);
+        return CursorPageResponses.ok(new CursorPage<>(result, page.getNextCursor()));
+    }
+
+    static Map<String, Object> toListItem(OrderSummary order) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", order.getId());
+        map.put("patientId", order.getPatientId());
+        map.put("mrn", order.getMrn());
+        map.put("firstName", order.getFirstName());
+        map.put("lastName", order.getLastName());
+        map.put("dateOfBirth", order.getDateOfBirth());
+        map.put("type", order.getType());
+        map.put("createDate", order.getCreateDate());
+        map.put("updateDate", order.getUpdateDate());
+        map.put("studyId", order.getStudyId());
+        map.put("studyStatus", order.getStudyStatus() != null ? order.getStudyStatus().name() : "UNKNOWN");
+        return map;
     }
 }
@@ -1,11 +1,14 @@
 package com.beowulf.clinical.controller;
 
+import com.beowulf.clinical.dto.ResultSearchHit;
 import com.beowulf.clinical.entity.OrderResult;
 import com.beowulf.clinical.service.OrderResultService;
+import com.beowulf.clinical.service.ResultSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
 @RestController
@@ -13,26 +16,65 @@ import java.util.List;
 public class OrderResultController {
 
     private final OrderResultService orderResultService;
+    private final ResultSearchService resultSearchService;
 
-    public OrderResultController(OrderResultService orderResultService) {
+    public OrderResultController(OrderResultService orderResultService, ResultSearchService resultSearchService) {
         this.orderResultService = orderResultService;
+        this.resultSearchService = resultSearchService;
+    }
+
+    @GetMapping("/api/results/search")
+    @Operation(summary = "Search report text: results containing every word of q, best matches first "
+        + "(optional type, from/to on signedOn with 'to' exclusive, currentOnly; next cursor in X-Next-Cursor)")
+    public ResponseEntity<List<ResultSearchHit>> searchResults(@RequestParam(required = false) String q,
+                                                               @RequestParam(required = false) String type,
+                                                               @RequestParam(required = false) String from,
+                                                               @RequestParam(required = false) String to,
+                                                               @RequestParam(defaultValue = "false") boolean currentOnly,
+                                                               @RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.ok(resultSearchService.search(q, type, from, to, currentOnly, after, limit));
     }
 
     @GetMapping("/api/results/{id}")
-    @Operation(summary = "Get specific result version by ID")
-    public ResponseEntity<OrderResult> getResult(@PathVariable Long id) {
-        return ResponseEntity.ok(orderResultService.getResultById(id));
+    @Operation(summary = "Get specific result version by ID (ETag; superseded versions are immutable)")
+    public ResponseEntity<OrderResult> getResult(@PathVariable Long id, WebRequest request) {
+        // One probe of the supersededById column decides the tag, so a 304 never loads the report
+        Long supersededById = orderResultService.getSupersededById(id);
+        String etag = supersededById != null ? ResultETags.superseded(id, supersededById) : ResultETags.current(id);
+        if (request.checkNotModified(etag)) {
+            return ResultETags.notModified(etag);
+        }
+        return withETag(orderResultService.getResultById(id));
     }
 
     @GetMapping("/api/orders/{orderId}/results")
-    @Operation(summary = "Get current result for an order")
-    public ResponseEntity<OrderResult> getCurrentResult(@PathVariable Long orderId) {
-        return ResponseEntity.ok(orderResultService.getCurrentResultForOrder(orderId));
+    @Operation(summary = "Get current result for an order (ETag)")
+    public ResponseEntity<OrderResult> getCurrentResult(@PathVariable Long orderId, WebRequest request) {
+        Long currentId = orderResultService.getCurrentResultId(orderId);
+        String etag = ResultETags.current(currentId);
+        if (request.checkNotModified(etag)) {
+            return ResultETags.notModified(etag);
+        }
+        return withETag(orderResultService.getResultById(currentId));
     }
 
     @GetMapping("/api/orders/{orderId}/results/history")
-    @Operation(summary = "Get all result versions for an order")
-    public ResponseEntity<List<OrderResult>> getResultHistory(@PathVariable Long orderId) {
-        return ResponseEntity.ok(orderResultService.getResultHistory(orderId));
+    @Operation(summary = "Get result versions for an order, keyset-paginated by version (next cursor in X-Next-Cursor, ETag)")
+    public ResponseEntity<List<OrderResult>> getResultHistory(@PathVariable Long orderId,
+                                                              @RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              WebRequest request) {
+        String etag = ResultETags.history(orderId, orderResultService.getLatestVersion(orderId));
+        if (request.checkNotModified(etag)) {
+            return ResultETags.notModified(etag);
+        }
+        return CursorPageResponses.ok(orderResultService.getResultHistory(orderId, after, limit),
+            ResponseEntity.ok().eTag(etag).cacheControl(ResultETags.REVALIDATE));
+    }
+
+    private static ResponseEntity<OrderResult> withETag(OrderResult result) {
+        String etag = ResultETags.of(result);
+        return ResponseEntity.ok().eTag(etag).cacheControl(ResultETags.cacheControl(etag)).body(result);
     }
 }
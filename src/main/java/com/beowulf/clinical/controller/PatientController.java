@@ -38,14 +38,24 @@ public class PatientController {
     }
 
     @GetMapping
-    @Operation(summary = "List all patients or find by MRN")
-    public ResponseEntity<?> getPatients(@RequestParam(required = false) String mrn) {
+    @Operation(summary = "Find patient by MRN or list patients, keyset-paginated by id (next cursor in X-Next-Cursor)")
+    public ResponseEntity<?> getPatients(@RequestParam(required = false) String mrn,
+                                         @RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit) {
         if (mrn != null) {
             Optional<Patient> patient = patientService.findByMrn(mrn);
             return patient.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
         }
-        return ResponseEntity.ok(patientService.getAllPatients());
+        return CursorPageResponses.ok(patientService.getPatients(after, limit));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Typeahead: patients whose MRN, last name or first name starts with q (case-insensitive; "
+        + "MRN matches first; limit 1-50, default 10)")
+    public ResponseEntity<List<Patient>> searchPatients(@RequestParam(required = false) String q,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(patientService.searchPatients(q, limit));
     }
 
     @PutMapping("/{id}")
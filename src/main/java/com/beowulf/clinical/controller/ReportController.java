@@ -1,13 +1,17 @@
 package com.beowulf.clinical.controller;
 
-import com.beowulf.clinical.service.OrderService;
-import com.beowulf.clinical.service.StudyService;
+import com.beowulf.clinical.dto.VolumeBucket;
+import com.beowulf.clinical.service.ReportCounterService;
+import com.beowulf.clinical.service.VolumeRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,23 +19,38 @@ import java.util.Map;
 @Tag(name = "Reports", description = "Reporting endpoints")
 public class ReportController {
 
-    private final StudyService studyService;
-    private final OrderService orderService;
+    private final ReportCounterService reportCounterService;
+    private final VolumeRollupService volumeRollupService;
 
-    public ReportController(StudyService studyService, OrderService orderService) {
-        this.studyService = studyService;
-        this.orderService = orderService;
+    public ReportController(ReportCounterService reportCounterService, VolumeRollupService volumeRollupService) {
+        this.reportCounterService = reportCounterService;
+        this.volumeRollupService = volumeRollupService;
     }
 
     @GetMapping("/study-status-summary")
     @Operation(summary = "Count of studies by status")
     public ResponseEntity<Map<String, Long>> getStudyStatusSummary() {
-        return ResponseEntity.ok(studyService.getStudyStatusSummary());
+        return ResponseEntity.ok(reportCounterService.getStudyStatusSummary());
     }
 
     @GetMapping("/orders-by-type")
     @Operation(summary = "Count of orders by type")
     public ResponseEntity<Map<String, Long>> getOrdersByType() {
-        return ResponseEntity.ok(orderService.getOrdersByType());
+        return ResponseEntity.ok(reportCounterService.getOrdersByType());
+    }
+
+    @PostMapping("/reconcile")
+    @Operation(summary = "Recompute report counters from the base tables and return the drift that was corrected")
+    public ResponseEntity<Map<String, Map<String, Long>>> reconcile() {
+        return ResponseEntity.ok(reportCounterService.reconcile());
+    }
+
+    @GetMapping("/volume")
+    @Operation(summary = "Orders per type and finalized/amended results per hour, day or month")
+    public ResponseEntity<List<VolumeBucket>> getVolume(
+            @RequestParam String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String granularity) {
+        return ResponseEntity.ok(volumeRollupService.getVolume(from, to, granularity));
     }
 }
@@ -0,0 +1,47 @@
+package com.beowulf.clinical.controller;
+
+import com.beowulf.clinical.entity.OrderResult;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.time.Duration;
+
+/**
+ * Strong ETags for order results. A result only changes once, when it is superseded, so its tag names
+ * the superseding result: {@code "result-<id>-<supersededById>"} is final and served as immutable, while
+ * {@code "result-<id>-current"} has to be revalidated. A history page is fully determined by the order's
+ * latest result version, which its tag carries.
+ */
+final class ResultETags {
+
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ResultETags() {}
+
+    static String of(OrderResult result) {
+        return Boolean.TRUE.equals(result.getIsCurrent()) || result.getSupersededById() == null
+            ? current(result.getId())
+            : superseded(result.getId(), result.getSupersededById());
+    }
+
+    static String superseded(Long resultId, Long supersededById) {
+        return "\"result-" + resultId + "-" + supersededById + "\"";
+    }
+
+    static String current(Long resultId) {
+        return "\"result-" + resultId + "-current\"";
+    }
+
+    static String history(Long orderId, int latestVersion) {
+        return "\"history-" + orderId + "-" + latestVersion + "\"";
+    }
+
+    static CacheControl cacheControl(String etag) {
+        return etag.endsWith("-current\"") ? REVALIDATE : IMMUTABLE;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl(etag)).build();
+    }
+}
@@ -1,34 +1,79 @@
 package com.beowulf.clinical.controller;
 
+import com.beowulf.clinical.dto.BatchStudyItemResult;
+import com.beowulf.clinical.dto.BatchStudyUpdateRequest;
 import com.beowulf.clinical.dto.StudyUpdateRequest;
 import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.exception.PreconditionFailedException;
+import com.beowulf.clinical.service.StudyBatchService;
+import com.beowulf.clinical.service.StudyEventBroadcaster;
 import com.beowulf.clinical.service.StudyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
 
 @RestController
 @Tag(name = "Studies", description = "Study management endpoints")
 public class StudyController {
 
     private final StudyService studyService;
+    private final StudyBatchService studyBatchService;
+    private final StudyEventBroadcaster studyEventBroadcaster;
 
-    public StudyController(StudyService studyService) {
+    public StudyController(StudyService studyService, StudyBatchService studyBatchService,
+                           StudyEventBroadcaster studyEventBroadcaster) {
         this.studyService = studyService;
+        this.studyBatchService = studyBatchService;
+        this.studyEventBroadcaster = studyEventBroadcaster;
+    }
+
+    @GetMapping(path = "/api/studies/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Server-Sent Events for committed study changes, optionally of one order or patient "
+        + "(resumes after Last-Event-ID; a 'reset' event means reload)")
+    public SseEmitter streamStudyEvents(@RequestParam(required = false) Long orderId,
+                                        @RequestParam(required = false) Long patientId,
+                                        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return studyEventBroadcaster.subscribe(orderId, patientId, lastEventId);
     }
 
     @GetMapping("/api/studies/{id}")
-    @Operation(summary = "Get study by ID")
-    public ResponseEntity<Study> getStudy(@PathVariable Long id) {
-        return ResponseEntity.ok(studyService.getStudyById(id));
+    @Operation(summary = "Get study by ID (ETag is the version; If-None-Match answers 304)")
+    public ResponseEntity<Study> getStudy(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = StudyETags.of(studyService.getStudyVersion(id));
+            if (request.checkNotModified(etag)) {
+                return StudyETags.notModified(etag);
+            }
+        }
+        return StudyETags.ok(studyService.getStudyById(id));
     }
 
     @PatchMapping("/api/studies/{id}")
-    @Operation(summary = "Update study (set reportText, change status)")
-    public ResponseEntity<Study> updateStudy(@PathVariable Long id, @Valid @RequestBody StudyUpdateRequest request) {
-        return ResponseEntity.ok(studyService.updateStudy(id, request));
+    @Operation(summary = "Update study (set reportText, change status); a stale If-Match is rejected with 412")
+    public ResponseEntity<Study> updateStudy(@PathVariable Long id, @Valid @RequestBody StudyUpdateRequest request,
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            Long version = studyService.getStudyVersion(id);
+            if (!StudyETags.matches(ifMatch, version)) {
+                throw new PreconditionFailedException(
+                    "Study has been modified (current version " + version + "). Please refresh and try again.");
+            }
+        }
+        return StudyETags.ok(studyService.updateStudy(id, request));
+    }
+
+    @PatchMapping("/api/studies/batch")
+    @Operation(summary = "Update many studies at once (e.g. sign a run of normal studies); returns an "
+        + "updated/invalid/not-found/conflict result per item")
+    public ResponseEntity<List<BatchStudyItemResult>> updateStudies(@RequestBody List<BatchStudyUpdateRequest> requests) {
+        return ResponseEntity.ok(studyBatchService.updateStudies(requests));
     }
 
     @DeleteMapping("/api/studies/{id}")
@@ -39,8 +84,14 @@ public class StudyController {
     }
 
     @GetMapping("/api/orders/{orderId}/study")
-    @Operation(summary = "Get study for a specific order")
-    public ResponseEntity<Study> getStudyByOrderId(@PathVariable Long orderId) {
-        return ResponseEntity.ok(studyService.getStudyByOrderId(orderId));
+    @Operation(summary = "Get study for a specific order (ETag is the version; If-None-Match answers 304)")
+    public ResponseEntity<Study> getStudyByOrderId(@PathVariable Long orderId, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = StudyETags.of(studyService.getStudyVersionByOrderId(orderId));
+            if (request.checkNotModified(etag)) {
+                return StudyETags.notModified(etag);
+            }
+        }
+        return StudyETags.ok(studyService.getStudyByOrderId(orderId));
     }
 }
@@ -0,0 +1,39 @@
+package com.beowulf.clinical.controller;
+
+import com.beowulf.clinical.entity.Study;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A study's ETag is its optimistic-lock version, which JPA raises on every change, so a client holding
+ * {@code "<version>"} can be answered from a version probe without loading the study or its report text.
+ */
+final class StudyETags {
+
+    private StudyETags() {}
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static ResponseEntity<Study> ok(Study study) {
+        return ResponseEntity.ok().eTag(of(study.getVersion())).cacheControl(CacheControl.noCache()).body(study);
+    }
+
+    static ResponseEntity<Study> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    /** If-Match uses strong comparison, so weak tags never match; {@code *} matches any existing study. */
+    static boolean matches(String ifMatch, Long version) {
+        String etag = of(version);
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
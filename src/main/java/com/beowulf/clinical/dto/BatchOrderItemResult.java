@@ -0,0 +1,43 @@
+package com.beowulf.clinical.dto;
+
+public class BatchOrderItemResult {
+
+    private final int index;
+    private final String status;
+    private final Long orderId;
+    private final Long patientId;
+    private final Long studyId;
+    private final Integer errorStatus;
+    private final String message;
+
+    private BatchOrderItemResult(int index, String status, Long orderId, Long patientId, Long studyId,
+                                 Integer errorStatus, String message) {
+        this.index = index;
+        this.status = status;
+        this.orderId = orderId;
+        this.patientId = patientId;
+        this.studyId = studyId;
+        this.errorStatus = errorStatus;
+        this.message = message;
+    }
+
+    public static BatchOrderItemResult created(int index, Long orderId, Long patientId, Long studyId) {
+        return new BatchOrderItemResult(index, "CREATED", orderId, patientId, studyId, null, null);
+    }
+
+    public static BatchOrderItemResult invalid(int index, String message) {
+        return new BatchOrderItemResult(index, "INVALID", null, null, null, 400, message);
+    }
+
+    public static BatchOrderItemResult conflict(int index, String message) {
+        return new BatchOrderItemResult(index, "CONFLICT", null, null, null, 409, message);
+    }
+
+    public int getIndex() { return index; }
+    public String getStatus() { return status; }
+    public Long getOrderId() { return orderId; }
+    public Long getPatientId() { return patientId; }
+    public Long getStudyId() { return studyId; }
+    public Integer getErrorStatus() { return errorStatus; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,54 @@
+package com.beowulf.clinical.dto;
+
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.enums.StudyStatus;
+
+public class BatchStudyItemResult {
+
+    private final int index;
+    private final Long studyId;
+    private final String status;
+    private final StudyStatus studyStatus;
+    private final Long version;
+    private final Long currentResultId;
+    private final Integer errorStatus;
+    private final String message;
+
+    private BatchStudyItemResult(int index, Long studyId, String status, StudyStatus studyStatus, Long version,
+                                 Long currentResultId, Integer errorStatus, String message) {
+        this.index = index;
+        this.studyId = studyId;
+        this.status = status;
+        this.studyStatus = studyStatus;
+        this.version = version;
+        this.currentResultId = currentResultId;
+        this.errorStatus = errorStatus;
+        this.message = message;
+    }
+
+    public static BatchStudyItemResult updated(int index, Study study) {
+        return new BatchStudyItemResult(index, study.getId(), "UPDATED", study.getStatus(), study.getVersion(),
+            study.getCurrentResultId(), null, null);
+    }
+
+    public static BatchStudyItemResult invalid(int index, Long studyId, String message) {
+        return new BatchStudyItemResult(index, studyId, "INVALID", null, null, null, 400, message);
+    }
+
+    public static BatchStudyItemResult notFound(int index, Long studyId, String message) {
+        return new BatchStudyItemResult(index, studyId, "NOT_FOUND", null, null, null, 404, message);
+    }
+
+    public static BatchStudyItemResult conflict(int index, Long studyId, String message) {
+        return new BatchStudyItemResult(index, studyId, "CONFLICT", null, null, null, 409, message);
+    }
+
+    public int getIndex() { return index; }
+    public Long getStudyId() { return studyId; }
+    public String getStatus() { return status; }
+    public StudyStatus getStudyStatus() { return studyStatus; }
+    public Long getVersion() { return version; }
+    public Long getCurrentResultId() { return currentResultId; }
+    public Integer getErrorStatus() { return errorStatus; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,14 @@
+package com.beowulf.clinical.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public class BatchStudyUpdateRequest extends StudyUpdateRequest {
+
+    @NotNull(message = "Field 'id' is required")
+    private Long id;
+
+    public BatchStudyUpdateRequest() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+}
@@ -0,0 +1,63 @@
+package com.beowulf.clinical.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public class CursorPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final Long nextCursor;
+
+    public CursorPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public static int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    public static long resolveAfter(Long after) {
+        if (after == null) {
+            return 0L;
+        }
+        if (after < 0) {
+            throw new IllegalArgumentException("Cursor 'after' must not be negative");
+        }
+        return after;
+    }
+
+    /** For cursors over an int column, such as a result version. */
+    public static int resolveIntAfter(Long after) {
+        long resolved = resolveAfter(after);
+        if (resolved > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cursor 'after' must be between 0 and " + Integer.MAX_VALUE);
+        }
+        return (int) resolved;
+    }
+
+    /**
+     * Builds a page from a query that fetched up to {@code limit + 1} rows; the extra row only
+     * signals that another page exists and is not returned.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    public List<T> getItems() { return items; }
+    public Long getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,67 @@
+package com.beowulf.clinical.dto;
+
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.ResultStatus;
+import com.beowulf.clinical.enums.StudyStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class OrderExportRow {
+
+    private final Long orderId;
+    private final Long patientId;
+    private final String mrn;
+    private final String firstName;
+    private final String lastName;
+    private final LocalDate dateOfBirth;
+    private final OrderType type;
+    private final LocalDateTime orderCreateDate;
+    private final Long studyId;
+    private final StudyStatus studyStatus;
+    private final Long studyVersion;
+    private final Long resultId;
+    private final Integer resultVersion;
+    private final ResultStatus resultStatus;
+    private final String report;
+    private final LocalDateTime signedOn;
+
+    public OrderExportRow(Long orderId, Long patientId, String mrn, String firstName, String lastName,
+                          LocalDate dateOfBirth, OrderType type, LocalDateTime orderCreateDate,
+                          Long studyId, StudyStatus studyStatus, Long studyVersion,
+                          Long resultId, Integer resultVersion, ResultStatus resultStatus,
+                          String report, LocalDateTime signedOn) {
+        this.orderId = orderId;
+        this.patientId = patientId;
+        this.mrn = mrn;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.dateOfBirth = dateOfBirth;
+        this.type = type;
+        this.orderCreateDate = orderCreateDate;
+        this.studyId = studyId;
+        this.studyStatus = studyStatus;
+        this.studyVersion = studyVersion;
+        this.resultId = resultId;
+        this.resultVersion = resultVersion;
+        this.resultStatus = resultStatus;
+        this.report = report;
+        this.signedOn = signedOn;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public Long getPatientId() { return patientId; }
+    public String getMrn() { return mrn; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public LocalDate getDateOfBirth() { return dateOfBirth; }
+    public OrderType getType() { return type; }
+    public LocalDateTime getOrderCreateDate() { return orderCreateDate; }
+    public Long getStudyId() { return studyId; }
+    public StudyStatus getStudyStatus() { return studyStatus; }
+    public Long getStudyVersion() { return studyVersion; }
+    public Long getResultId() { return resultId; }
+    public Integer getResultVersion() { return resultVersion; }
+    public ResultStatus getResultStatus() { return resultStatus; }
+    public String getReport() { return report; }
+    public LocalDateTime getSignedOn() { return signedOn; }
+}
@@ -0,0 +1,49 @@
+package com.beowulf.clinical.dto;
+
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.StudyStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class OrderSummary {
+
+    private final Long id;
+    private final Long patientId;
+    private final String mrn;
+    private final String firstName;
+    private final String lastName;
+    private final LocalDate dateOfBirth;
+    private final OrderType type;
+    private final LocalDateTime createDate;
+    private final LocalDateTime updateDate;
+    private final Long studyId;
+    private final StudyStatus studyStatus;
+
+    public OrderSummary(Long id, Long patientId, String mrn, String firstName, String lastName,
+                        LocalDate dateOfBirth, OrderType type, LocalDateTime createDate,
+                        LocalDateTime updateDate, Long studyId, StudyStatus studyStatus) {
+        this.id = id;
+        this.patientId = patientId;
+        this.mrn = mrn;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.dateOfBirth = dateOfBirth;
+        this.type = type;
+        this.createDate = createDate;
+        this.updateDate = updateDate;
+        this.studyId = studyId;
+        this.studyStatus = studyStatus;
+    }
+
+    public Long getId() { return id; }
+    public Long getPatientId() { return patientId; }
+    public String getMrn() { return mrn; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public LocalDate getDateOfBirth() { return dateOfBirth; }
+    public OrderType getType() { return type; }
+    public LocalDateTime getCreateDate() { return createDate; }
+    public LocalDateTime getUpdateDate() { return updateDate; }
+    public Long getStudyId() { return studyId; }
+    public StudyStatus getStudyStatus() { return studyStatus; }
+}
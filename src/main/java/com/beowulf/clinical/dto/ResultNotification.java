@@ -0,0 +1,45 @@
+package com.beowulf.clinical.dto;
+
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.ResultStatus;
+import java.time.LocalDateTime;
+
+/**
+ * What a destination is told when a result is finalized or amended. {@code id} is the outbox row id;
+ * a notification can be delivered more than once, and the id is the same each time.
+ */
+public class ResultNotification {
+
+    private final Long id;
+    private final Long resultId;
+    private final Long orderId;
+    private final Long patientId;
+    private final String mrn;
+    private final OrderType orderType;
+    private final Integer version;
+    private final ResultStatus status;
+    private final LocalDateTime signedOn;
+
+    public ResultNotification(Long id, Long resultId, Long orderId, Long patientId, String mrn, OrderType orderType,
+                              Integer version, ResultStatus status, LocalDateTime signedOn) {
+        this.id = id;
+        this.resultId = resultId;
+        this.orderId = orderId;
+        this.patientId = patientId;
+        this.mrn = mrn;
+        this.orderType = orderType;
+        this.version = version;
+        this.status = status;
+        this.signedOn = signedOn;
+    }
+
+    public Long getId() { return id; }
+    public Long getResultId() { return resultId; }
+    public Long getOrderId() { return orderId; }
+    public Long getPatientId() { return patientId; }
+    public String getMrn() { return mrn; }
+    public OrderType getOrderType() { return orderType; }
+    public Integer getVersion() { return version; }
+    public ResultStatus getStatus() { return status; }
+    public LocalDateTime getSignedOn() { return signedOn; }
+}
@@ -0,0 +1,38 @@
+package com.beowulf.clinical.dto;
+
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.ResultStatus;
+import java.time.LocalDateTime;
+
+public class ResultSearchHit {
+
+    private final Long resultId;
+    private final Long orderId;
+    private final Integer version;
+    private final OrderType orderType;
+    private final ResultStatus status;
+    private final LocalDateTime signedOn;
+    private final boolean current;
+    private final int score;
+
+    public ResultSearchHit(Long resultId, Long orderId, Integer version, OrderType orderType, ResultStatus status,
+                           LocalDateTime signedOn, boolean current, int score) {
+        this.resultId = resultId;
+        this.orderId = orderId;
+        this.version = version;
+        this.orderType = orderType;
+        this.status = status;
+        this.signedOn = signedOn;
+        this.current = current;
+        this.score = score;
+    }
+
+    public Long getResultId() { return resultId; }
+    public Long getOrderId() { return orderId; }
+    public Integer getVersion() { return version; }
+    public OrderType getOrderType() { return orderType; }
+    public ResultStatus getStatus() { return status; }
+    public LocalDateTime getSignedOn() { return signedOn; }
+    public boolean isCurrent() { return current; }
+    public int getScore() { return score; }
+}
@@ -0,0 +1,23 @@
+package com.beowulf.clinical.dto;
+
+import java.time.LocalDateTime;
+
+public class StorageBackup {
+
+    private final String file;
+    private final long sizeBytes;
+    private final long durationMs;
+    private final LocalDateTime completedAt;
+
+    public StorageBackup(String file, long sizeBytes, long durationMs, LocalDateTime completedAt) {
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.durationMs = durationMs;
+        this.completedAt = completedAt;
+    }
+
+    public String getFile() { return file; }
+    public long getSizeBytes() { return sizeBytes; }
+    public long getDurationMs() { return durationMs; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+}
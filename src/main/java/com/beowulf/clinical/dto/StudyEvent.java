@@ -0,0 +1,39 @@
+package com.beowulf.clinical.dto;
+
+import com.beowulf.clinical.enums.StudyEventType;
+import com.beowulf.clinical.enums.StudyStatus;
+import java.time.LocalDateTime;
+
+/**
+ * A committed study change as pushed to {@code /api/studies/events}. {@code status} is absent for
+ * DELETED, and {@code patientId} is only set on CREATED.
+ */
+public class StudyEvent {
+
+    private final long id;
+    private final StudyEventType type;
+    private final Long studyId;
+    private final Long orderId;
+    private final Long patientId;
+    private final StudyStatus status;
+    private final LocalDateTime occurredAt;
+
+    public StudyEvent(long id, StudyEventType type, Long studyId, Long orderId, Long patientId, StudyStatus status,
+                      LocalDateTime occurredAt) {
+        this.id = id;
+        this.type = type;
+        this.studyId = studyId;
+        this.orderId = orderId;
+        this.patientId = patientId;
+        this.status = status;
+        this.occurredAt = occurredAt;
+    }
+
+    public long getId() { return id; }
+    public StudyEventType getType() { return type; }
+    public Long getStudyId() { return studyId; }
+    public Long getOrderId() { return orderId; }
+    public Long getPatientId() { return patientId; }
+    public StudyStatus getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -1,10 +1,13 @@
 package com.beowulf.clinical.dto;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public class StudyUpdateRequest {
 
     private String status;
+
+    @Size(max = 5000, message = "Report text must be at most 5000 characters")
     private String reportText;
 
     @NotNull(message = "Field 'version' is required for optimistic locking")
@@ -0,0 +1,24 @@
+package com.beowulf.clinical.dto;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class VolumeBucket {
+
+    private final LocalDateTime bucketStart;
+    private final Map<String, Long> orders = new LinkedHashMap<>();
+    private long finalized;
+    private long amended;
+
+    public VolumeBucket(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public Map<String, Long> getOrders() { return orders; }
+    public long getFinalized() { return finalized; }
+    public void setFinalized(long finalized) { this.finalized = finalized; }
+    public long getAmended() { return amended; }
+    public void setAmended(long amended) { this.amended = amended; }
+}
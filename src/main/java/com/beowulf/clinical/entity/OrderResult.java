@@ -1,6 +1,8 @@
 package com.beowulf.clinical.entity;
 
+import com.beowulf.clinical.enums.ReportEncoding;
 import com.beowulf.clinical.enums.ResultStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -14,7 +16,8 @@ import java.time.LocalDateTime;
 public class OrderResult {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_result_seq")
+    @SequenceGenerator(name = "order_result_seq", sequenceName = "order_result_seq")
     private Long id;
 
     @NotNull
@@ -30,9 +33,19 @@ public class OrderResult {
 
     @NotBlank
     @Size(max = 5000)
-    @Column(nullable = false, length = 5000)
+    @Transient
     private String report;
 
+    /** The report text, or for a DELTA row an edit script against the next version's text. */
+    @JsonIgnore
+    @Column(name = "report", nullable = false, length = 5000)
+    private String storedReport;
+
+    @JsonIgnore
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_encoding", nullable = false, length = 10)
+    private ReportEncoding reportEncoding = ReportEncoding.FULL;
+
     @NotNull
     @Column(name = "signed_on", nullable = false)
     private LocalDateTime signedOn;
@@ -57,10 +70,19 @@ public class OrderResult {
 
     @PrePersist
     protected void onCreate() {
+        storedReport = report;
+        reportEncoding = ReportEncoding.FULL;
         createDate = LocalDateTime.now();
         updateDate = LocalDateTime.now();
     }
 
+    @PostLoad
+    protected void onLoad() {
+        if (reportEncoding == ReportEncoding.FULL) {
+            report = storedReport;
+        }
+    }
+
     @PreUpdate
     protected void onUpdate() {
         updateDate = LocalDateTime.now();
@@ -78,6 +100,8 @@ public class OrderResult {
     public void setResultType(String resultType) { this.resultType = resultType; }
     public String getReport() { return report; }
     public void setReport(String report) { this.report = report; }
+    public String getStoredReport() { return storedReport; }
+    public ReportEncoding getReportEncoding() { return reportEncoding; }
     public LocalDateTime getSignedOn() { return signedOn; }
     public void setSignedOn(LocalDateTime signedOn) { this.signedOn = signedOn; }
     public ResultStatus getStatus() { return status; }
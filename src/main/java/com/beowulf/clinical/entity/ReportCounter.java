@@ -0,0 +1,86 @@
+package com.beowulf.clinical.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Objects;
+
+@Entity
+@Table(name = "report_counter")
+@IdClass(ReportCounter.Key.class)
+public class ReportCounter {
+
+    @Id
+    @Column(nullable = false, length = 30)
+    private String category;
+
+    @Id
+    @Column(name = "counter_key", nullable = false, length = 30)
+    private String counterKey;
+
+    @Id
+    @Column(nullable = false)
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Long total;
+
+    public ReportCounter() {}
+
+    public ReportCounter(String category, String counterKey, Integer stripe, Long total) {
+        this.category = category;
+        this.counterKey = counterKey;
+        this.stripe = stripe;
+        this.total = total;
+    }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getCounterKey() { return counterKey; }
+    public void setCounterKey(String counterKey) { this.counterKey = counterKey; }
+    public Integer getStripe() { return stripe; }
+    public void setStripe(Integer stripe) { this.stripe = stripe; }
+    public Long getTotal() { return total; }
+    public void setTotal(Long total) { this.total = total; }
+
+    public static class Key implements Serializable, Comparable<Key> {
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::getCategory)
+            .thenComparing(Key::getCounterKey)
+            .thenComparing(Key::getStripe);
+
+        private String category;
+        private String counterKey;
+        private Integer stripe;
+
+        public Key() {}
+
+        public Key(String category, String counterKey, Integer stripe) {
+            this.category = category;
+            this.counterKey = counterKey;
+            this.stripe = stripe;
+        }
+
+        public String getCategory() { return category; }
+        public String getCounterKey() { return counterKey; }
+        public Integer getStripe() { return stripe; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(category, key.category) && Objects.equals(counterKey, key.counterKey)
+                && Objects.equals(stripe, key.stripe);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(category, counterKey, stripe);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
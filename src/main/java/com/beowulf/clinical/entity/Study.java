@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class Study {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "study_seq")
+    @SequenceGenerator(name = "study_seq", sequenceName = "study_seq")
     private Long id;
 
     @NotNull
@@ -31,6 +32,9 @@ public class Study {
     @Column(nullable = false)
     private Long version;
 
+    @Column(name = "current_result_id")
+    private Long currentResultId;
+
     @Column(name = "create_date", updatable = false)
     private LocalDateTime createDate;
 
@@ -60,6 +64,8 @@ public class Study {
     public void setStatus(StudyStatus status) { this.status = status; }
     public Long getVersion() { return version; }
     public void setVersion(Long version) { this.version = version; }
+    public Long getCurrentResultId() { return currentResultId; }
+    public void setCurrentResultId(Long currentResultId) { this.currentResultId = currentResultId; }
     public LocalDateTime getCreateDate() { return createDate; }
     public void setCreateDate(LocalDateTime createDate) { this.createDate = createDate; }
     public LocalDateTime getUpdateDate() { return updateDate; }
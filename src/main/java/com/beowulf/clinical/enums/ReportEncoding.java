@@ -0,0 +1,5 @@
+package com.beowulf.clinical.enums;
+
+public enum ReportEncoding {
+    FULL, DELTA
+}
@@ -0,0 +1,5 @@
+package com.beowulf.clinical.enums;
+
+public enum StudyEventType {
+    CREATED, REPORT_UPDATED, FINALIZED, AMENDED, CANCELED, DELETED
+}
@@ -0,0 +1,46 @@
+package com.beowulf.clinical.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum VolumeGranularity {
+    HOUR, DAY, MONTH;
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        switch (this) {
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return time.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+
+    public LocalDateTime plus(LocalDateTime bucketStart, long buckets) {
+        switch (this) {
+            case HOUR:
+                return bucketStart.plusHours(buckets);
+            case DAY:
+                return bucketStart.plusDays(buckets);
+            default:
+                return bucketStart.plusMonths(buckets);
+        }
+    }
+
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        switch (this) {
+            case HOUR:
+                return ChronoUnit.HOURS.between(from, to);
+            case DAY:
+                return ChronoUnit.DAYS.between(from, to);
+            default:
+                return ChronoUnit.MONTHS.between(from, to);
+        }
+    }
+
+    /** The tier this one is rolled up from, or null for the hourly tier that is written directly. */
+    public VolumeGranularity finer() {
+        return this == HOUR ? null : values()[ordinal() - 1];
+    }
+}
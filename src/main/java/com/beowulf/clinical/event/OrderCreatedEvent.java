@@ -0,0 +1,27 @@
+package com.beowulf.clinical.event;
+
+import com.beowulf.clinical.enums.OrderType;
+import java.time.LocalDateTime;
+
+public class OrderCreatedEvent {
+
+    private final Long orderId;
+    private final Long patientId;
+    private final Long studyId;
+    private final OrderType type;
+    private final LocalDateTime createDate;
+
+    public OrderCreatedEvent(Long orderId, Long patientId, Long studyId, OrderType type, LocalDateTime createDate) {
+        this.orderId = orderId;
+        this.patientId = patientId;
+        this.studyId = studyId;
+        this.type = type;
+        this.createDate = createDate;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public Long getPatientId() { return patientId; }
+    public Long getStudyId() { return studyId; }
+    public OrderType getType() { return type; }
+    public LocalDateTime getCreateDate() { return createDate; }
+}
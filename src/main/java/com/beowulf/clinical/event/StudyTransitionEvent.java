@@ -0,0 +1,32 @@
+package com.beowulf.clinical.event;
+
+import com.beowulf.clinical.enums.StudyStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the transaction that changes a study. {@code fromStatus} equals {@code toStatus}
+ * for report text edits, and {@code toStatus} is null when the study is deleted.
+ */
+public class StudyTransitionEvent {
+
+    private final Long studyId;
+    private final Long orderId;
+    private final StudyStatus fromStatus;
+    private final StudyStatus toStatus;
+    private final LocalDateTime occurredAt;
+
+    public StudyTransitionEvent(Long studyId, Long orderId, StudyStatus fromStatus, StudyStatus toStatus,
+                                LocalDateTime occurredAt) {
+        this.studyId = studyId;
+        this.orderId = orderId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getStudyId() { return studyId; }
+    public Long getOrderId() { return orderId; }
+    public StudyStatus getFromStatus() { return fromStatus; }
+    public StudyStatus getToStatus() { return toStatus; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -1,16 +1,29 @@
 package com.beowulf.clinical.exception;
 
+import com.beowulf.clinical.service.WorkflowMetrics;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final WorkflowMetrics workflowMetrics;
+
+    public GlobalExceptionHandler(WorkflowMetrics workflowMetrics) {
+        this.workflowMetrics = workflowMetrics;
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleNotFound(ResourceNotFoundException ex, HttpServletRequest request) {
         ErrorResponse error = new ErrorResponse(404, "Not Found", ex.getMessage(), request.getRequestURI());
@@ -19,18 +32,28 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(BusinessRuleException.class)
     public ResponseEntity<ErrorResponse> handleBusinessRule(BusinessRuleException ex, HttpServletRequest request) {
+        workflowMetrics.businessRuleRejection(uriPattern(request));
         ErrorResponse error = new ErrorResponse(400, "Bad Request", ex.getMessage(), request.getRequestURI());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
     @ExceptionHandler(ConflictException.class)
     public ResponseEntity<ErrorResponse> handleConflict(ConflictException ex, HttpServletRequest request) {
+        workflowMetrics.conflict(uriPattern(request), ConflictException.class);
         ErrorResponse error = new ErrorResponse(409, "Conflict", ex.getMessage(), request.getRequestURI());
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest request) {
+        workflowMetrics.conflict(uriPattern(request), PreconditionFailedException.class);
+        ErrorResponse error = new ErrorResponse(412, "Precondition Failed", ex.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
     @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
     public ResponseEntity<ErrorResponse> handleOptimisticLock(ObjectOptimisticLockingFailureException ex, HttpServletRequest request) {
+        workflowMetrics.conflict(uriPattern(request), ObjectOptimisticLockingFailureException.class);
         ErrorResponse error = new ErrorResponse(409, "Conflict",
             "Study was modified by another user. Please refresh and try again.", request.getRequestURI());
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
@@ -58,10 +81,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleNoConnection(Exception ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(503, "Service Unavailable",
+            "The server is busy. Please retry shortly.", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ErrorResponse> handleGeneric(Exception ex, HttpServletRequest request) {
+    public ResponseEntity<ErrorResponse> handleGeneric(Exception ex, HttpServletRequest request,
+                                                       HttpServletResponse response) {
+        if (isEventStream(request, response)) {
+            // An event stream has no converter for ErrorResponse, and its headers may already be on the wire
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
         ErrorResponse error = new ErrorResponse(500, "Internal Server Error",
             "An unexpected error occurred", request.getRequestURI());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
+
+    private static boolean isEventStream(HttpServletRequest request, HttpServletResponse response) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String contentType = response.getContentType();
+        return (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE))
+            || (contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
 }
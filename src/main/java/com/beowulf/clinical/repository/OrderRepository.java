@@ -1,16 +1,39 @@
 package com.beowulf.clinical.repository;
 
+import com.beowulf.clinical.dto.OrderSummary;
 import com.beowulf.clinical.entity.Order;
 import com.beowulf.clinical.enums.OrderType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
-import java.util.Map;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByPatientId(Long patientId);
-    List<Order> findByType(OrderType type);
-    List<Order> findByPatientIdAndType(Long patientId, OrderType type);
+
+    @Query("SELECT o.id FROM Order o WHERE o.patientId = :patientId")
+    List<Long> findIdsByPatientId(@Param("patientId") Long patientId);
+
+    String SUMMARY_SELECT = "SELECT new com.beowulf.clinical.dto.OrderSummary(" +
+        "o.id, o.patientId, o.mrn, o.firstName, o.lastName, o.dateOfBirth, o.type, " +
+        "o.createDate, o.updateDate, s.id, s.status) " +
+        "FROM Order o LEFT JOIN Study s ON s.orderId = o.id ";
+
+    @Query(SUMMARY_SELECT + "WHERE o.id > :after ORDER BY o.id")
+    List<OrderSummary> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE o.patientId = :patientId AND o.id > :after ORDER BY o.id")
+    List<OrderSummary> findSummariesByPatientIdAfter(@Param("patientId") Long patientId, @Param("after") Long after,
+                                                     Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE o.type = :type AND o.id > :after ORDER BY o.id")
+    List<OrderSummary> findSummariesByTypeAfter(@Param("type") OrderType type, @Param("after") Long after,
+                                                Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE o.patientId = :patientId AND o.type = :type AND o.id > :after ORDER BY o.id")
+    List<OrderSummary> findSummariesByPatientIdAndTypeAfter(@Param("patientId") Long patientId,
+                                                            @Param("type") OrderType type,
+                                                            @Param("after") Long after, Pageable pageable);
 
     @Query("SELECT o.type AS type, COUNT(o) AS count FROM Order o GROUP BY o.type")
     List<Object[]> countByType();
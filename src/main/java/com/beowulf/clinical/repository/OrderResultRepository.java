@@ -1,11 +1,21 @@
 package com.beowulf.clinical.repository;
 
 import com.beowulf.clinical.entity.OrderResult;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderResultRepository extends JpaRepository<OrderResult, Long> {
-    Optional<OrderResult> findByOrderIdAndIsCurrentTrue(Long orderId);
     List<OrderResult> findByOrderIdOrderByVersionAsc(Long orderId);
+    List<OrderResult> findByOrderIdAndVersionGreaterThanOrderByVersionAsc(Long orderId, Integer after, Pageable pageable);
+
+    @Query("SELECT MAX(r.version) FROM OrderResult r WHERE r.orderId = :orderId")
+    Integer findLatestVersionByOrderId(@Param("orderId") Long orderId);
+
+    /** The id of the result that superseded this one, 0 if it is not superseded, empty if it does not exist. */
+    @Query("SELECT COALESCE(r.supersededById, 0) FROM OrderResult r WHERE r.id = :id")
+    Optional<Long> findSupersededById(@Param("id") Long id);
 }
@@ -0,0 +1,139 @@
+package com.beowulf.clinical.repository;
+
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.enums.ReportEncoding;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends versions to orders' result histories in two batched statements: an insert that numbers each new
+ * row after the highest existing version of its order, and a primary-key update that points the previous
+ * current row at it. The {@code (order_id, version)} unique constraint rejects a second writer that read
+ * the same highest version.
+ */
+@Repository
+public class OrderResultVersionRepository {
+
+    static final String SEQUENCE = "order_result_seq";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public OrderResultVersionRepository(NamedParameterJdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    /** Gives {@code next}, a new current result to be passed to {@link #appendAll}, its id. */
+    public Append prepare(OrderResult next, Long previousResultId, String previousDelta) {
+        next.setId(idAllocator.next(SEQUENCE));
+        return new Append(next, previousResultId, previousDelta);
+    }
+
+    /**
+     * Inserts each append's new current result and supersedes its previous result, if any, replacing that
+     * one's text with the delta when one is given.
+     */
+    public void appendAll(List<Append> appends) {
+        if (appends.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        List<MapSqlParameterSource> supersedes = new ArrayList<>();
+        List<MapSqlParameterSource> deltaSupersedes = new ArrayList<>();
+        for (Append append : appends) {
+            OrderResult next = append.next;
+            MapSqlParameterSource params = new MapSqlParameterSource("id", next.getId())
+                .addValue("orderId", next.getOrderId())
+                .addValue("previousId", append.previousResultId)
+                .addValue("previousDelta", append.previousDelta)
+                .addValue("resultType", next.getResultType())
+                .addValue("status", next.getStatus().name())
+                .addValue("report", next.getReport())
+                .addValue("signedOn", next.getSignedOn())
+                .addValue("now", now);
+            inserts.add(params);
+            if (append.previousResultId != null) {
+                (append.previousDelta != null ? deltaSupersedes : supersedes).add(params);
+            }
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO order_result (id, order_id, version, result_type, report, signed_on, status, is_current, " +
+            "create_date, update_date) " +
+            "SELECT :id, :orderId, COALESCE(MAX(version), 0) + 1, :resultType, :report, :signedOn, :status, TRUE, :now, :now " +
+            "FROM order_result WHERE order_id = :orderId",
+            inserts.toArray(MapSqlParameterSource[]::new));
+        supersede(supersedes, "");
+        supersede(deltaSupersedes, ", report = :previousDelta, report_encoding = 'DELTA'");
+    }
+
+    private void supersede(List<MapSqlParameterSource> batch, String replaceReport) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "UPDATE order_result SET is_current = FALSE, superseded_by_id = :id, update_date = :now" + replaceReport +
+                " WHERE id = :previousId",
+                batch.toArray(MapSqlParameterSource[]::new));
+        }
+    }
+
+    public Stored findStored(long id) {
+        return jdbcTemplate.queryForObject(
+            "SELECT id, version, report, report_encoding FROM order_result WHERE id = :id",
+            new MapSqlParameterSource("id", id), Stored.MAPPER);
+    }
+
+    /**
+     * The versions after {@code version} up to and including the first one stored in full, newest first:
+     * everything needed to rebuild the text of {@code version}'s successor.
+     */
+    public List<Stored> findChainAfter(long orderId, int version) {
+        return jdbcTemplate.query(
+            "SELECT id, version, report, report_encoding FROM order_result " +
+            "WHERE order_id = :orderId AND version > :version AND version <= (" +
+            "SELECT MIN(version) FROM order_result WHERE order_id = :orderId AND version > :version " +
+            "AND report_encoding = 'FULL') ORDER BY version DESC",
+            new MapSqlParameterSource("orderId", orderId).addValue("version", version), Stored.MAPPER);
+    }
+
+    public static class Append {
+
+        private final OrderResult next;
+        private final Long previousResultId;
+        private final String previousDelta;
+
+        Append(OrderResult next, Long previousResultId, String previousDelta) {
+            this.next = next;
+            this.previousResultId = previousResultId;
+            this.previousDelta = previousDelta;
+        }
+    }
+
+    public static class Stored {
+
+        static final RowMapper<Stored> MAPPER = (rs, rowNum) -> new Stored(rs.getLong("id"), rs.getInt("version"),
+            rs.getString("report"), ReportEncoding.valueOf(rs.getString("report_encoding")));
+
+        private final long id;
+        private final int version;
+        private final String report;
+        private final ReportEncoding encoding;
+
+        public Stored(long id, int version, String report, ReportEncoding encoding) {
+            this.id = id;
+            this.version = version;
+            this.report = report;
+            this.encoding = encoding;
+        }
+
+        public long getId() { return id; }
+        public int getVersion() { return version; }
+        public String getReport() { return report; }
+        public ReportEncoding getEncoding() { return encoding; }
+    }
+}
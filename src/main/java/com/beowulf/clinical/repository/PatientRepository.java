@@ -1,10 +1,16 @@
 package com.beowulf.clinical.repository;
 
 import com.beowulf.clinical.entity.Patient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByMrn(String mrn);
     boolean existsByMrn(String mrn);
+    List<Patient> findByMrnIn(Collection<String> mrns);
+    List<Patient> findByIdIn(Collection<Long> ids);
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
 }
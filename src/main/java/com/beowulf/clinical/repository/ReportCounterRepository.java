@@ -0,0 +1,28 @@
+package com.beowulf.clinical.repository;
+
+import com.beowulf.clinical.entity.ReportCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface ReportCounterRepository extends JpaRepository<ReportCounter, ReportCounter.Key> {
+
+    @Modifying
+    @Query("UPDATE ReportCounter c SET c.total = c.total + :delta " +
+           "WHERE c.category = :category AND c.counterKey = :counterKey AND c.stripe = :stripe")
+    int increment(@Param("category") String category, @Param("counterKey") String counterKey,
+                  @Param("stripe") Integer stripe, @Param("delta") long delta);
+
+    @Query("SELECT c.counterKey AS counterKey, SUM(c.total) AS total FROM ReportCounter c " +
+           "WHERE c.category = :category GROUP BY c.counterKey")
+    List<Object[]> sumByCategory(@Param("category") String category);
+
+    // Same order as ReportCounter.Key, in which writers lock the rows they update
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ReportCounter c ORDER BY c.category, c.counterKey, c.stripe")
+    List<ReportCounter> lockAllInKeyOrder();
+}
@@ -0,0 +1,103 @@
+package com.beowulf.clinical.repository;
+
+import com.beowulf.clinical.dto.ResultNotification;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.ResultStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/** Rows of {@code result_outbox}; each destination's undelivered rows are read in id order. */
+@Repository
+public class ResultOutboxRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ResultOutboxRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Queues a notification of each result for each destination. */
+    public void insert(Collection<String> destinations, List<OrderResult> results, LocalDateTime now) {
+        MapSqlParameterSource[] batch = results.stream()
+            .flatMap(result -> destinations.stream()
+                .map(destination -> new MapSqlParameterSource("destination", destination)
+                    .addValue("resultId", result.getId())
+                    .addValue("orderId", result.getOrderId())
+                    .addValue("status", result.getStatus().name())
+                    .addValue("signedOn", result.getSignedOn())
+                    .addValue("now", now)))
+            .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO result_outbox (destination, result_id, order_id, status, signed_on, created_at, next_attempt_at) " +
+            "VALUES (:destination, :resultId, :orderId, :status, :signedOn, :now, :now)",
+            batch);
+    }
+
+    /** The oldest {@code limit} undelivered rows of {@code destination}, with what their notifications need. */
+    public List<Row> findPending(String destination, int limit) {
+        return jdbcTemplate.query(
+            "SELECT b.id, b.result_id, b.order_id, b.status, b.signed_on, b.created_at, b.attempts, b.next_attempt_at, " +
+            "r.version, o.patient_id, o.mrn, o.type " +
+            "FROM result_outbox b " +
+            "JOIN order_result r ON r.id = b.result_id " +
+            "JOIN orders o ON o.id = b.order_id " +
+            "WHERE b.destination = :destination AND b.delivered_at IS NULL ORDER BY b.id LIMIT :limit",
+            new MapSqlParameterSource("destination", destination).addValue("limit", limit),
+            (rs, rowNum) -> new Row(
+                new ResultNotification(rs.getLong("id"), rs.getLong("result_id"), rs.getLong("order_id"),
+                    rs.getLong("patient_id"), rs.getString("mrn"), OrderType.valueOf(rs.getString("type")),
+                    rs.getInt("version"), ResultStatus.valueOf(rs.getString("status")),
+                    rs.getTimestamp("signed_on").toLocalDateTime()),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getInt("attempts"),
+                rs.getTimestamp("next_attempt_at").toLocalDateTime()));
+    }
+
+    public long countPending(String destination) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM result_outbox WHERE destination = :destination AND delivered_at IS NULL",
+            new MapSqlParameterSource("destination", destination), Long.class);
+    }
+
+    public void markDelivered(Collection<Long> ids, LocalDateTime now) {
+        jdbcTemplate.update("UPDATE result_outbox SET delivered_at = :now, attempts = attempts + 1 WHERE id IN (:ids)",
+            new MapSqlParameterSource("ids", ids).addValue("now", now));
+    }
+
+    public void markFailed(Collection<Long> ids, LocalDateTime nextAttemptAt, String error) {
+        jdbcTemplate.update(
+            "UPDATE result_outbox SET attempts = attempts + 1, next_attempt_at = :nextAttemptAt, last_error = :error " +
+            "WHERE id IN (:ids)",
+            new MapSqlParameterSource("ids", ids).addValue("nextAttemptAt", nextAttemptAt).addValue("error", error));
+    }
+
+    public int deleteDeliveredBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM result_outbox WHERE delivered_at < :before",
+            new MapSqlParameterSource("before", before));
+    }
+
+    public static class Row {
+
+        private final ResultNotification notification;
+        private final LocalDateTime createdAt;
+        private final int attempts;
+        private final LocalDateTime nextAttemptAt;
+
+        public Row(ResultNotification notification, LocalDateTime createdAt, int attempts, LocalDateTime nextAttemptAt) {
+            this.notification = notification;
+            this.createdAt = createdAt;
+            this.attempts = attempts;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+
+        public ResultNotification getNotification() { return notification; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public int getAttempts() { return attempts; }
+        public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    }
+}
@@ -0,0 +1,160 @@
+package com.beowulf.clinical.repository;
+
+import com.beowulf.clinical.dto.ResultSearchHit;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.ResultStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Postings of the report search index: one {@code result_term} row per distinct term of a result, indexed
+ * by term first so a query reads only the postings of its own terms.
+ */
+@Repository
+public class ResultSearchRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ResultSearchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Indexes each document under its terms, copying its order's type. */
+    public void insert(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        Map<Long, String> orderTypes = new HashMap<>();
+        jdbcTemplate.query("SELECT id, type FROM orders WHERE id IN (:orderIds)",
+            new MapSqlParameterSource("orderIds", documents.stream().map(Document::getOrderId).distinct().toList()),
+            rs -> {
+                orderTypes.put(rs.getLong("id"), rs.getString("type"));
+            });
+        List<MapSqlParameterSource> docs = new ArrayList<>();
+        List<MapSqlParameterSource> postings = new ArrayList<>();
+        for (Document document : documents) {
+            String orderType = orderTypes.get(document.orderId);
+            docs.add(new MapSqlParameterSource("resultId", document.resultId)
+                .addValue("orderType", orderType)
+                .addValue("signedOn", document.signedOn)
+                .addValue("termCount", document.terms.size()));
+            document.terms.forEach((term, frequency) -> postings.add(new MapSqlParameterSource("resultId", document.resultId)
+                .addValue("term", term)
+                .addValue("frequency", frequency)
+                .addValue("orderType", orderType)
+                .addValue("signedOn", document.signedOn)));
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO result_search_doc (result_id, order_type, signed_on, term_count) " +
+            "VALUES (:resultId, :orderType, :signedOn, :termCount)",
+            docs.toArray(MapSqlParameterSource[]::new));
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO result_term (term, result_id, frequency, order_type, signed_on) " +
+            "VALUES (:term, :resultId, :frequency, :orderType, :signedOn)",
+            postings.toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Whether there are fewer indexed results than results. H2 keeps the row count of each table, so unlike
+     * {@link #findUnindexedResultIds} this does not scan order_result.
+     */
+    public boolean hasUnindexedResults() {
+        return jdbcTemplate.queryForObject(
+            "SELECT (SELECT COUNT(*) FROM order_result) > (SELECT COUNT(*) FROM result_search_doc)",
+            new MapSqlParameterSource(), Boolean.class);
+    }
+
+    /** Ids of results above {@code afterId} that are not indexed yet, in ascending order. */
+    public List<Long> findUnindexedResultIds(long afterId, int limit) {
+        return jdbcTemplate.queryForList(
+            "SELECT r.id FROM order_result r WHERE r.id > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM result_search_doc d WHERE d.result_id = r.id) ORDER BY r.id LIMIT :limit",
+            new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), Long.class);
+    }
+
+    /** Number of results indexed under {@code term}, counting no further than {@code cap}. */
+    public int countPostings(String term, int cap) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM (SELECT 1 FROM result_term WHERE term = :term LIMIT :cap)",
+            new MapSqlParameterSource("term", term).addValue("cap", cap), Integer.class);
+    }
+
+    /**
+     * Results containing every one of {@code terms}, ranked by their total number of occurrences and then
+     * by id, both descending, starting after the ({@code afterScore}, {@code afterId}) position. The type and
+     * time filters are optional; {@code to} is exclusive.
+     *
+     * <p>The first term drives the query and the others are probed per result, so the rarest term should
+     * come first. A single term is read best-first from the rank index and the query stops after
+     * {@code limit} rows; several terms must score every result matching the driving term.
+     */
+    public List<ResultSearchHit> search(List<String> terms, OrderType type, LocalDateTime from, LocalDateTime to,
+                                        boolean currentOnly, int afterScore, long afterId, int limit) {
+        boolean single = terms.size() == 1;
+        MapSqlParameterSource params = new MapSqlParameterSource("term0", terms.get(0))
+            .addValue("afterScore", afterScore)
+            .addValue("afterId", afterId)
+            .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("FROM result_term p0 USE INDEX (")
+            .append(single ? "idx_result_term_rank" : "idx_result_term_posting").append(")");
+        StringBuilder score = new StringBuilder("p0.frequency");
+        for (int i = 1; i < terms.size(); i++) {
+            sql.append(" JOIN result_term p").append(i).append(" USE INDEX (idx_result_term_posting) ON p").append(i)
+                .append(".term = :term").append(i).append(" AND p").append(i).append(".result_id = p0.result_id");
+            score.append(" + p").append(i).append(".frequency");
+            params.addValue("term" + i, terms.get(i));
+        }
+        sql.append(" JOIN order_result r ON r.id = p0.result_id WHERE p0.term = :term0");
+        if (type != null) {
+            sql.append(" AND p0.order_type = :type");
+            params.addValue("type", type.name());
+        }
+        if (from != null) {
+            sql.append(" AND p0.signed_on >= :from");
+            params.addValue("from", from);
+        }
+        if (to != null) {
+            sql.append(" AND p0.signed_on < :to");
+            params.addValue("to", to);
+        }
+        if (currentOnly) {
+            sql.append(" AND r.is_current");
+        }
+        // Written as a range on the score plus a tie-break so the rank index can seek to the cursor
+        sql.append(" AND ").append(score).append(" <= :afterScore AND (").append(score)
+            .append(" < :afterScore OR p0.result_id < :afterId)");
+        // The rank index only yields rows in order when the ORDER BY repeats its columns exactly
+        sql.append(single ? " ORDER BY p0.term, p0.frequency DESC, p0.result_id DESC" : " ORDER BY score DESC, p0.result_id DESC");
+        return jdbcTemplate.query(
+            "SELECT p0.result_id, " + score + " AS score, p0.order_type, r.order_id, r.version, r.status, r.signed_on, " +
+            "r.is_current " + sql + " LIMIT :limit",
+            params,
+            (rs, rowNum) -> new ResultSearchHit(rs.getLong("result_id"), rs.getLong("order_id"), rs.getInt("version"),
+                OrderType.valueOf(rs.getString("order_type")), ResultStatus.valueOf(rs.getString("status")),
+                rs.getTimestamp("signed_on").toLocalDateTime(), rs.getBoolean("is_current"), rs.getInt("score")));
+    }
+
+    /** A result to index, with its terms and their number of occurrences. */
+    public static class Document {
+
+        private final long resultId;
+        private final long orderId;
+        private final LocalDateTime signedOn;
+        private final Map<String, Integer> terms;
+
+        public Document(long resultId, long orderId, LocalDateTime signedOn, Map<String, Integer> terms) {
+            this.resultId = resultId;
+            this.orderId = orderId;
+            this.signedOn = signedOn;
+            this.terms = terms;
+        }
+
+        public long getOrderId() { return orderId; }
+    }
+}
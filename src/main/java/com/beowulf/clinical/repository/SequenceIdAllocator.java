@@ -0,0 +1,70 @@
+package com.beowulf.clinical.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids for JDBC inserts from the same sequences the entities use, following Hibernate's
+ * pooled-lo optimizer: every sequence value is the low end of a block of {@code INCREMENT} ids.
+ */
+@Repository
+public class SequenceIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> increments = new ConcurrentHashMap<>();
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> allocate(String sequenceName, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        if (count == 0) {
+            return ids;
+        }
+        long increment = increments.computeIfAbsent(sequenceName, this::loadIncrement);
+        long blocks = (count + increment - 1) / increment;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+            "SELECT NEXT VALUE FOR " + sequenceName + " FROM SYSTEM_RANGE(1, ?)", Long.class, blocks);
+        for (Long lo : blockStarts) {
+            for (long id = lo; id < lo + increment && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /** Hands out single ids from a cached block, so only one in {@code INCREMENT} calls reads the sequence. */
+    public long next(String sequenceName) {
+        Block block = blocks.computeIfAbsent(sequenceName, name -> new Block());
+        block.lock.lock();
+        try {
+            if (block.next >= block.end) {
+                long lo = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequenceName, Long.class);
+                block.next = lo;
+                block.end = lo + increments.computeIfAbsent(sequenceName, this::loadIncrement);
+            }
+            return block.next++;
+        } finally {
+            block.lock.unlock();
+        }
+    }
+
+    private long loadIncrement(String sequenceName) {
+        return jdbcTemplate.queryForObject(
+            "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+            Long.class, sequenceName.toUpperCase());
+    }
+
+    private static class Block {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long end;
+    }
+}
@@ -3,12 +3,22 @@ package com.beowulf.clinical.repository;
 import com.beowulf.clinical.entity.Study;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
 public interface StudyRepository extends JpaRepository<Study, Long> {
     Optional<Study> findByOrderId(Long orderId);
 
+    @Query("SELECT s.version FROM Study s WHERE s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT s.version FROM Study s WHERE s.orderId = :orderId")
+    Optional<Long> findVersionByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT s.currentResultId FROM Study s WHERE s.orderId = :orderId AND s.currentResultId IS NOT NULL")
+    Optional<Long> findCurrentResultIdByOrderId(@Param("orderId") Long orderId);
+
     @Query("SELECT s.status AS status, COUNT(s) AS count FROM Study s GROUP BY s.status")
     List<Object[]> countByStatus();
 }
@@ -0,0 +1,123 @@
+package com.beowulf.clinical.repository;
+
+import com.beowulf.clinical.enums.VolumeGranularity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Time-bucketed counts behind the volume report. Only the hourly tier is written by the application;
+ * the daily and monthly tiers are rebuilt from the tier below by {@link #rebuild}.
+ */
+@Repository
+public class VolumeBucketRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public VolumeBucketRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int increment(VolumeGranularity granularity, LocalDateTime bucketStart, String metric, String metricKey, long delta) {
+        return jdbcTemplate.update(
+            "UPDATE volume_bucket SET total = total + :delta WHERE granularity = :granularity " +
+            "AND bucket_start = :bucketStart AND metric = :metric AND metric_key = :metricKey",
+            bucketParams(granularity, bucketStart, metric, metricKey).addValue("delta", delta));
+    }
+
+    public void insert(VolumeGranularity granularity, LocalDateTime bucketStart, String metric, String metricKey, long total) {
+        jdbcTemplate.update(
+            "INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total) " +
+            "VALUES (:granularity, :bucketStart, :metric, :metricKey, :total)",
+            bucketParams(granularity, bucketStart, metric, metricKey).addValue("total", total));
+    }
+
+    /** Creates zero rows for a bucket ahead of time so the first writers of the hour only need an UPDATE. */
+    public void seed(VolumeGranularity granularity, LocalDateTime bucketStart, String metric, List<String> metricKeys) {
+        MapSqlParameterSource[] batch = metricKeys.stream()
+            .map(key -> bucketParams(granularity, bucketStart, metric, key))
+            .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total) " +
+            "SELECT :granularity, :bucketStart, :metric, :metricKey, 0 FROM DUAL WHERE NOT EXISTS (" +
+            "SELECT 1 FROM volume_bucket WHERE granularity = :granularity AND bucket_start = :bucketStart " +
+            "AND metric = :metric AND metric_key = :metricKey)",
+            batch);
+    }
+
+    public List<Row> findBetween(VolumeGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+            "SELECT bucket_start, metric, metric_key, total FROM volume_bucket " +
+            "WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to AND total <> 0 " +
+            "ORDER BY bucket_start, metric, metric_key",
+            new MapSqlParameterSource("granularity", granularity.name()).addValue("from", from).addValue("to", to),
+            (rs, rowNum) -> new Row(rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getString("metric"),
+                rs.getString("metric_key"), rs.getLong("total")));
+    }
+
+    /** Replaces the {@code granularity} buckets in {@code [from, to)} with sums of the next finer tier. */
+    public int rebuild(VolumeGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        String bucket = "DATE_TRUNC('" + granularity.name() + "', bucket_start)";
+        MapSqlParameterSource params = new MapSqlParameterSource("granularity", granularity.name())
+            .addValue("source", granularity.finer().name())
+            .addValue("from", from)
+            .addValue("to", to);
+        jdbcTemplate.update(
+            "DELETE FROM volume_bucket WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to",
+            params);
+        return jdbcTemplate.update(
+            "INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total) " +
+            "SELECT :granularity, " + bucket + ", metric, metric_key, SUM(total) " +
+            "FROM volume_bucket WHERE granularity = :source AND bucket_start >= :from AND bucket_start < :to " +
+            "GROUP BY " + bucket + ", metric, metric_key HAVING SUM(total) <> 0",
+            params);
+    }
+
+    public int deleteBefore(VolumeGranularity granularity, LocalDateTime before) {
+        return jdbcTemplate.update(
+            "DELETE FROM volume_bucket WHERE granularity = :granularity AND bucket_start < :before",
+            new MapSqlParameterSource("granularity", granularity.name()).addValue("before", before));
+    }
+
+    public LocalDateTime getRolledUpTo(VolumeGranularity granularity) {
+        return jdbcTemplate.queryForObject(
+            "SELECT rolled_up_to FROM volume_rollup WHERE granularity = :granularity",
+            new MapSqlParameterSource("granularity", granularity.name()), LocalDateTime.class);
+    }
+
+    public void setRolledUpTo(VolumeGranularity granularity, LocalDateTime rolledUpTo) {
+        jdbcTemplate.update(
+            "UPDATE volume_rollup SET rolled_up_to = :rolledUpTo WHERE granularity = :granularity",
+            new MapSqlParameterSource("granularity", granularity.name()).addValue("rolledUpTo", rolledUpTo));
+    }
+
+    private static MapSqlParameterSource bucketParams(VolumeGranularity granularity, LocalDateTime bucketStart,
+                                                      String metric, String metricKey) {
+        return new MapSqlParameterSource("granularity", granularity.name())
+            .addValue("bucketStart", bucketStart)
+            .addValue("metric", metric)
+            .addValue("metricKey", metricKey);
+    }
+
+    public static class Row {
+
+        private final LocalDateTime bucketStart;
+        private final String metric;
+        private final String metricKey;
+        private final long total;
+
+        public Row(LocalDateTime bucketStart, String metric, String metricKey, long total) {
+            this.bucketStart = bucketStart;
+            this.metric = metric;
+            this.metricKey = metricKey;
+            this.total = total;
+        }
+
+        public LocalDateTime getBucketStart() { return bucketStart; }
+        public String getMetric() { return metric; }
+        public String getMetricKey() { return metricKey; }
+        public long getTotal() { return total; }
+    }
+}
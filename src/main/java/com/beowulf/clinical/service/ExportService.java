@@ -0,0 +1,73 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.OrderExportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+@Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
+public class ExportService {
+
+    private static final String EXPORT_QUERY = "SELECT new com.beowulf.clinical.dto.OrderExportRow(" +
+        "o.id, o.patientId, o.mrn, o.firstName, o.lastName, o.dateOfBirth, o.type, o.createDate, " +
+        "s.id, s.status, s.version, r.id, r.version, r.status, r.storedReport, r.signedOn) " +
+        "FROM Order o " +
+        "LEFT JOIN Study s ON s.orderId = o.id " +
+        "LEFT JOIN OrderResult r ON r.id = s.currentResultId " +
+        "ORDER BY o.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter rowWriter;
+    private final int fetchSize;
+
+    public ExportService(PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                         @Value("${clinical.export.fetch-size:1000}") int fetchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rowWriter = objectMapper.writerFor(OrderExportRow.class);
+        this.fetchSize = fetchSize;
+    }
+
+    public long exportOrders(OutputStream out) {
+        Long written = transactionTemplate.execute(status -> {
+            // H2 materializes whole result sets unless lazy execution is on for the session
+            entityManager.createNativeQuery("SET LAZY_QUERY_EXECUTION TRUE").executeUpdate();
+            try (Stream<OrderExportRow> rows = entityManager.createQuery(EXPORT_QUERY, OrderExportRow.class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                JsonGenerator generator = rowWriter.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                long count = 0;
+                for (OrderExportRow row : (Iterable<OrderExportRow>) rows::iterator) {
+                    rowWriter.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                    count++;
+                }
+                generator.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                entityManager.createNativeQuery("SET LAZY_QUERY_EXECUTION FALSE").executeUpdate();
+            }
+        });
+        return written != null ? written : 0;
+    }
+}
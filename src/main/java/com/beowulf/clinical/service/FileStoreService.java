@@ -0,0 +1,169 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.StorageBackup;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.RandomAccessStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Maintenance of the H2 MVStore file behind the {@code durable} profile. H2 rewrites sparse chunks by
+ * itself but only moves chunks to shrink the file when allocations start failing, so after bulk loads
+ * and purges the file keeps its high-water size. A scheduled job moves chunks into the free space and
+ * truncates the file whenever less than {@code min-fill-rate} percent of it is live, for at most
+ * {@code max-time-ms} per run, while writers keep committing. Backups use H2's {@code BACKUP TO}, which
+ * stops reusing free space while it copies the file so that the copy stays consistent without blocking
+ * writers.
+ */
+@Service
+@ConditionalOnProperty(name = "clinical.storage.dir")
+public class FileStoreService {
+
+    static final String SIZE = "clinical.storage.size";
+    static final String FILL_RATE = "clinical.storage.fill-rate";
+    static final String COMPACTION = "clinical.storage.compaction";
+    static final String BACKUP = "clinical.storage.backup";
+    private static final String BACKUP_PREFIX = "clinicaldb-";
+    private static final DateTimeFormatter BACKUP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    // The amount H2 itself moves per step when it compacts the file on close
+    private static final long MOVE_BYTES = 16 * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(FileStoreService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path backupDir;
+    private final int backupKeep;
+    private final int minFillRate;
+    private final int maxCompactTimeMs;
+    private final Timer compactionTimer;
+    private final Timer backupTimer;
+    private volatile MVStore store;
+
+    public FileStoreService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                            @Value("${clinical.storage.backup.dir}") Path backupDir,
+                            @Value("${clinical.storage.backup.keep}") int backupKeep,
+                            @Value("${clinical.storage.compact.min-fill-rate}") int minFillRate,
+                            @Value("${clinical.storage.compact.max-time-ms}") int maxCompactTimeMs) {
+        if (backupKeep < 1 || minFillRate < 1 || minFillRate > 100 || maxCompactTimeMs < 1) {
+            throw new IllegalArgumentException("clinical.storage.backup.keep and compact.max-time-ms must be at least 1, "
+                + "compact.min-fill-rate between 1 and 100");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.backupDir = backupDir.toAbsolutePath();
+        this.backupKeep = backupKeep;
+        this.minFillRate = minFillRate;
+        this.maxCompactTimeMs = maxCompactTimeMs;
+        Gauge.builder(SIZE, this, service -> service.store().getFileStore().size())
+            .description("Size of the database file")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder(FILL_RATE, this, service -> service.store().getFillRate())
+            .description("Percentage of the database file holding live data")
+            .baseUnit("percent")
+            .register(meterRegistry);
+        this.compactionTimer = Timer.builder(COMPACTION)
+            .description("Online compaction runs of the database file")
+            .register(meterRegistry);
+        this.backupTimer = Timer.builder(BACKUP)
+            .description("Hot backups of the database file")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${clinical.storage.compact.interval-ms}",
+        initialDelayString = "${clinical.storage.compact.interval-ms}")
+    public void compact() {
+        MVStore current = store();
+        int fillRate = current.getFillRate();
+        if (fillRate >= minFillRate || !(current.getFileStore() instanceof RandomAccessStore file)) {
+            return;
+        }
+        long sizeBefore = file.size();
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(maxCompactTimeMs);
+        // Each step takes the store lock only while it moves up to MOVE_BYTES of chunks from the end of the file
+        // into free space nearer the start, then truncates the file; a target of 101 moves regardless of fill rate
+        do {
+            file.compactMoveChunks(101, MOVE_BYTES, current);
+        } while (current.getFillRate() < minFillRate && System.nanoTime() < deadline);
+        long elapsed = System.nanoTime() - started;
+        compactionTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Compacted the database file from {} MB ({}% live) to {} MB ({}% live) in {} ms",
+            sizeBefore >> 20, fillRate, file.size() >> 20, current.getFillRate(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * Writes a zipped copy of the database file to the backup directory and deletes all but the newest
+     * {@code keep} backups. The zip only appears under its final name once it is complete.
+     */
+    public synchronized StorageBackup backup() {
+        LocalDateTime now = LocalDateTime.now();
+        Path target = backupDir.resolve(BACKUP_PREFIX + BACKUP_TIMESTAMP.format(now) + ".zip");
+        Path partial = backupDir.resolve(target.getFileName() + ".partial");
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(backupDir);
+            jdbcTemplate.update("BACKUP TO ?", partial.toString());
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            long elapsed = System.nanoTime() - started;
+            backupTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            deleteOldBackups();
+            StorageBackup backup = new StorageBackup(target.toString(), Files.size(target),
+                TimeUnit.NANOSECONDS.toMillis(elapsed), LocalDateTime.now());
+            log.info("Backed up the database to {} ({} MB) in {} ms", target, backup.getSizeBytes() >> 20, backup.getDurationMs());
+            return backup;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Backup to " + target + " failed", e);
+        } finally {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                log.warn("Could not delete the incomplete backup {}", partial, e);
+            }
+        }
+    }
+
+    private void deleteOldBackups() throws IOException {
+        List<Path> backups;
+        try (Stream<Path> files = Files.list(backupDir)) {
+            backups = files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(BACKUP_PREFIX) && name.endsWith(".zip");
+            }).sorted().toList();
+        }
+        for (Path old : backups.subList(0, Math.max(0, backups.size() - backupKeep))) {
+            Files.delete(old);
+        }
+    }
+
+    /** The MVStore of the embedded database, looked up through a pooled connection. */
+    private MVStore store() {
+        MVStore current = store;
+        if (current == null || current.isClosed()) {
+            current = jdbcTemplate.execute((ConnectionCallback<MVStore>) connection ->
+                ((SessionLocal) connection.unwrap(JdbcConnection.class).getSession()).getDatabase().getStore().getMvStore());
+            store = current;
+        }
+        return current;
+    }
+}
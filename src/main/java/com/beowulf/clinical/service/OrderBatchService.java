@@ -0,0 +1,229 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.BatchOrderItemResult;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.entity.Patient;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.event.OrderCreatedEvent;
+import com.beowulf.clinical.exception.ConflictException;
+import com.beowulf.clinical.repository.PatientRepository;
+import com.beowulf.clinical.repository.SequenceIdAllocator;
+import com.beowulf.clinical.repository.StudyRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
+public class OrderBatchService {
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private static final String INSERT_PATIENT = "INSERT INTO patient (id, mrn, first_name, last_name, date_of_birth, create_date, update_date) " +
+        "VALUES (:id, :mrn, :firstName, :lastName, :dateOfBirth, :now, :now)";
+    private static final String INSERT_ORDER = "INSERT INTO orders (id, patient_id, mrn, first_name, last_name, date_of_birth, type, create_date, update_date) " +
+        "VALUES (:id, :patientId, :mrn, :firstName, :lastName, :dateOfBirth, :type, :now, :now)";
+    private static final String INSERT_STUDY = "INSERT INTO study (id, order_id, status, version, create_date, update_date) " +
+        "VALUES (:id, :orderId, :status, 0, :now, :now)";
+
+    private final PatientRepository patientRepository;
+    private final PatientPrefixIndex prefixIndex;
+    private final StudyRepository studyRepository;
+    private final OrderService orderService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public OrderBatchService(PatientRepository patientRepository, PatientPrefixIndex prefixIndex,
+                             StudyRepository studyRepository, OrderService orderService,
+                             NamedParameterJdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator, ApplicationEventPublisher eventPublisher,
+                             @Value("${clinical.orders.batch.chunk-size:500}") int chunkSize) {
+        this.patientRepository = patientRepository;
+        this.prefixIndex = prefixIndex;
+        this.studyRepository = studyRepository;
+        this.orderService = orderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BatchOrderItemResult> createOrders(List<OrderRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch may contain at most " + MAX_BATCH_SIZE + " orders");
+        }
+        BatchOrderItemResult[] results = new BatchOrderItemResult[requests.size()];
+        List<PendingOrder> pending = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequest request = requests.get(i);
+            try {
+                pending.add(validate(i, request));
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchOrderItemResult.invalid(i, e.getMessage());
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<PendingOrder> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertChunk(chunk, results));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent writer created one of the chunk's patients; settle each item on its own
+                createIndividually(chunk, results);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private PendingOrder validate(int index, OrderRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Order must not be null");
+        }
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        LocalDate dob = OrderService.parseDateOfBirth(request.getDateOfBirth());
+        OrderType type = OrderService.parseOrderType(request.getType());
+        return new PendingOrder(index, request, dob, type);
+    }
+
+    private void insertChunk(List<PendingOrder> chunk, BatchOrderItemResult[] results) {
+        Set<String> mrns = new HashSet<>();
+        for (PendingOrder order : chunk) {
+            mrns.add(order.request.getMrn());
+        }
+        Map<String, Patient> patientsByMrn = new HashMap<>();
+        for (Patient patient : patientRepository.findByMrnIn(mrns)) {
+            patientsByMrn.put(patient.getMrn(), patient);
+        }
+
+        List<Patient> newPatients = new ArrayList<>();
+        List<PendingOrder> accepted = new ArrayList<>();
+        for (PendingOrder order : chunk) {
+            OrderRequest request = order.request;
+            Patient patient = patientsByMrn.get(request.getMrn());
+            if (patient == null) {
+                patient = new Patient(request.getMrn(), request.getFirstName(), request.getLastName(), order.dateOfBirth);
+                patientsByMrn.put(request.getMrn(), patient);
+                newPatients.add(patient);
+            } else {
+                try {
+                    PatientService.checkDemographics(patient, request.getFirstName(), request.getLastName(), order.dateOfBirth);
+                } catch (ConflictException e) {
+                    results[order.index] = BatchOrderItemResult.conflict(order.index, e.getMessage());
+                    continue;
+                }
+            }
+            order.patient = patient;
+            accepted.add(order);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> patientIds = idAllocator.allocate("patient_seq", newPatients.size());
+        SqlParameterSource[] patientRows = new SqlParameterSource[newPatients.size()];
+        for (int i = 0; i < newPatients.size(); i++) {
+            Patient patient = newPatients.get(i);
+            patient.setId(patientIds.get(i));
+            patientRows[i] = new MapSqlParameterSource()
+                .addValue("id", patient.getId())
+                .addValue("mrn", patient.getMrn())
+                .addValue("firstName", patient.getFirstName())
+                .addValue("lastName", patient.getLastName())
+                .addValue("dateOfBirth", patient.getDateOfBirth())
+                .addValue("now", now);
+        }
+        jdbcTemplate.batchUpdate(INSERT_PATIENT, patientRows);
+        newPatients.forEach(prefixIndex::added);
+
+        List<Long> orderIds = idAllocator.allocate("orders_seq", accepted.size());
+        SqlParameterSource[] orderRows = new SqlParameterSource[accepted.size()];
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingOrder order = accepted.get(i);
+            orderRows[i] = new MapSqlParameterSource()
+                .addValue("id", orderIds.get(i))
+                .addValue("patientId", order.patient.getId())
+                .addValue("mrn", order.request.getMrn())
+                .addValue("firstName", order.request.getFirstName())
+                .addValue("lastName", order.request.getLastName())
+                .addValue("dateOfBirth", order.dateOfBirth)
+                .addValue("type", order.type.name())
+                .addValue("now", now);
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+
+        List<Long> studyIds = idAllocator.allocate("study_seq", accepted.size());
+        SqlParameterSource[] studyRows = new SqlParameterSource[accepted.size()];
+        for (int i = 0; i < accepted.size(); i++) {
+            studyRows[i] = new MapSqlParameterSource()
+                .addValue("id", studyIds.get(i))
+                .addValue("orderId", orderIds.get(i))
+                .addValue("status", StudyStatus.ORDERED.name())
+                .addValue("now", now);
+        }
+        jdbcTemplate.batchUpdate(INSERT_STUDY, studyRows);
+
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingOrder order = accepted.get(i);
+            results[order.index] = BatchOrderItemResult.created(order.index, orderIds.get(i), order.patient.getId(), studyIds.get(i));
+            eventPublisher.publishEvent(new OrderCreatedEvent(orderIds.get(i), order.patient.getId(), studyIds.get(i), order.type, now));
+        }
+    }
+
+    private void createIndividually(List<PendingOrder> chunk, BatchOrderItemResult[] results) {
+        for (PendingOrder pending : chunk) {
+            try {
+                Order order = orderService.createOrder(pending.request);
+                Long studyId = studyRepository.findByOrderId(order.getId()).map(s -> s.getId()).orElse(null);
+                results[pending.index] = BatchOrderItemResult.created(pending.index, order.getId(), order.getPatientId(), studyId);
+            } catch (ConflictException | DataIntegrityViolationException e) {
+                results[pending.index] = BatchOrderItemResult.conflict(pending.index, e.getMessage());
+            }
+        }
+    }
+
+    private static class PendingOrder {
+        private final int index;
+        private final OrderRequest request;
+        private final LocalDate dateOfBirth;
+        private final OrderType type;
+        private Patient patient;
+
+        PendingOrder(int index, OrderRequest request, LocalDate dateOfBirth, OrderType type) {
+            this.index = index;
+            this.request = request;
+            this.dateOfBirth = dateOfBirth;
+            this.type = type;
+        }
+    }
+}
@@ -1,31 +1,67 @@
 package com.beowulf.clinical.service;
 
+import com.beowulf.clinical.dto.CursorPage;
 import com.beowulf.clinical.entity.OrderResult;
 import com.beowulf.clinical.exception.ResourceNotFoundException;
 import com.beowulf.clinical.repository.OrderResultRepository;
+import com.beowulf.clinical.repository.StudyRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
 public class OrderResultService {
 
     private final OrderResultRepository orderResultRepository;
+    private final StudyRepository studyRepository;
+    private final ResultReportStore resultReportStore;
 
-    public OrderResultService(OrderResultRepository orderResultRepository) {
+    public OrderResultService(OrderResultRepository orderResultRepository, StudyRepository studyRepository,
+                              ResultReportStore resultReportStore) {
         this.orderResultRepository = orderResultRepository;
+        this.studyRepository = studyRepository;
+        this.resultReportStore = resultReportStore;
     }
 
+    @Transactional(readOnly = true)
     public OrderResult getResultById(Long id) {
-        return orderResultRepository.findById(id)
+        OrderResult result = orderResultRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("OrderResult not found with id: " + id));
+        resultReportStore.resolve(List.of(result));
+        return result;
     }
 
-    public OrderResult getCurrentResultForOrder(Long orderId) {
-        return orderResultRepository.findByOrderIdAndIsCurrentTrue(orderId)
+    /** The id of the result that superseded this one, or null if it is current. */
+    @Transactional(readOnly = true)
+    public Long getSupersededById(Long id) {
+        long supersededById = orderResultRepository.findSupersededById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("OrderResult not found with id: " + id));
+        return supersededById != 0 ? supersededById : null;
+    }
+
+    /** Reads the study's pointer to the current result; fetching it is then a primary-key lookup. */
+    @Transactional(readOnly = true)
+    public Long getCurrentResultId(Long orderId) {
+        return studyRepository.findCurrentResultIdByOrderId(orderId)
             .orElseThrow(() -> new ResourceNotFoundException("No current result found for order id: " + orderId));
     }
 
-    public List<OrderResult> getResultHistory(Long orderId) {
-        return orderResultRepository.findByOrderIdOrderByVersionAsc(orderId);
+    /** Highest result version of the order, 0 if it has none; every change to its history raises it. */
+    @Transactional(readOnly = true)
+    public int getLatestVersion(Long orderId) {
+        Integer latest = orderResultRepository.findLatestVersionByOrderId(orderId);
+        return latest != null ? latest : 0;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResult> getResultHistory(Long orderId, Long afterVersion, Integer limit) {
+        int pageSize = CursorPage.resolveLimit(limit);
+        List<OrderResult> rows = orderResultRepository.findByOrderIdAndVersionGreaterThanOrderByVersionAsc(
+            orderId, CursorPage.resolveIntAfter(afterVersion), PageRequest.of(0, pageSize + 1));
+        resultReportStore.resolve(rows);
+        return CursorPage.of(rows, pageSize, r -> r.getVersion().longValue());
     }
 }
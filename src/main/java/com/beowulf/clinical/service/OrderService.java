@@ -1,51 +1,48 @@
 package com.beowulf.clinical.service;
 
+import com.beowulf.clinical.dto.CursorPage;
 import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.OrderSummary;
 import com.beowulf.clinical.entity.Order;
 import com.beowulf.clinical.entity.Patient;
 import com.beowulf.clinical.entity.Study;
 import com.beowulf.clinical.enums.OrderType;
 import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.event.OrderCreatedEvent;
 import com.beowulf.clinical.exception.ResourceNotFoundException;
 import com.beowulf.clinical.repository.OrderRepository;
 import com.beowulf.clinical.repository.StudyRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.Map;
-import java.util.LinkedHashMap;
 
 @Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
 public class OrderService {
 
     private final OrderRepository orderRepository;
     private final StudyRepository studyRepository;
     private final PatientService patientService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OrderService(OrderRepository orderRepository, StudyRepository studyRepository, PatientService patientService) {
+    public OrderService(OrderRepository orderRepository, StudyRepository studyRepository, PatientService patientService,
+                        ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.studyRepository = studyRepository;
         this.patientService = patientService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public Order createOrder(OrderRequest request) {
-        LocalDate dob;
-        try {
-            dob = LocalDate.parse(request.getDateOfBirth());
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format. Use ISO 8601 (YYYY-MM-DD)");
-        }
-
-        OrderType orderType;
-        try {
-            orderType = OrderType.valueOf(request.getType());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid order type: " + request.getType() +
-                ". Valid types: ECHO, XRAY, LAB, MRI, CT, ULTRASOUND");
-        }
+        LocalDate dob = parseDateOfBirth(request.getDateOfBirth());
+        OrderType orderType = parseOrderType(request.getType());
 
         Patient patient = patientService.findOrCreatePatient(
             request.getMrn(), request.getFirstName(), request.getLastName(), dob);
@@ -64,41 +61,54 @@ public class OrderService {
         study.setStatus(StudyStatus.ORDERED);
         studyRepository.save(study);
 
+        eventPublisher.publishEvent(new OrderCreatedEvent(
+            order.getId(), order.getPatientId(), study.getId(), order.getType(), order.getCreateDate()));
         return order;
     }
 
+    @Transactional(readOnly = true)
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
-    public List<Order> getAllOrders(Long patientId, String type) {
-        OrderType orderType = null;
-        if (type != null) {
-            try {
-                orderType = OrderType.valueOf(type);
-            } catch (IllegalArgumentException e) {
-                throw new IllegalArgumentException("Invalid order type: " + type +
-                    ". Valid types: ECHO, XRAY, LAB, MRI, CT, ULTRASOUND");
-            }
-        }
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummary> getOrderSummaries(Long patientId, String type, Long after, Integer limit) {
+        OrderType orderType = parseOrderTypeFilter(type);
+        long afterId = CursorPage.resolveAfter(after);
+        int pageSize = CursorPage.resolveLimit(limit);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<OrderSummary> rows;
         if (patientId != null && orderType != null) {
-            return orderRepository.findByPatientIdAndType(patientId, orderType);
-        }
-        if (patientId != null) {
-            return orderRepository.findByPatientId(patientId);
+            rows = orderRepository.findSummariesByPatientIdAndTypeAfter(patientId, orderType, afterId, pageable);
+        } else if (patientId != null) {
+            rows = orderRepository.findSummariesByPatientIdAfter(patientId, afterId, pageable);
+        } else if (orderType != null) {
+            rows = orderRepository.findSummariesByTypeAfter(orderType, afterId, pageable);
+        } else {
+            rows = orderRepository.findSummariesAfter(afterId, pageable);
         }
-        if (orderType != null) {
-            return orderRepository.findByType(orderType);
+        return CursorPage.of(rows, pageSize, OrderSummary::getId);
+    }
+
+    private OrderType parseOrderTypeFilter(String type) {
+        return type != null ? parseOrderType(type) : null;
+    }
+
+    static LocalDate parseDateOfBirth(String dateOfBirth) {
+        try {
+            return LocalDate.parse(dateOfBirth);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use ISO 8601 (YYYY-MM-DD)");
         }
-        return orderRepository.findAll();
     }
 
-    public Map<String, Long> getOrdersByType() {
-        Map<String, Long> result = new LinkedHashMap<>();
-        for (Object[] row : orderRepository.countByType()) {
-            result.put(row[0].toString(), (Long) row[1]);
+    static OrderType parseOrderType(String type) {
+        try {
+            return OrderType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid order type: " + type +
+                ". Valid types: ECHO, XRAY, LAB, MRI, CT, ULTRASOUND");
         }
-        return result;
     }
 }
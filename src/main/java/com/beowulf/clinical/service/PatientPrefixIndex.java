@@ -0,0 +1,357 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.entity.Patient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory prefix index over patient MRNs, last names and first names. Each field keeps its
+ * lower-cased values in one sorted array with a parallel array of patient ids, so a lookup is a binary
+ * search followed by a short scan. Writes after the array was built go to a small sorted overlay
+ * (additions) and a tombstone set (removals) once their transaction commits, and a scheduled
+ * compaction folds both into a new array. The index is loaded from the database in the background once
+ * the application is ready, so startup does not wait for it; until then lookups query the database.
+ */
+@Service
+public class PatientPrefixIndex implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientPrefixIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FieldIndex mrns = new FieldIndex();
+    private final FieldIndex lastNames = new FieldIndex();
+    private final FieldIndex firstNames = new FieldIndex();
+    private final List<FieldIndex> fields = List.of(mrns, lastNames, firstNames);
+    private volatile boolean loaded;
+
+    public PatientPrefixIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Ids of patients with a value starting with {@code prefix}: MRN matches first, then last and first names. */
+    public List<Long> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (!loaded) {
+            return searchDatabase(key, limit);
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (FieldIndex field : fields) {
+            if (ids.size() < limit) {
+                field.collect(key, limit, ids);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    public void added(Patient patient) {
+        long id = patient.getId();
+        String mrn = normalize(patient.getMrn());
+        String lastName = normalize(patient.getLastName());
+        String firstName = normalize(patient.getFirstName());
+        afterCommit(() -> {
+            mrns.add(new Entry(mrn, id));
+            lastNames.add(new Entry(lastName, id));
+            firstNames.add(new Entry(firstName, id));
+        });
+    }
+
+    public void renamed(long id, String oldFirstName, String oldLastName, String firstName, String lastName) {
+        Entry oldLast = new Entry(normalize(oldLastName), id);
+        Entry oldFirst = new Entry(normalize(oldFirstName), id);
+        Entry newLast = new Entry(normalize(lastName), id);
+        Entry newFirst = new Entry(normalize(firstName), id);
+        afterCommit(() -> {
+            lastNames.replace(oldLast, newLast);
+            firstNames.replace(oldFirst, newFirst);
+        });
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread loader = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Loading the patient search index failed; searches keep querying the database", e);
+            }
+        }, "patient-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Replaces the arrays with the patients in the database. Synchronized with {@link #compact} so that a
+     * compaction cannot fold away changes committed during the load; they stay pending until the next one.
+     */
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Map<String, String> shared = new HashMap<>();
+        List<Entry> mrnEntries = new ArrayList<>();
+        List<Entry> lastNameEntries = new ArrayList<>();
+        List<Entry> firstNameEntries = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, mrn, first_name, last_name FROM patient", rs -> {
+            long id = rs.getLong("id");
+            mrnEntries.add(new Entry(normalize(rs.getString("mrn")), id));
+            lastNameEntries.add(new Entry(shared.computeIfAbsent(normalize(rs.getString("last_name")), k -> k), id));
+            firstNameEntries.add(new Entry(shared.computeIfAbsent(normalize(rs.getString("first_name")), k -> k), id));
+        });
+        mrns.load(mrnEntries);
+        lastNames.load(lastNameEntries);
+        firstNames.load(firstNameEntries);
+        loaded = true;
+        log.info("Patient search index loaded {} patients in {} ms", mrnEntries.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @Scheduled(fixedDelayString = "${clinical.patients.search.compact-interval-ms}")
+    public synchronized void compact() {
+        for (FieldIndex field : fields) {
+            field.compact();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("clinical.patients.search.entries", this, index -> index.fields.stream().mapToLong(f -> f.base.ids.length).sum())
+            .description("Entries in the compacted patient prefix arrays, one per patient and field")
+            .register(registry);
+        Gauge.builder("clinical.patients.search.pending", this, index -> index.fields.stream().mapToLong(FieldIndex::pending).sum())
+            .description("Additions and removals waiting for the next compaction")
+            .register(registry);
+        Gauge.builder("clinical.patients.search.memory", this, PatientPrefixIndex::estimatedBytes)
+            .description("Estimated heap used by the patient prefix index")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    /** Pending entries are counted at roughly the size of a skip-list node holding an entry. */
+    long estimatedBytes() {
+        return fields.stream().mapToLong(field -> field.base.estimatedBytes + 96L * field.pending()).sum();
+    }
+
+    /** The matches {@link #search} finds in the arrays, in the same order, with one query per field. */
+    private List<Long> searchDatabase(String key, int limit) {
+        String pattern = key.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String column : List.of("mrn", "last_name", "first_name")) {
+            if (ids.size() < limit) {
+                String value = "LOWER(TRIM(" + column + "))";
+                ids.addAll(jdbcTemplate.queryForList("SELECT id FROM patient WHERE " + value + " LIKE ? ESCAPE '\\' " +
+                    "ORDER BY " + value + ", id LIMIT ?", Long.class, pattern, limit));
+            }
+        }
+        return ids.stream().limit(limit).toList();
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        final String key;
+        final long id;
+
+        Entry(String key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry entry && id == entry.id && key.equals(entry.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 31 + Long.hashCode(id);
+        }
+    }
+
+    /** Immutable sorted keys with their patient ids; a key repeats once per patient having it. */
+    private static final class Base {
+
+        static final Base EMPTY = new Base(new String[0], new long[0]);
+
+        final String[] keys;
+        final long[] ids;
+        final long estimatedBytes;
+
+        Base(String[] keys, long[] ids) {
+            this.keys = keys;
+            this.ids = ids;
+            this.estimatedBytes = estimateBytes(keys);
+        }
+
+        /** Both arrays plus each distinct key string, assuming compressed references and Latin-1 strings. */
+        private static long estimateBytes(String[] keys) {
+            long bytes = 16L + 4L * keys.length + 16L + 8L * keys.length;
+            Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String key : keys) {
+                if (distinct.add(key)) {
+                    bytes += 24 + ((16 + key.length() + 7) & ~7);
+                }
+            }
+            return bytes;
+        }
+
+        static Base of(List<Entry> sorted) {
+            String[] keys = new String[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = sorted.get(i).key;
+                ids[i] = sorted.get(i).id;
+            }
+            return new Base(keys, ids);
+        }
+
+        int lowerBound(String prefix) {
+            int index = Arrays.binarySearch(keys, prefix);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && keys[index - 1].equals(prefix)) {
+                index--;
+            }
+            return index;
+        }
+    }
+
+    private static final class FieldIndex {
+
+        volatile Base base = Base.EMPTY;
+        final ConcurrentSkipListSet<Entry> added = new ConcurrentSkipListSet<>();
+        final Set<Entry> removed = ConcurrentHashMap.newKeySet();
+
+        void add(Entry entry) {
+            removed.remove(entry);
+            added.add(entry);
+        }
+
+        void replace(Entry previous, Entry next) {
+            if (!previous.equals(next)) {
+                added.remove(previous);
+                removed.add(previous);
+                add(next);
+            }
+        }
+
+        long pending() {
+            return added.size() + removed.size();
+        }
+
+        void load(List<Entry> entries) {
+            entries.sort(null);
+            base = Base.of(entries);
+        }
+
+        /** Merges the base array and the overlay in key order, skipping removed entries. */
+        void collect(String prefix, int limit, Set<Long> ids) {
+            Base current = base;
+            int i = current.lowerBound(prefix);
+            Iterator<Entry> overlay = added.tailSet(new Entry(prefix, Long.MIN_VALUE)).iterator();
+            Entry next = overlay.hasNext() ? overlay.next() : null;
+            while (ids.size() < limit) {
+                boolean fromBase = i < current.keys.length && current.keys[i].startsWith(prefix);
+                boolean fromOverlay = next != null && next.key.startsWith(prefix);
+                if (!fromBase && !fromOverlay) {
+                    return;
+                }
+                if (fromBase && (!fromOverlay || compare(current.keys[i], current.ids[i], next) <= 0)) {
+                    if (removed.isEmpty() || !removed.contains(new Entry(current.keys[i], current.ids[i]))) {
+                        ids.add(current.ids[i]);
+                    }
+                    i++;
+                } else {
+                    ids.add(next.id);
+                    next = overlay.hasNext() ? overlay.next() : null;
+                }
+            }
+        }
+
+        /**
+         * Builds a new base from the current one and a snapshot of the overlay, then drops the snapshot from
+         * the overlay. Changes made while the new base is built stay pending until the next compaction.
+         */
+        void compact() {
+            if (added.isEmpty() && removed.isEmpty()) {
+                return;
+            }
+            Set<Entry> removedSnapshot = Set.copyOf(removed);
+            List<Entry> addedSnapshot = new ArrayList<>(added);
+            Base current = base;
+            List<Entry> merged = new ArrayList<>(current.keys.length + addedSnapshot.size());
+            int i = 0;
+            int j = 0;
+            while (i < current.keys.length || j < addedSnapshot.size()) {
+                Entry entry;
+                if (j == addedSnapshot.size() || (i < current.keys.length && compare(current.keys[i], current.ids[i], addedSnapshot.get(j)) <= 0)) {
+                    entry = new Entry(current.keys[i], current.ids[i]);
+                    i++;
+                } else {
+                    entry = addedSnapshot.get(j++);
+                }
+                if (!removedSnapshot.contains(entry) && (merged.isEmpty() || !merged.get(merged.size() - 1).equals(entry))) {
+                    merged.add(entry);
+                }
+            }
+            base = Base.of(merged);
+            // An entry removed and added again during the build is not in the new base and stays pending
+            addedSnapshot.removeIf(removedSnapshot::contains);
+            added.removeAll(addedSnapshot);
+            removed.removeAll(removedSnapshot);
+        }
+
+        private static int compare(String key, long id, Entry entry) {
+            int byKey = key.compareTo(entry.key);
+            return byKey != 0 ? byKey : Long.compare(id, entry.id);
+        }
+    }
+}
@@ -1,77 +1,192 @@
 package com.beowulf.clinical.service;
 
+import com.beowulf.clinical.config.CacheConfig;
+import com.beowulf.clinical.dto.CursorPage;
 import com.beowulf.clinical.dto.PatientRequest;
 import com.beowulf.clinical.dto.PatientUpdateRequest;
 import com.beowulf.clinical.entity.Patient;
 import com.beowulf.clinical.exception.ConflictException;
 import com.beowulf.clinical.exception.ResourceNotFoundException;
 import com.beowulf.clinical.repository.PatientRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
 public class PatientService {
 
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    public static final int MAX_SEARCH_LIMIT = 50;
+
     private final PatientRepository patientRepository;
+    private final PatientPrefixIndex prefixIndex;
+    private final Cache patientsByMrn;
+    private final Object cacheLock = new Object();
+    // Committed evictions; a put is dropped if one committed after its read began. Guarded by cacheLock.
+    private long evictions;
 
-    public PatientService(PatientRepository patientRepository) {
+    public PatientService(PatientRepository patientRepository, PatientPrefixIndex prefixIndex, CacheManager cacheManager) {
         this.patientRepository = patientRepository;
+        this.prefixIndex = prefixIndex;
+        this.patientsByMrn = cacheManager.getCache(CacheConfig.PATIENTS_BY_MRN);
     }
 
     @Transactional
     public Patient createPatient(PatientRequest request) {
-        if (patientRepository.existsByMrn(request.getMrn())) {
+        long generation = cacheGeneration();
+        if (patientsByMrn.get(request.getMrn()) != null || patientRepository.existsByMrn(request.getMrn())) {
             throw new ConflictException("Patient with MRN '" + request.getMrn() + "' already exists");
         }
         LocalDate dob = parseDate(request.getDateOfBirth());
-        Patient patient = new Patient(request.getMrn(), request.getFirstName(), request.getLastName(), dob);
-        return patientRepository.save(patient);
+        Patient patient = patientRepository.save(new Patient(request.getMrn(), request.getFirstName(), request.getLastName(), dob));
+        cacheAfterCommit(patient, generation);
+        prefixIndex.added(patient);
+        return patient;
     }
 
+    @Transactional(readOnly = true)
     public Patient getPatientById(Long id) {
         return patientRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id: " + id));
     }
 
+    @Transactional(readOnly = true)
     public Optional<Patient> findByMrn(String mrn) {
         return patientRepository.findByMrn(mrn);
     }
 
-    public List<Patient> getAllPatients() {
-        return patientRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<Patient> getPatients(Long after, Integer limit) {
+        int pageSize = CursorPage.resolveLimit(limit);
+        List<Patient> rows = patientRepository.findByIdGreaterThanOrderByIdAsc(
+            CursorPage.resolveAfter(after), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, Patient::getId);
+    }
+
+    /** Typeahead: patients whose MRN, last name or first name starts with {@code q}, ignoring case. */
+    @Transactional(readOnly = true)
+    public List<Patient> searchPatients(String q, Integer limit) {
+        if (q == null || q.isBlank()) {
+            throw new IllegalArgumentException("Search text must not be blank");
+        }
+        int size = limit != null ? limit : DEFAULT_SEARCH_LIMIT;
+        if (size < 1 || size > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        List<Long> ids = prefixIndex.search(q, size);
+        Map<Long, Patient> patients = new HashMap<>();
+        for (Patient patient : patientRepository.findByIdIn(ids)) {
+            patients.put(patient.getId(), patient);
+        }
+        return ids.stream().map(patients::get).filter(Objects::nonNull).toList();
     }
 
     @Transactional
     public Patient updatePatient(Long id, PatientUpdateRequest request) {
         Patient patient = getPatientById(id);
         LocalDate dob = parseDate(request.getDateOfBirth());
+        prefixIndex.renamed(id, patient.getFirstName(), patient.getLastName(), request.getFirstName(), request.getLastName());
         patient.setFirstName(request.getFirstName());
         patient.setLastName(request.getLastName());
         patient.setDateOfBirth(dob);
+        evictAfterCommit(patient.getMrn());
         return patientRepository.save(patient);
     }
 
     @Transactional
     public Patient findOrCreatePatient(String mrn, String firstName, String lastName, LocalDate dateOfBirth) {
+        long generation = cacheGeneration();
+        Patient cached = patientsByMrn.get(mrn, Patient.class);
+        if (cached != null) {
+            checkDemographics(cached, firstName, lastName, dateOfBirth);
+            return cached;
+        }
         Optional<Patient> existing = patientRepository.findByMrn(mrn);
         if (existing.isPresent()) {
             Patient patient = existing.get();
-            boolean nameChanged = !patient.getFirstName().equals(firstName) || !patient.getLastName().equals(lastName);
-            boolean dobChanged = !patient.getDateOfBirth().equals(dateOfBirth);
-            if (nameChanged || dobChanged) {
-                throw new ConflictException(
-                    "Patient with MRN '" + mrn + "' already exists with different demographics. " +
-                    "Existing: " + patient.getFirstName() + " " + patient.getLastName() + " (DOB: " + patient.getDateOfBirth() + "). " +
-                    "Use the patient update endpoint to change demographics first.");
-            }
+            checkDemographics(patient, firstName, lastName, dateOfBirth);
+            cacheAfterCommit(patient, generation);
             return patient;
         }
-        Patient patient = new Patient(mrn, firstName, lastName, dateOfBirth);
-        return patientRepository.save(patient);
+        Patient patient = patientRepository.save(new Patient(mrn, firstName, lastName, dateOfBirth));
+        cacheAfterCommit(patient, generation);
+        prefixIndex.added(patient);
+        return patient;
+    }
+
+    private long cacheGeneration() {
+        synchronized (cacheLock) {
+            return evictions;
+        }
+    }
+
+    /**
+     * Caches the patient once the transaction commits, unless an update committed since {@code generation}
+     * was read: the patient may have been read before that update, and would overwrite its eviction.
+     */
+    private void cacheAfterCommit(Patient patient, long generation) {
+        Patient copy = snapshot(patient);
+        afterCommit(() -> {
+            synchronized (cacheLock) {
+                if (evictions == generation) {
+                    patientsByMrn.putIfAbsent(copy.getMrn(), copy);
+                }
+            }
+        });
+    }
+
+    private void evictAfterCommit(String mrn) {
+        afterCommit(() -> {
+            synchronized (cacheLock) {
+                evictions++;
+                patientsByMrn.evict(mrn);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static Patient snapshot(Patient patient) {
+        Patient copy = new Patient(patient.getMrn(), patient.getFirstName(), patient.getLastName(), patient.getDateOfBirth());
+        copy.setId(patient.getId());
+        copy.setCreateDate(patient.getCreateDate());
+        copy.setUpdateDate(patient.getUpdateDate());
+        return copy;
+    }
+
+    static void checkDemographics(Patient patient, String firstName, String lastName, LocalDate dateOfBirth) {
+        boolean nameChanged = !patient.getFirstName().equals(firstName) || !patient.getLastName().equals(lastName);
+        boolean dobChanged = !patient.getDateOfBirth().equals(dateOfBirth);
+        if (nameChanged || dobChanged) {
+            throw new ConflictException(
+                "Patient with MRN '" + patient.getMrn() + "' already exists with different demographics. " +
+                "Existing: " + patient.getFirstName() + " " + patient.getLastName() + " (DOB: " + patient.getDateOfBirth() + "). " +
+                "Use the patient update endpoint to change demographics first.");
+        }
     }
 
     private LocalDate parseDate(String dateStr) {
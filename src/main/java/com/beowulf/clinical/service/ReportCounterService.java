@@ -0,0 +1,238 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.entity.ReportCounter;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.event.OrderCreatedEvent;
+import com.beowulf.clinical.event.StudyTransitionEvent;
+import com.beowulf.clinical.repository.OrderRepository;
+import com.beowulf.clinical.repository.ReportCounterRepository;
+import com.beowulf.clinical.repository.StudyRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps the study-status and order-type totals behind the report endpoints. Each transaction
+ * collects its deltas and applies them just before commit to one randomly chosen stripe row per
+ * key, so concurrent writers rarely contend on the same row.
+ */
+@Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
+public class ReportCounterService {
+
+    public static final String STUDY_STATUS = "STUDY_STATUS";
+    public static final String ORDER_TYPE = "ORDER_TYPE";
+    static final int STRIPES = 8;
+
+    private static final Logger log = LoggerFactory.getLogger(ReportCounterService.class);
+
+    private final ReportCounterRepository counterRepository;
+    private final StudyRepository studyRepository;
+    private final OrderRepository orderRepository;
+
+    public ReportCounterService(ReportCounterRepository counterRepository, StudyRepository studyRepository,
+                                OrderRepository orderRepository) {
+        this.counterRepository = counterRepository;
+        this.studyRepository = studyRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        PendingDeltas deltas = pendingDeltas();
+        deltas.add(ORDER_TYPE, event.getType().name(), 1);
+        deltas.add(STUDY_STATUS, StudyStatus.ORDERED.name(), 1);
+    }
+
+    @EventListener
+    public void onStudyTransition(StudyTransitionEvent event) {
+        if (event.getFromStatus() == event.getToStatus()) {
+            return;
+        }
+        PendingDeltas deltas = pendingDeltas();
+        if (event.getFromStatus() != null) {
+            deltas.add(STUDY_STATUS, event.getFromStatus().name(), -1);
+        }
+        if (event.getToStatus() != null) {
+            deltas.add(STUDY_STATUS, event.getToStatus().name(), 1);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> getStudyStatusSummary() {
+        return totals(STUDY_STATUS, StudyStatus.values());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> getOrdersByType() {
+        return totals(ORDER_TYPE, OrderType.values());
+    }
+
+    /**
+     * Compares the counters with counts from the base tables and repairs any difference. The scans run
+     * without locks first, so writers are not held up by them. If they disagree, or a writer committed
+     * while they ran, the counter rows are locked in the order writers lock them and compared again.
+     */
+    @Transactional
+    public Map<String, Map<String, Long>> reconcile() {
+        Map<String, Map<String, Long>> totals = currentTotals();
+        Map<String, Map<String, Long>> unlocked = drift(totals, baseCounts());
+        if (unlocked.values().stream().allMatch(Map::isEmpty) && totals.equals(currentTotals())) {
+            return unlocked;
+        }
+
+        List<ReportCounter> counters = counterRepository.lockAllInKeyOrder();
+        Map<String, Map<String, Long>> counted = new HashMap<>();
+        for (ReportCounter counter : counters) {
+            counted.computeIfAbsent(counter.getCategory(), category -> new HashMap<>())
+                .merge(counter.getCounterKey(), counter.getTotal(), Long::sum);
+        }
+        // Writers now wait for these locks before they commit, so these counts and the counters agree
+        Map<String, Map<String, Long>> expected = baseCounts();
+        Map<String, Map<String, Long>> drift = drift(counted, expected);
+        for (ReportCounter counter : counters) {
+            if (drift.get(counter.getCategory()).containsKey(counter.getCounterKey())) {
+                long total = expected.get(counter.getCategory()).getOrDefault(counter.getCounterKey(), 0L);
+                counter.setTotal(counter.getStripe() == 0 ? total : 0L);
+            }
+        }
+        drift.forEach((category, keys) -> {
+            if (!keys.isEmpty()) {
+                log.warn("Report counter drift in {}: {}", category, keys);
+            }
+            for (String key : keys.keySet()) {
+                if (!counted.getOrDefault(category, Map.of()).containsKey(key)) {
+                    counterRepository.save(new ReportCounter(category, key, 0, expected.get(category).get(key)));
+                }
+            }
+        });
+        return drift;
+    }
+
+    @Scheduled(cron = "${clinical.reports.reconcile-cron}")
+    @Transactional
+    public void reconcileOnSchedule() {
+        reconcile();
+    }
+
+    private Map<String, Long> totals(String category, Enum<?>[] keys) {
+        Map<String, Long> sums = new HashMap<>();
+        for (Object[] row : counterRepository.sumByCategory(category)) {
+            sums.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Enum<?> key : keys) {
+            long total = sums.getOrDefault(key.name(), 0L);
+            if (total != 0) {
+                result.put(key.name(), total);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Map<String, Long>> currentTotals() {
+        Map<String, Map<String, Long>> totals = new HashMap<>();
+        for (String category : List.of(STUDY_STATUS, ORDER_TYPE)) {
+            Map<String, Long> sums = new HashMap<>();
+            for (Object[] row : counterRepository.sumByCategory(category)) {
+                sums.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            totals.put(category, sums);
+        }
+        return totals;
+    }
+
+    private Map<String, Map<String, Long>> baseCounts() {
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        counts.put(STUDY_STATUS, keyed(studyRepository.countByStatus()));
+        counts.put(ORDER_TYPE, keyed(orderRepository.countByType()));
+        return counts;
+    }
+
+    private static Map<String, Long> keyed(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(row[0].toString(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static Map<String, Map<String, Long>> drift(Map<String, Map<String, Long>> counted,
+                                                       Map<String, Map<String, Long>> expected) {
+        Map<String, Map<String, Long>> drift = new LinkedHashMap<>();
+        for (String category : List.of(STUDY_STATUS, ORDER_TYPE)) {
+            Map<String, Long> countedKeys = counted.getOrDefault(category, Map.of());
+            Map<String, Long> expectedKeys = expected.getOrDefault(category, Map.of());
+            Set<String> keys = new LinkedHashSet<>(expectedKeys.keySet());
+            keys.addAll(countedKeys.keySet());
+            Map<String, Long> difference = new LinkedHashMap<>();
+            for (String key : keys) {
+                long delta = countedKeys.getOrDefault(key, 0L) - expectedKeys.getOrDefault(key, 0L);
+                if (delta != 0) {
+                    difference.put(key, delta);
+                }
+            }
+            drift.put(category, difference);
+        }
+        return drift;
+    }
+
+    private PendingDeltas pendingDeltas() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Report counters can only change inside a transaction");
+        }
+        PendingDeltas deltas = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            deltas = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            TransactionSynchronizationManager.registerSynchronization(deltas);
+        }
+        return deltas;
+    }
+
+    private class PendingDeltas implements TransactionSynchronization {
+
+        // Sorted so that every transaction locks counter rows in the same order and two writers
+        // touching the same keys cannot deadlock
+        private final Map<ReportCounter.Key, Long> deltas = new TreeMap<>();
+
+        void add(String category, String counterKey, long delta) {
+            deltas.merge(new ReportCounter.Key(category, counterKey, 0), delta, Long::sum);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+            for (Map.Entry<ReportCounter.Key, Long> entry : deltas.entrySet()) {
+                long delta = entry.getValue();
+                if (delta == 0) {
+                    continue;
+                }
+                ReportCounter.Key key = entry.getKey();
+                if (counterRepository.increment(key.getCategory(), key.getCounterKey(), stripe, delta) == 0) {
+                    counterRepository.save(new ReportCounter(key.getCategory(), key.getCounterKey(), stripe, delta));
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ReportCounterService.this);
+        }
+    }
+}
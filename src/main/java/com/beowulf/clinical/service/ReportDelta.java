@@ -0,0 +1,218 @@
+package com.beowulf.clinical.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Edit scripts that turn one report text into another. {@code =n} copies the next n characters of the
+ * base, {@code -n} skips them and {@code +n:text} inserts n characters. Texts are compared word by word
+ * after the common prefix and suffix are stripped, so a typical amendment encodes as a few short
+ * operations around one copied run.
+ */
+final class ReportDelta {
+
+    private static final Pattern TOKEN = Pattern.compile("\\w+|\\s+|[^\\w\\s]");
+    // Past this many token edits the changed middle is stored as a plain replacement
+    private static final int MAX_EDITS = 500;
+    private static final int COPY = 0;
+    private static final int SKIP = 1;
+    private static final int INSERT = 2;
+
+    private ReportDelta() {}
+
+    static String encode(String base, String target) {
+        List<String> a = tokens(base);
+        List<String> b = tokens(target);
+        int prefix = 0;
+        while (prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix))) {
+            suffix++;
+        }
+        Script script = new Script();
+        script.copy(length(a.subList(0, prefix)));
+        diff(a.subList(prefix, a.size() - suffix), b.subList(prefix, b.size() - suffix), script);
+        script.copy(length(a.subList(a.size() - suffix, a.size())));
+        return script.toString();
+    }
+
+    static String apply(String base, String delta) {
+        StringBuilder out = new StringBuilder(base.length() + 64);
+        int position = 0;
+        int i = 0;
+        while (i < delta.length()) {
+            char op = delta.charAt(i++);
+            int start = i;
+            while (i < delta.length() && Character.isDigit(delta.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                throw new IllegalStateException("Corrupt report delta at offset " + (start - 1));
+            }
+            int n = Integer.parseInt(delta, start, i, 10);
+            switch (op) {
+                case '=':
+                    out.append(base, position, position + n);
+                    position += n;
+                    break;
+                case '-':
+                    position += n;
+                    break;
+                case '+':
+                    i++;
+                    out.append(delta, i, i + n);
+                    i += n;
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupt report delta at offset " + (start - 1));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Myers' shortest edit script over tokens: time grows with the input times the number of edits, and
+     * memory with the square of the number of edits only. Past {@code MAX_EDITS} edits the search stops
+     * and the middle is stored as a plain replacement.
+     */
+    private static void diff(List<String> a, List<String> b, Script script) {
+        int n = a.size();
+        int m = b.size();
+        int maxEdits = Math.min(n + m, MAX_EDITS);
+        int offset = maxEdits + 1;
+        // v[k + offset]: furthest x reached on diagonal k = x - y; trace[d] holds diagonals -d..d after d edits
+        int[] v = new int[2 * maxEdits + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= maxEdits; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[k - 1 + offset] < v[k + 1 + offset])
+                    ? v[k + 1 + offset]
+                    : v[k - 1 + offset] + 1;
+                int y = x - k;
+                while (x < n && y < m && a.get(x).equals(b.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[k + offset] = x;
+                if (x >= n && y >= m) {
+                    trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+                    emit(a, b, trace, script);
+                    return;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+        script.skip(length(a));
+        b.forEach(script::insert);
+    }
+
+    /** Walks the trace back from the end, then replays the edits front to back. */
+    private static void emit(List<String> a, List<String> b, List<int[]> trace, Script script) {
+        List<int[]> steps = new ArrayList<>();
+        int x = a.size();
+        int y = b.size();
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            boolean down = k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1]);
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = previous[previousK + d - 1];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                steps.add(new int[] {COPY, --x});
+                y--;
+            }
+            steps.add(down ? new int[] {INSERT, --y} : new int[] {SKIP, --x});
+        }
+        while (x > 0 && y > 0) {
+            steps.add(new int[] {COPY, --x});
+            y--;
+        }
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            int[] step = steps.get(i);
+            switch (step[0]) {
+                case COPY:
+                    script.copy(a.get(step[1]).length());
+                    break;
+                case SKIP:
+                    script.skip(a.get(step[1]).length());
+                    break;
+                default:
+                    script.insert(b.get(step[1]));
+            }
+        }
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    private static int length(List<String> tokens) {
+        int length = 0;
+        for (String token : tokens) {
+            length += token.length();
+        }
+        return length;
+    }
+
+    /** Builds the script, merging consecutive operations of the same kind. */
+    private static final class Script {
+
+        private final StringBuilder out = new StringBuilder();
+        private final StringBuilder inserted = new StringBuilder();
+        private char op;
+        private int count;
+
+        void copy(int n) {
+            add('=', n);
+        }
+
+        void skip(int n) {
+            add('-', n);
+        }
+
+        void insert(String text) {
+            add('+', text.length());
+            inserted.append(text);
+        }
+
+        private void add(char kind, int n) {
+            if (n == 0) {
+                return;
+            }
+            if (kind != op) {
+                flush();
+                op = kind;
+            }
+            count += n;
+        }
+
+        private void flush() {
+            if (count > 0) {
+                out.append(op).append(count);
+                if (op == '+') {
+                    out.append(':').append(inserted);
+                    inserted.setLength(0);
+                }
+                count = 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            flush();
+            return out.toString();
+        }
+    }
+}
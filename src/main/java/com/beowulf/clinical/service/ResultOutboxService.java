@@ -0,0 +1,245 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.ResultNotification;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.repository.ResultOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.ClientHttpRequestFactories;
+import org.springframework.boot.web.client.ClientHttpRequestFactorySettings;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transactional outbox for result notifications. Finalizing or amending a result writes one
+ * {@code result_outbox} row per configured destination in the same transaction, so a notification
+ * exists exactly when its result does. A scheduled dispatcher hands each destination to its own
+ * delivery thread, which posts the destination's pending rows in id order as a JSON array, one batch
+ * per request, and marks them delivered once the destination answers 2xx. A destination that is slow
+ * or down therefore only delays its own deliveries. A failed batch is retried with exponential backoff
+ * and holds back every later row of that destination, so a destination never sees a result before an
+ * earlier one of the same order.
+ * Delivery is at least once: a batch posted just before a crash is posted again.
+ */
+@Service
+public class ResultOutboxService {
+
+    static final String DELIVERED = "clinical.outbox.delivered";
+    static final String FAILURES = "clinical.outbox.failures";
+    static final String DELIVERY = "clinical.outbox.delivery";
+    static final String PENDING = "clinical.outbox.pending";
+    static final String LAG = "clinical.outbox.lag";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(ResultOutboxService.class);
+
+    private final ResultOutboxRepository outboxRepository;
+    private final RestClient restClient;
+    private final List<String> destinations;
+    private final Map<String, Destination> destinationMeters = new LinkedHashMap<>();
+    private final int batchSize;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final int retentionDays;
+
+    public ResultOutboxService(ResultOutboxRepository outboxRepository, RestClient.Builder restClientBuilder,
+                               MeterRegistry meterRegistry,
+                               @Value("${clinical.outbox.endpoints}") List<String> endpoints,
+                               @Value("${clinical.outbox.batch-size}") int batchSize,
+                               @Value("${clinical.outbox.timeout-ms}") long timeoutMs,
+                               @Value("${clinical.outbox.retry.initial-delay-ms}") long initialDelayMs,
+                               @Value("${clinical.outbox.retry.max-delay-ms}") long maxDelayMs,
+                               @Value("${clinical.outbox.retention-days}") int retentionDays) {
+        if (batchSize < 1 || initialDelayMs < 1 || maxDelayMs < initialDelayMs) {
+            throw new IllegalArgumentException(
+                "clinical.outbox.batch-size and retry.initial-delay-ms must be at least 1, retry.max-delay-ms at least initial-delay-ms");
+        }
+        this.outboxRepository = outboxRepository;
+        // The JDK client, because Apache HttpClient retries a 503 by itself, even for a POST, behind the outbox's backoff
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings.DEFAULTS
+            .withConnectTimeout(Duration.ofMillis(timeoutMs))
+            .withReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restClient = restClientBuilder
+            .requestFactory(ClientHttpRequestFactories.get(JdkClientHttpRequestFactory.class, settings))
+            .build();
+        this.destinations = endpoints.stream().map(String::trim).filter(endpoint -> !endpoint.isEmpty()).distinct().toList();
+        this.batchSize = batchSize;
+        this.initialDelay = Duration.ofMillis(initialDelayMs);
+        this.maxDelay = Duration.ofMillis(maxDelayMs);
+        this.retentionDays = retentionDays;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("result-outbox-");
+        threadFactory.setDaemon(true);
+        for (String destination : destinations) {
+            destinationMeters.put(destination, new Destination(meterRegistry, destination,
+                Executors.newSingleThreadExecutor(threadFactory)));
+        }
+    }
+
+    /** Queues a notification of each result for every destination; nothing is written when none are configured. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<OrderResult> results) {
+        if (!destinations.isEmpty() && !results.isEmpty()) {
+            outboxRepository.insert(destinations, results, LocalDateTime.now());
+        }
+    }
+
+    /** Starts a drain of every destination that is not still draining from an earlier poll. */
+    @Scheduled(fixedDelayString = "${clinical.outbox.poll-interval-ms}")
+    public void dispatch() {
+        for (Destination destination : destinationMeters.values()) {
+            if (!destination.draining.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                destination.worker.execute(() -> {
+                    try {
+                        drain(destination);
+                    } catch (DataAccessException e) {
+                        log.warn("Reading the result outbox for {} failed", destination.tag, e);
+                    } finally {
+                        destination.draining.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the rows stay pending for the next start
+                destination.draining.set(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        destinationMeters.values().forEach(destination -> destination.worker.shutdownNow());
+    }
+
+    @Scheduled(cron = "${clinical.outbox.purge-cron}")
+    public void purgeDelivered() {
+        int purged = outboxRepository.deleteDeliveredBefore(LocalDateTime.now().minusDays(retentionDays));
+        log.debug("Purged {} delivered result notifications", purged);
+    }
+
+    /** Posts full batches until the destination is drained, fails, or its next retry is not due yet. */
+    private void drain(Destination destination) {
+        while (true) {
+            List<ResultOutboxRepository.Row> rows = outboxRepository.findPending(destination.url, batchSize);
+            if (rows.isEmpty()) {
+                destination.oldestPending = null;
+                break;
+            }
+            ResultOutboxRepository.Row head = rows.get(0);
+            destination.oldestPending = head.getCreatedAt();
+            if (head.getNextAttemptAt().isAfter(LocalDateTime.now())) {
+                break;
+            }
+            List<ResultNotification> notifications = rows.stream().map(ResultOutboxRepository.Row::getNotification).toList();
+            List<Long> ids = notifications.stream().map(ResultNotification::getId).toList();
+            try {
+                destination.delivery.record(() -> restClient.post()
+                    .uri(destination.url)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(notifications)
+                    .retrieve()
+                    .toBodilessEntity());
+            } catch (RestClientException e) {
+                int attempts = head.getAttempts() + 1;
+                LocalDateTime retryAt = LocalDateTime.now().plus(backoff(attempts));
+                outboxRepository.markFailed(ids, retryAt, truncate(e.getMessage()));
+                destination.failures.increment();
+                log.warn("Delivering {} result notifications to {} failed (attempt {}), retrying at {}: {}",
+                    ids.size(), destination.tag, attempts, retryAt, e.getMessage());
+                break;
+            }
+            outboxRepository.markDelivered(ids, LocalDateTime.now());
+            destination.delivered.increment(ids.size());
+            if (rows.size() < batchSize) {
+                destination.oldestPending = null;
+                break;
+            }
+        }
+        destination.pending = outboxRepository.countPending(destination.url);
+    }
+
+    /** {@code initial-delay} doubled per failed attempt after the first, capped at {@code max-delay}. */
+    Duration backoff(int attempts) {
+        Duration delay = initialDelay;
+        for (int i = 1; i < attempts && delay.compareTo(maxDelay) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(maxDelay) < 0 ? delay : maxDelay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /** Meters are tagged with the endpoint without its query string or credentials. */
+    private static final class Destination {
+
+        final String url;
+        final String tag;
+        final ExecutorService worker;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final Counter delivered;
+        final Counter failures;
+        final Timer delivery;
+        volatile long pending;
+        volatile LocalDateTime oldestPending;
+
+        Destination(MeterRegistry registry, String url, ExecutorService worker) {
+            URI uri = URI.create(url);
+            this.url = url;
+            this.worker = worker;
+            this.tag = uri.getScheme() + "://" + uri.getHost() + (uri.getPort() != -1 ? ":" + uri.getPort() : "")
+                + (uri.getPath() != null ? uri.getPath() : "");
+            this.delivered = Counter.builder(DELIVERED).tag("destination", tag)
+                .description("Result notifications acknowledged by the destination")
+                .register(registry);
+            this.failures = Counter.builder(FAILURES).tag("destination", tag)
+                .description("Failed result notification deliveries; each is retried with backoff")
+                .register(registry);
+            this.delivery = Timer.builder(DELIVERY).tag("destination", tag)
+                .description("Posting one batch of result notifications")
+                .publishPercentileHistogram()
+                .register(registry);
+            Gauge.builder(PENDING, this, destination -> destination.pending).tag("destination", tag)
+                .description("Undelivered result notifications, as of the last dispatch")
+                .register(registry);
+            Gauge.builder(LAG, this, Destination::lagSeconds).tag("destination", tag)
+                .description("Age of the oldest undelivered result notification")
+                .baseUnit("seconds")
+                .register(registry);
+        }
+
+        double lagSeconds() {
+            LocalDateTime oldest = oldestPending;
+            return oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.config.CacheConfig;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.enums.ReportEncoding;
+import com.beowulf.clinical.repository.OrderResultVersionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in delta storage of superseded report versions ({@code clinical.results.delta.enabled}). When a
+ * version is superseded its text is replaced by an edit script against its successor, unless its version
+ * number is a multiple of {@code snapshot-interval}; the current version is always stored in full. Reading
+ * a DELTA version walks forward to the nearest full text and caches every text rebuilt on the way, keyed
+ * by result id, which is safe because a superseded version never changes again.
+ */
+@Service
+public class ResultReportStore {
+
+    private final OrderResultVersionRepository versionRepository;
+    private final Cache rebuiltReports;
+    private final boolean enabled;
+    private final int snapshotInterval;
+
+    public ResultReportStore(OrderResultVersionRepository versionRepository, CacheManager cacheManager,
+                             @Value("${clinical.results.delta.enabled}") boolean enabled,
+                             @Value("${clinical.results.delta.snapshot-interval}") int snapshotInterval) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("clinical.results.delta.snapshot-interval must be at least 1");
+        }
+        this.versionRepository = versionRepository;
+        this.rebuiltReports = cacheManager.getCache(CacheConfig.RESULT_REPORTS);
+        this.enabled = enabled;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Returns what to store for the current result {@code previousResultId} once {@code nextReport}
+     * supersedes it: an edit script, or null to keep the full text.
+     */
+    public String supersededForm(Long previousResultId, String nextReport) {
+        if (!enabled || previousResultId == null) {
+            return null;
+        }
+        OrderResultVersionRepository.Stored previous = versionRepository.findStored(previousResultId);
+        if (previous.getEncoding() != ReportEncoding.FULL || previous.getVersion() % snapshotInterval == 0) {
+            return null;
+        }
+        rebuiltReports.put(previous.getId(), previous.getReport());
+        String delta = ReportDelta.encode(nextReport, previous.getReport());
+        return delta.length() < previous.getReport().length() ? delta : null;
+    }
+
+    /** Fills in the report text of the DELTA rows among {@code results}, which may span several orders. */
+    public void resolve(List<OrderResult> results) {
+        Map<Long, String> known = new HashMap<>();
+        for (OrderResult result : results) {
+            if (result.getReport() != null) {
+                known.put(result.getId(), result.getReport());
+            }
+        }
+        List<OrderResult> pending = results.stream()
+            .filter(result -> result.getReport() == null)
+            .sorted(Comparator.comparing(OrderResult::getVersion).reversed())
+            .toList();
+        for (OrderResult result : pending) {
+            String text = rebuiltReports.get(result.getId(), String.class);
+            if (text == null) {
+                String successor = known.get(result.getSupersededById());
+                if (successor == null) {
+                    successor = rebuiltReports.get(result.getSupersededById(), String.class);
+                }
+                if (successor == null) {
+                    successor = rebuildSuccessor(result);
+                }
+                text = ReportDelta.apply(successor, result.getStoredReport());
+                rebuiltReports.put(result.getId(), text);
+            }
+            result.setReport(text);
+            known.put(result.getId(), text);
+        }
+    }
+
+    private String rebuildSuccessor(OrderResult result) {
+        String text = null;
+        for (OrderResultVersionRepository.Stored stored : versionRepository.findChainAfter(result.getOrderId(), result.getVersion())) {
+            text = stored.getEncoding() == ReportEncoding.FULL ? stored.getReport() : ReportDelta.apply(text, stored.getReport());
+            rebuiltReports.put(stored.getId(), text);
+        }
+        return text;
+    }
+}
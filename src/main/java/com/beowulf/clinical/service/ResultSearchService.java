@@ -0,0 +1,170 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.dto.ResultSearchHit;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.repository.OrderResultRepository;
+import com.beowulf.clinical.repository.ResultSearchRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Full-text search over signed reports. Each result is indexed in the transaction that writes it; results
+ * that predate the index, or were inserted behind the application's back, are indexed in batches at
+ * startup. A search returns the results containing every query term, ranked by how often those terms
+ * occur. A multi-term search is driven by its rarest term, found by counting each term's postings up to
+ * a cap. The next-page cursor packs the last hit's score and id into one number.
+ */
+@Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
+public class ResultSearchService {
+
+    static final int MAX_QUERY_TERMS = 10;
+    static final int MAX_TERM_LENGTH = 64;
+    private static final int BACKFILL_BATCH = 500;
+    private static final int DRIVING_TERM_COUNT_CAP = 1000;
+    private static final int CURSOR_ID_BITS = 40;
+    private static final long CURSOR_ID_MASK = (1L << CURSOR_ID_BITS) - 1;
+
+    private static final Logger log = LoggerFactory.getLogger(ResultSearchService.class);
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Negations ("no", "not", "without") are kept: "no pericardial effusion" is a finding
+    private static final Set<String> STOP_WORDS = Set.of(
+        "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+        "the", "this", "to", "was", "were", "with");
+
+    private final ResultSearchRepository searchRepository;
+    private final OrderResultRepository orderResultRepository;
+    private final ResultReportStore resultReportStore;
+    private final TransactionTemplate transactionTemplate;
+
+    public ResultSearchService(ResultSearchRepository searchRepository, OrderResultRepository orderResultRepository,
+                               ResultReportStore resultReportStore, PlatformTransactionManager transactionManager) {
+        this.searchRepository = searchRepository;
+        this.orderResultRepository = orderResultRepository;
+        this.resultReportStore = resultReportStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Adds newly written results to the index; call it in the transaction that writes the results. */
+    public void index(List<OrderResult> results) {
+        searchRepository.insert(results.stream()
+            .map(result -> new ResultSearchRepository.Document(result.getId(), result.getOrderId(), result.getSignedOn(),
+                terms(result.getReport())))
+            .toList());
+    }
+
+    public CursorPage<ResultSearchHit> search(String q, String type, String from, String to, boolean currentOnly,
+                                              Long after, Integer limit) {
+        List<String> terms = new ArrayList<>(terms(q != null ? q : "").keySet());
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query must contain at least one searchable word");
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            throw new IllegalArgumentException("Query can contain at most " + MAX_QUERY_TERMS + " distinct words");
+        }
+        OrderType orderType = type != null ? OrderService.parseOrderType(type) : null;
+        LocalDateTime start = from != null ? VolumeRollupService.parseTime(from, "from") : null;
+        LocalDateTime end = to != null ? VolumeRollupService.parseTime(to, "to") : null;
+        if (start != null && end != null && !end.isAfter(start)) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        int pageSize = CursorPage.resolveLimit(limit);
+        long cursor = CursorPage.resolveAfter(after);
+        int afterScore = cursor > 0 ? (int) (cursor >>> CURSOR_ID_BITS) : Integer.MAX_VALUE;
+        long afterId = cursor > 0 ? cursor & CURSOR_ID_MASK : Long.MAX_VALUE;
+        if (terms.size() > 1) {
+            Map<String, Integer> postings = new HashMap<>();
+            terms.forEach(term -> postings.put(term, searchRepository.countPostings(term, DRIVING_TERM_COUNT_CAP)));
+            terms.sort(Comparator.comparing(postings::get));
+        }
+        List<ResultSearchHit> rows = searchRepository.search(
+            terms, orderType, start, end, currentOnly, afterScore, afterId, pageSize + 1);
+        return CursorPage.of(rows, pageSize, hit -> (long) hit.getScore() << CURSOR_ID_BITS | hit.getResultId());
+    }
+
+    /**
+     * Indexes results that have no index entry yet, in batches in ascending id order. If a batch violates a
+     * constraint, its results are indexed one at a time. A result that still fails is logged and skipped, so
+     * the backfill always finishes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexUnindexedResults() {
+        if (!searchRepository.hasUnindexedResults()) {
+            return;
+        }
+        int total = 0;
+        long afterId = 0;
+        List<Long> batch;
+        while (!(batch = searchRepository.findUnindexedResultIds(afterId, BACKFILL_BATCH)).isEmpty()) {
+            List<Long> ids = batch;
+            try {
+                total += transactionTemplate.execute(status -> indexBatch(ids));
+            } catch (DataIntegrityViolationException e) {
+                total += indexIndividually(afterId, ids.get(ids.size() - 1));
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (total > 0) {
+            log.info("Indexed {} results for report search", total);
+        }
+    }
+
+    private int indexIndividually(long afterId, long upToId) {
+        int indexed = 0;
+        List<Long> skipped = new ArrayList<>();
+        // Results committed during the failed batch were indexed by their own transactions and are not listed again
+        for (Long id : searchRepository.findUnindexedResultIds(afterId, BACKFILL_BATCH)) {
+            if (id > upToId) {
+                break;
+            }
+            try {
+                indexed += transactionTemplate.execute(status -> indexBatch(List.of(id)));
+            } catch (DataIntegrityViolationException e) {
+                skipped.add(id);
+            }
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Results {} could not be indexed for report search and were skipped", skipped);
+        }
+        return indexed;
+    }
+
+    private int indexBatch(List<Long> ids) {
+        List<OrderResult> results = orderResultRepository.findAllById(ids);
+        resultReportStore.resolve(results);
+        index(results);
+        return results.size();
+    }
+
+    /** Lower-cased words of {@code text} with their number of occurrences, in order of first occurrence. */
+    static Map<String, Integer> terms(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.length() < 2 || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            String term = token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token;
+            terms.merge(term, 1, Integer::sum);
+        }
+        return terms;
+    }
+}
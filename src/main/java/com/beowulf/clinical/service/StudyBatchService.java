@@ -0,0 +1,191 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.BatchStudyItemResult;
+import com.beowulf.clinical.dto.BatchStudyUpdateRequest;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.exception.BusinessRuleException;
+import com.beowulf.clinical.exception.ConflictException;
+import com.beowulf.clinical.exception.ResourceNotFoundException;
+import com.beowulf.clinical.repository.StudyRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies many study updates, such as a radiologist signing a run of normal studies, with one transaction
+ * per chunk instead of one per study. A chunk's studies are loaded in one query and each item goes through
+ * the same state machine as {@link StudyService#updateStudy}; the results the chunk signs, amendments
+ * included, and their search index and outbox rows are written in JDBC batches. A stale version, a
+ * missing study or a rejected transition only settles that item. If another writer gets in between, or the database rejects one of the chunk's rows, the chunk is
+ * rolled back and its items are retried one by one.
+ */
+@Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
+public class StudyBatchService {
+
+    public static final int MAX_BATCH_SIZE = 1_000;
+    static final String BATCH_URI = "/api/studies/batch";
+
+    private final StudyRepository studyRepository;
+    private final StudyService studyService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final WorkflowMetrics workflowMetrics;
+    private final int chunkSize;
+
+    public StudyBatchService(StudyRepository studyRepository, StudyService studyService,
+                             PlatformTransactionManager transactionManager, Validator validator,
+                             WorkflowMetrics workflowMetrics,
+                             @Value("${clinical.studies.batch.chunk-size:100}") int chunkSize) {
+        this.studyRepository = studyRepository;
+        this.studyService = studyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.workflowMetrics = workflowMetrics;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BatchStudyItemResult> updateStudies(List<BatchStudyUpdateRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch may contain at most " + MAX_BATCH_SIZE + " studies");
+        }
+        BatchStudyItemResult[] results = new BatchStudyItemResult[requests.size()];
+        List<PendingUpdate> pending = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BatchStudyUpdateRequest request = requests.get(i);
+            try {
+                validate(request);
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchStudyItemResult.invalid(i, request != null ? request.getId() : null, e.getMessage());
+                continue;
+            }
+            if (!ids.add(request.getId())) {
+                results[i] = BatchStudyItemResult.invalid(i, request.getId(), "Study appears more than once in the batch");
+                continue;
+            }
+            pending.add(new PendingUpdate(i, request));
+        }
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<PendingUpdate> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> updateChunk(chunk, results));
+            } catch (ConflictException | OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Another writer changed one of the chunk's studies after it was loaded, or the database rejected
+                // one of its rows; settle each item on its own to find which
+                updateIndividually(chunk, results);
+                continue;
+            }
+            // Read after commit, once the flush has raised the versions
+            for (PendingUpdate update : chunk) {
+                if (update.study != null) {
+                    results[update.index] = BatchStudyItemResult.updated(update.index, update.study);
+                } else if (update.rejection != null) {
+                    countRejection(update.rejection);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void validate(BatchStudyUpdateRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Study update must not be null");
+        }
+        Set<ConstraintViolation<BatchStudyUpdateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+    }
+
+    private void updateChunk(List<PendingUpdate> chunk, BatchStudyItemResult[] results) {
+        List<Long> ids = chunk.stream().map(update -> update.request.getId()).toList();
+        Map<Long, Study> studies = new HashMap<>();
+        for (Study study : studyRepository.findAllById(ids)) {
+            studies.put(study.getId(), study);
+        }
+
+        StudyService.PendingResults pending = new StudyService.PendingResults();
+        for (PendingUpdate update : chunk) {
+            update.study = null;
+            update.rejection = null;
+            Long id = update.request.getId();
+            Study study = studies.get(id);
+            if (study == null) {
+                results[update.index] = BatchStudyItemResult.notFound(update.index, id, "Study not found with id: " + id);
+                continue;
+            }
+            try {
+                StudyService.checkVersion(study, update.request.getVersion());
+            } catch (ConflictException e) {
+                results[update.index] = BatchStudyItemResult.conflict(update.index, id, e.getMessage());
+                update.rejection = e;
+                continue;
+            }
+            try {
+                update.study = studyService.applyUpdate(study, update.request, pending);
+            } catch (BusinessRuleException | IllegalArgumentException e) {
+                results[update.index] = BatchStudyItemResult.invalid(update.index, id, e.getMessage());
+                update.rejection = e;
+            }
+        }
+        studyService.writeResults(pending);
+    }
+
+    private void updateIndividually(List<PendingUpdate> chunk, BatchStudyItemResult[] results) {
+        for (PendingUpdate update : chunk) {
+            Long id = update.request.getId();
+            try {
+                results[update.index] = BatchStudyItemResult.updated(update.index, studyService.updateStudy(id, update.request));
+            } catch (ResourceNotFoundException e) {
+                results[update.index] = BatchStudyItemResult.notFound(update.index, id, e.getMessage());
+            } catch (ConflictException | OptimisticLockingFailureException | DuplicateKeyException e) {
+                results[update.index] = BatchStudyItemResult.conflict(update.index, id, e.getMessage());
+                countRejection(e);
+            } catch (BusinessRuleException | IllegalArgumentException e) {
+                results[update.index] = BatchStudyItemResult.invalid(update.index, id, e.getMessage());
+                countRejection(e);
+            } catch (DataIntegrityViolationException e) {
+                results[update.index] = BatchStudyItemResult.invalid(update.index, id,
+                    "Study update was rejected by the database");
+            }
+        }
+    }
+
+    /** Counts a rejected item as {@code GlobalExceptionHandler} counts the same rejection of a single update. */
+    private void countRejection(RuntimeException rejection) {
+        if (rejection instanceof BusinessRuleException) {
+            workflowMetrics.businessRuleRejection(BATCH_URI);
+        } else if (!(rejection instanceof IllegalArgumentException)) {
+            workflowMetrics.conflict(BATCH_URI, rejection.getClass());
+        }
+    }
+
+    private static class PendingUpdate {
+        private final int index;
+        private final BatchStudyUpdateRequest request;
+        private Study study;
+        // Counted only once the chunk commits, since a rolled-back chunk settles the item again
+        private RuntimeException rejection;
+
+        PendingUpdate(int index, BatchStudyUpdateRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.StudyEvent;
+import com.beowulf.clinical.enums.StudyEventType;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.event.OrderCreatedEvent;
+import com.beowulf.clinical.event.StudyTransitionEvent;
+import com.beowulf.clinical.repository.OrderRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes committed study changes to Server-Sent Event subscribers. Every change is numbered and kept
+ * in a fixed-size ring so a reconnecting client can resume after the last event it saw. Publishing
+ * never waits for a client: each subscriber has a bounded queue drained by a small sender pool, and a
+ * subscriber whose queue is full is disconnected; its browser reconnects and resumes from the ring,
+ * or is told to reload if it fell out of it.
+ */
+@Service
+public class StudyEventBroadcaster implements MeterBinder {
+
+    static final String STUDY_EVENT = "study";
+    static final String RESET_EVENT = "reset";
+
+    private final OrderRepository orderRepository;
+    private final StudyEvent[] ring;
+    private final int queueCapacity;
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeats;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    // Ids continue from the startup time, so an id handed out before a restart is never resumed from
+    private final long firstId = System.currentTimeMillis() * 1000 + 1;
+    private long lastId = firstId - 1;
+
+    public StudyEventBroadcaster(OrderRepository orderRepository,
+                                 @Value("${clinical.studies.events.buffer-size}") int bufferSize,
+                                 @Value("${clinical.studies.events.subscriber-queue}") int queueCapacity,
+                                 @Value("${clinical.studies.events.sender-threads}") int senderThreads,
+                                 @Value("${clinical.studies.events.heartbeat-ms}") long heartbeatMs) {
+        if (bufferSize < 1 || queueCapacity < 1 || senderThreads < 1 || heartbeatMs < 1) {
+            throw new IllegalArgumentException(
+                "clinical.studies.events buffer-size, subscriber-queue, sender-threads and heartbeat-ms must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.ring = new StudyEvent[bufferSize];
+        this.queueCapacity = queueCapacity;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("study-events-");
+        threadFactory.setDaemon(true);
+        this.sender = Executors.newFixedThreadPool(senderThreads, threadFactory);
+        // Its own timer rather than @Scheduled, so that no scheduled job can delay it
+        CustomizableThreadFactory heartbeatFactory = new CustomizableThreadFactory("study-events-heartbeat-");
+        heartbeatFactory.setDaemon(true);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(heartbeatFactory);
+        this.heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        publish(StudyEventType.CREATED, event.getStudyId(), event.getOrderId(), event.getPatientId(), StudyStatus.ORDERED,
+            event.getCreateDate());
+    }
+
+    @TransactionalEventListener
+    public void onStudyTransition(StudyTransitionEvent event) {
+        StudyEventType type;
+        if (event.getToStatus() == null) {
+            type = StudyEventType.DELETED;
+        } else if (event.getFromStatus() == StudyStatus.ORDERED && event.getToStatus() == StudyStatus.ORDERED) {
+            // Only a draft edit keeps the status; AMENDED to AMENDED is a further amendment
+            type = StudyEventType.REPORT_UPDATED;
+        } else {
+            type = StudyEventType.valueOf(event.getToStatus().name());
+        }
+        publish(type, event.getStudyId(), event.getOrderId(), null, event.getToStatus(), event.getOccurredAt());
+    }
+
+    /**
+     * Subscribes to changes of one order, of one patient's orders, or of all studies when both are null.
+     * With {@code lastEventId} the events after it are replayed first; if they are no longer buffered,
+     * or were numbered before a restart, the stream starts with a {@code reset} event instead.
+     */
+    public SseEmitter subscribe(Long orderId, Long patientId, String lastEventId) {
+        Long resumeAfter = parseEventId(lastEventId);
+        Set<Long> patientOrderIds = null;
+        long loadedUpTo = 0;
+        if (patientId != null) {
+            synchronized (this) {
+                loadedUpTo = lastId;
+            }
+            patientOrderIds = new HashSet<>(orderRepository.findIdsByPatientId(patientId));
+        }
+
+        // No timeout: the heartbeat notices dead clients, and a closed stream would only make the browser reconnect
+        Subscriber subscriber = new Subscriber(orderId, patientId, patientOrderIds, new SseEmitter(-1L));
+        synchronized (this) {
+            long oldest = Math.max(firstId, lastId - ring.length + 1);
+            if (patientId != null) {
+                // Orders created while the patient's orders were being read
+                for (long id = Math.max(loadedUpTo + 1, oldest); id <= lastId; id++) {
+                    subscriber.learn(ring[slot(id)]);
+                }
+            }
+            if (resumeAfter != null) {
+                if (resumeAfter < oldest - 1 || resumeAfter > lastId) {
+                    subscriber.reset = true;
+                } else {
+                    for (long id = resumeAfter + 1; id <= lastId; id++) {
+                        StudyEvent event = ring[slot(id)];
+                        if (subscriber.accepts(event) && !subscriber.queue.offer(event)) {
+                            subscriber.queue.clear();
+                            subscriber.reset = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onError(e -> subscriber.close());
+        subscriber.signal();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Sends a comment to every subscriber so that proxies keep the connection open and dead clients are noticed.
+     * It only queues the sends, so a slow client never holds up the heartbeat of the others.
+     */
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            subscriber.signal();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("clinical.studies.events.subscribers", subscribers, List::size)
+            .description("Open study event streams")
+            .register(registry);
+        FunctionCounter.builder("clinical.studies.events.dropped", dropped, AtomicLong::get)
+            .description("Study event streams closed because the client did not keep up")
+            .register(registry);
+    }
+
+    private synchronized void publish(StudyEventType type, Long studyId, Long orderId, Long patientId, StudyStatus status,
+                                      LocalDateTime occurredAt) {
+        StudyEvent event = new StudyEvent(++lastId, type, studyId, orderId, patientId, status, occurredAt);
+        ring[slot(event.getId())] = event;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(event)) {
+                if (subscriber.queue.offer(event)) {
+                    subscriber.signal();
+                } else {
+                    subscribers.remove(subscriber);
+                    dropped.incrementAndGet();
+                    subscriber.dropped = true;
+                    subscriber.signal();
+                }
+            }
+        }
+    }
+
+    private int slot(long id) {
+        return (int) (id % ring.length);
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Last-Event-ID: " + lastEventId);
+        }
+    }
+
+    /**
+     * Sends run on the sender pool, at most one at a time per subscriber. They hold the subscriber's lock,
+     * and so does the container when it completes the stream, so that a send never writes to a response
+     * the container has already recycled for another request.
+     */
+    private final class Subscriber implements Runnable {
+
+        final Long orderId;
+        final Long patientId;
+        final Set<Long> patientOrderIds;
+        final SseEmitter emitter;
+        final BlockingQueue<StudyEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean reset;
+        // The first send commits the response headers, so the client sees the stream open right away
+        volatile boolean heartbeat = true;
+        volatile boolean dropped;
+        boolean closed;
+
+        Subscriber(Long orderId, Long patientId, Set<Long> patientOrderIds, SseEmitter emitter) {
+            this.orderId = orderId;
+            this.patientId = patientId;
+            this.patientOrderIds = patientOrderIds;
+            this.emitter = emitter;
+        }
+
+        /** Called with the broadcaster's lock held. */
+        boolean accepts(StudyEvent event) {
+            learn(event);
+            return (orderId == null || orderId.equals(event.getOrderId()))
+                && (patientOrderIds == null || patientOrderIds.contains(event.getOrderId()));
+        }
+
+        void learn(StudyEvent event) {
+            if (patientOrderIds != null && event.getType() == StudyEventType.CREATED
+                    && patientId.equals(event.getPatientId())) {
+                patientOrderIds.add(event.getOrderId());
+            }
+        }
+
+        void signal() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the container closes the stream
+                }
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        @Override
+        public synchronized void run() {
+            try {
+                if (closed) {
+                    return;
+                }
+                if (dropped) {
+                    closed = true;
+                    emitter.complete();
+                    return;
+                }
+                if (reset) {
+                    reset = false;
+                    emitter.send(SseEmitter.event().name(RESET_EVENT).data(""));
+                }
+                StudyEvent event;
+                while (!dropped && (event = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event().id(Long.toString(event.getId())).name(STUDY_EVENT)
+                        .data(event, MediaType.APPLICATION_JSON));
+                }
+                if (heartbeat) {
+                    heartbeat = false;
+                    emitter.send(SseEmitter.event().comment(""));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter
+                close();
+            } finally {
+                scheduled.set(false);
+                if (!closed && (dropped || reset || heartbeat || !queue.isEmpty())) {
+                    signal();
+                }
+            }
+        }
+    }
+}
@@ -5,47 +5,97 @@ import com.beowulf.clinical.entity.OrderResult;
 import com.beowulf.clinical.entity.Study;
 import com.beowulf.clinical.enums.ResultStatus;
 import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.event.StudyTransitionEvent;
 import com.beowulf.clinical.exception.BusinessRuleException;
 import com.beowulf.clinical.exception.ConflictException;
 import com.beowulf.clinical.exception.ResourceNotFoundException;
 import com.beowulf.clinical.repository.OrderResultRepository;
+import com.beowulf.clinical.repository.OrderResultVersionRepository;
 import com.beowulf.clinical.repository.StudyRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.LinkedHashMap;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
 public class StudyService {
 
     private final StudyRepository studyRepository;
     private final OrderResultRepository orderResultRepository;
-
-    public StudyService(StudyRepository studyRepository, OrderResultRepository orderResultRepository) {
+    private final OrderResultVersionRepository orderResultVersionRepository;
+    private final ResultReportStore resultReportStore;
+    private final ResultSearchService resultSearchService;
+    private final ResultOutboxService resultOutboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WorkflowMetrics workflowMetrics;
+
+    public StudyService(StudyRepository studyRepository, OrderResultRepository orderResultRepository,
+                        OrderResultVersionRepository orderResultVersionRepository, ResultReportStore resultReportStore,
+                        ResultSearchService resultSearchService, ResultOutboxService resultOutboxService,
+                        ApplicationEventPublisher eventPublisher, WorkflowMetrics workflowMetrics) {
         this.studyRepository = studyRepository;
         this.orderResultRepository = orderResultRepository;
+        this.orderResultVersionRepository = orderResultVersionRepository;
+        this.resultReportStore = resultReportStore;
+        this.resultSearchService = resultSearchService;
+        this.resultOutboxService = resultOutboxService;
+        this.eventPublisher = eventPublisher;
+        this.workflowMetrics = workflowMetrics;
     }
 
+    @Transactional(readOnly = true)
     public Study getStudyById(Long id) {
         return studyRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Study not found with id: " + id));
     }
 
+    @Transactional(readOnly = true)
     public Study getStudyByOrderId(Long orderId) {
         return studyRepository.findByOrderId(orderId)
             .orElseThrow(() -> new ResourceNotFoundException("Study not found for order id: " + orderId));
     }
 
+    @Transactional(readOnly = true)
+    public Long getStudyVersion(Long id) {
+        return studyRepository.findVersionById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Study not found with id: " + id));
+    }
+
+    @Transactional(readOnly = true)
+    public Long getStudyVersionByOrderId(Long orderId) {
+        return studyRepository.findVersionByOrderId(orderId)
+            .orElseThrow(() -> new ResourceNotFoundException("Study not found for order id: " + orderId));
+    }
+
     @Transactional
     public Study updateStudy(Long id, StudyUpdateRequest request) {
         Study study = getStudyById(id);
+        checkVersion(study, request.getVersion());
+        PendingResults pending = new PendingResults();
+        Study updated = applyUpdate(study, request, pending);
+        writeResults(pending);
+        return updated;
+    }
 
-        if (!study.getVersion().equals(request.getVersion())) {
+    static void checkVersion(Study study, Long version) {
+        if (!study.getVersion().equals(version)) {
             throw new ConflictException("Study was modified by another user. Please refresh and try again.");
         }
+    }
 
+    /**
+     * Applies the status change or report text of {@code request} to a study loaded in the caller's
+     * transaction whose version has been checked. A change the state machine does not allow is rejected
+     * with {@link BusinessRuleException} or {@link IllegalArgumentException} before the study is touched,
+     * so the transaction can go on with other studies. The results it signs are added to {@code pending},
+     * which the caller passes to {@link #writeResults} before the transaction commits.
+     */
+    Study applyUpdate(Study study, StudyUpdateRequest request, PendingResults pending) {
         if (request.getStatus() != null) {
             StudyStatus newStatus;
             try {
@@ -56,9 +106,9 @@ public class StudyService {
 
             switch (newStatus) {
                 case FINALIZED:
-                    return finalizeStudy(study, request.getReportText());
+                    return finalizeStudy(study, request.getReportText(), pending);
                 case AMENDED:
-                    return amendStudy(study, request.getReportText());
+                    return amendStudy(study, request.getReportText(), pending);
                 case CANCELED:
                     return cancelStudy(study);
                 case ORDERED:
@@ -71,25 +121,26 @@ public class StudyService {
                 throw new BusinessRuleException("Can only update report text when study status is ORDERED");
             }
             study.setReportText(request.getReportText());
+            publishTransition(study, StudyStatus.ORDERED, StudyStatus.ORDERED);
         }
 
         return studyRepository.save(study);
     }
 
-    private Study finalizeStudy(Study study, String reportText) {
+    private Study finalizeStudy(Study study, String reportText, PendingResults pending) {
         if (study.getStatus() != StudyStatus.ORDERED) {
             throw new BusinessRuleException("Can only finalize studies with status ORDERED. Current status: " + study.getStatus());
         }
 
-        if (reportText != null) {
-            study.setReportText(reportText);
-        }
-
-        if (study.getReportText() == null || study.getReportText().isBlank()) {
+        String finalText = reportText != null ? reportText : study.getReportText();
+        if (finalText == null || finalText.isBlank()) {
             throw new BusinessRuleException("Cannot finalize study without report text");
         }
+        study.setReportText(finalText);
 
+        LocalDateTime signedOn = LocalDateTime.now();
         study.setStatus(StudyStatus.FINALIZED);
+        publishTransition(study, StudyStatus.ORDERED, StudyStatus.FINALIZED, signedOn);
 
         OrderResult result = new OrderResult();
         result.setOrderId(study.getOrderId());
@@ -97,15 +148,16 @@ public class StudyService {
         result.setReport(study.getReportText());
         result.setResultType("DIAGNOSTIC_REPORT");
         result.setStatus(ResultStatus.FINALIZED);
-        result.setSignedOn(LocalDateTime.now());
+        result.setSignedOn(signedOn);
         result.setIsCurrent(true);
         result.setSupersededById(null);
-        orderResultRepository.save(result);
+        study.setCurrentResultId(orderResultRepository.save(result).getId());
+        pending.results.add(result);
 
         return studyRepository.save(study);
     }
 
-    private Study amendStudy(Study study, String reportText) {
+    private Study amendStudy(Study study, String reportText, PendingResults pending) {
         if (study.getStatus() != StudyStatus.FINALIZED && study.getStatus() != StudyStatus.AMENDED) {
             throw new BusinessRuleException("Can only amend studies with status FINALIZED or AMENDED. Current status: " + study.getStatus());
         }
@@ -114,36 +166,24 @@ public class StudyService {
             throw new BusinessRuleException("Report text is required for amendment");
         }
 
+        StudyStatus previousStatus = study.getStatus();
         study.setReportText(reportText);
+        LocalDateTime signedOn = LocalDateTime.now();
         study.setStatus(StudyStatus.AMENDED);
+        publishTransition(study, previousStatus, StudyStatus.AMENDED, signedOn);
 
-        Optional<OrderResult> currentResult = orderResultRepository.findByOrderIdAndIsCurrentTrue(study.getOrderId());
-        int newVersion = currentResult.map(r -> r.getVersion() + 1).orElse(1);
-
-        if (currentResult.isPresent()) {
-            OrderResult prev = currentResult.get();
-            prev.setIsCurrent(false);
-            orderResultRepository.save(prev);
-            orderResultRepository.flush();
-        }
-
-        OrderResult newResult = new OrderResult();
-        newResult.setOrderId(study.getOrderId());
-        newResult.setVersion(newVersion);
-        newResult.setReport(reportText);
-        newResult.setResultType("DIAGNOSTIC_REPORT");
-        newResult.setStatus(ResultStatus.AMENDED);
-        newResult.setSignedOn(LocalDateTime.now());
-        newResult.setIsCurrent(true);
-        newResult.setSupersededById(null);
-        OrderResult savedNewResult = orderResultRepository.save(newResult);
-
-        if (currentResult.isPresent()) {
-            OrderResult prev = currentResult.get();
-            prev.setSupersededById(savedNewResult.getId());
-            orderResultRepository.save(prev);
-        }
-
+        OrderResult result = new OrderResult();
+        result.setOrderId(study.getOrderId());
+        result.setReport(reportText);
+        result.setResultType("DIAGNOSTIC_REPORT");
+        result.setStatus(ResultStatus.AMENDED);
+        result.setSignedOn(signedOn);
+        Long previousResultId = study.getCurrentResultId();
+        pending.amendments.add(orderResultVersionRepository.prepare(result, previousResultId,
+            resultReportStore.supersededForm(previousResultId, reportText)));
+        pending.results.add(result);
+        // The row is inserted by writeResults, before the flush that writes this reference
+        study.setCurrentResultId(result.getId());
         return studyRepository.save(study);
     }
 
@@ -152,9 +192,27 @@ public class StudyService {
             throw new BusinessRuleException("Can only cancel studies with status ORDERED. Current status: " + study.getStatus());
         }
         study.setStatus(StudyStatus.CANCELED);
+        publishTransition(study, StudyStatus.ORDERED, StudyStatus.CANCELED);
         return studyRepository.save(study);
     }
 
+    /**
+     * Writes the amended result versions, search index entries and outbox rows of {@code pending}, each kind
+     * in one batch however many studies it covers.
+     */
+    void writeResults(PendingResults pending) {
+        if (!pending.amendments.isEmpty()) {
+            try {
+                workflowMetrics.amendSupersedeTimer().record(() -> orderResultVersionRepository.appendAll(pending.amendments));
+            } catch (DataIntegrityViolationException e) {
+                // Another amendment of one of these studies took the same result version first
+                throw new ConflictException("Study was modified by another user. Please refresh and try again.");
+            }
+        }
+        resultSearchService.index(pending.results);
+        resultOutboxService.enqueue(pending.results);
+    }
+
     @Transactional
     public void deleteStudy(Long id) {
         Study study = getStudyById(id);
@@ -162,13 +220,20 @@ public class StudyService {
             throw new BusinessRuleException("Cannot delete finalized or amended study");
         }
         studyRepository.delete(study);
+        publishTransition(study, study.getStatus(), null);
     }
 
-    public Map<String, Long> getStudyStatusSummary() {
-        Map<String, Long> result = new LinkedHashMap<>();
-        for (Object[] row : studyRepository.countByStatus()) {
-            result.put(row[0].toString(), (Long) row[1]);
-        }
-        return result;
+    private void publishTransition(Study study, StudyStatus from, StudyStatus to) {
+        publishTransition(study, from, to, LocalDateTime.now());
+    }
+
+    private void publishTransition(Study study, StudyStatus from, StudyStatus to, LocalDateTime occurredAt) {
+        eventPublisher.publishEvent(new StudyTransitionEvent(study.getId(), study.getOrderId(), from, to, occurredAt));
+    }
+
+    /** Results signed by one or more study updates and not yet written. */
+    static class PendingResults {
+        private final List<OrderResultVersionRepository.Append> amendments = new ArrayList<>();
+        private final List<OrderResult> results = new ArrayList<>();
     }
 }
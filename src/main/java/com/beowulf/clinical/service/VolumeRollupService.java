@@ -0,0 +1,242 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.dto.VolumeBucket;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.ResultStatus;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.enums.VolumeGranularity;
+import com.beowulf.clinical.event.OrderCreatedEvent;
+import com.beowulf.clinical.event.StudyTransitionEvent;
+import com.beowulf.clinical.repository.VolumeBucketRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Keeps hourly order and result volumes up to date as they are written and rolls closed hours into
+ * daily and closed days into monthly buckets. A volume query reads each tier up to the point it has
+ * been rolled up to and the finer tiers after that, so its cost depends on the number of buckets in
+ * the range rather than the number of orders or results.
+ */
+@Service
+@Timed(value = WorkflowMetrics.SERVICE_TIMER, histogram = true)
+public class VolumeRollupService {
+
+    public static final String ORDERS = "ORDERS";
+    public static final String RESULTS = "RESULTS";
+    static final int MAX_BUCKETS = 5000;
+
+    private static final Logger log = LoggerFactory.getLogger(VolumeRollupService.class);
+    private static final List<String> ORDER_KEYS = Arrays.stream(OrderType.values()).map(Enum::name).toList();
+    private static final List<String> RESULT_KEYS = Arrays.stream(ResultStatus.values()).map(Enum::name).toList();
+
+    private final VolumeBucketRepository bucketRepository;
+    private final int hourlyRetentionDays;
+
+    public VolumeRollupService(VolumeBucketRepository bucketRepository,
+                               @Value("${clinical.reports.volume.hourly-retention-days}") int hourlyRetentionDays) {
+        if (hourlyRetentionDays < 2) {
+            throw new IllegalArgumentException("clinical.reports.volume.hourly-retention-days must be at least 2");
+        }
+        this.bucketRepository = bucketRepository;
+        this.hourlyRetentionDays = hourlyRetentionDays;
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        pendingVolumes().add(event.getCreateDate(), ORDERS, event.getType().name());
+    }
+
+    @EventListener
+    public void onStudyTransition(StudyTransitionEvent event) {
+        if (event.getToStatus() == StudyStatus.FINALIZED) {
+            pendingVolumes().add(event.getOccurredAt(), RESULTS, ResultStatus.FINALIZED.name());
+        } else if (event.getToStatus() == StudyStatus.AMENDED) {
+            pendingVolumes().add(event.getOccurredAt(), RESULTS, ResultStatus.AMENDED.name());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<VolumeBucket> getVolume(String from, String to, String granularity) {
+        VolumeGranularity tier = parseGranularity(granularity);
+        LocalDateTime start = tier.truncate(parseTime(from, "from"));
+        LocalDateTime end = to != null ? parseTime(to, "to") : LocalDateTime.now();
+        if (!tier.truncate(end).equals(end)) {
+            end = tier.plus(tier.truncate(end), 1);
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        // Pruned hours would otherwise read as hours without orders
+        LocalDateTime hoursFrom = hourlyRetainedFrom(LocalDateTime.now());
+        if (tier == VolumeGranularity.HOUR && start.isBefore(hoursFrom)) {
+            throw new IllegalArgumentException("Hourly volumes are kept for " + hourlyRetentionDays + " days; 'from' must be "
+                + hoursFrom + " or later, or use DAY or MONTH granularity");
+        }
+        if (tier.bucketsBetween(start, end) > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range covers more than " + MAX_BUCKETS + " " + tier.name().toLowerCase()
+                + " buckets; use a coarser granularity or a shorter range");
+        }
+
+        TreeMap<LocalDateTime, VolumeBucket> buckets = new TreeMap<>();
+        LocalDateTime lower = start;
+        for (VolumeGranularity source = tier; source != null && lower.isBefore(end); source = source.finer()) {
+            LocalDateTime upper = end;
+            if (source != VolumeGranularity.HOUR) {
+                LocalDateTime rolledUpTo = bucketRepository.getRolledUpTo(source);
+                upper = rolledUpTo.isBefore(end) ? rolledUpTo : end;
+            }
+            if (upper.isAfter(lower)) {
+                for (VolumeBucketRepository.Row row : bucketRepository.findBetween(source, lower, upper)) {
+                    accumulate(buckets.computeIfAbsent(tier.truncate(row.getBucketStart()), VolumeBucket::new), row);
+                }
+                lower = upper;
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * Rebuilds daily buckets for days closed since the last run and monthly buckets for closed months,
+     * then drops hourly buckets past retention. The previous period is always rebuilt again so that
+     * transactions committing just after a boundary are still counted.
+     */
+    @Transactional
+    public void rollup(LocalDateTime now) {
+        LocalDateTime dayEnd = VolumeGranularity.DAY.truncate(now);
+        LocalDateTime dayFrom = VolumeGranularity.DAY.plus(bucketRepository.getRolledUpTo(VolumeGranularity.DAY), -1);
+        int days = bucketRepository.rebuild(VolumeGranularity.DAY, dayFrom, dayEnd);
+        bucketRepository.setRolledUpTo(VolumeGranularity.DAY, dayEnd);
+
+        LocalDateTime monthEnd = VolumeGranularity.MONTH.truncate(now);
+        LocalDateTime monthFrom = VolumeGranularity.MONTH.truncate(dayFrom);
+        int months = bucketRepository.rebuild(VolumeGranularity.MONTH, monthFrom, monthEnd);
+        bucketRepository.setRolledUpTo(VolumeGranularity.MONTH, monthEnd);
+
+        // The next run rebuilds from the day before dayEnd, so hours from there on are always kept
+        LocalDateTime retainFrom = hourlyRetainedFrom(now);
+        LocalDateTime nextDayFrom = VolumeGranularity.DAY.plus(dayEnd, -1);
+        int pruned = bucketRepository.deleteBefore(VolumeGranularity.HOUR,
+            retainFrom.isBefore(nextDayFrom) ? retainFrom : nextDayFrom);
+        log.debug("Volume rollup rebuilt {} daily and {} monthly buckets, pruned {} hourly buckets", days, months, pruned);
+
+        seedHours(now);
+    }
+
+    /** The start of the oldest hourly bucket a rollup at {@code now} keeps. */
+    private LocalDateTime hourlyRetainedFrom(LocalDateTime now) {
+        return VolumeGranularity.DAY.truncate(now.minusDays(hourlyRetentionDays));
+    }
+
+    @Scheduled(cron = "${clinical.reports.volume.rollup-cron}")
+    @Transactional
+    public void rollupOnSchedule() {
+        rollup(LocalDateTime.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seedOnStartup() {
+        seedHours(LocalDateTime.now());
+    }
+
+    private void seedHours(LocalDateTime now) {
+        LocalDateTime hour = VolumeGranularity.HOUR.truncate(now);
+        for (LocalDateTime bucket : List.of(hour, VolumeGranularity.HOUR.plus(hour, 1))) {
+            bucketRepository.seed(VolumeGranularity.HOUR, bucket, ORDERS, ORDER_KEYS);
+            bucketRepository.seed(VolumeGranularity.HOUR, bucket, RESULTS, RESULT_KEYS);
+        }
+    }
+
+    private static void accumulate(VolumeBucket bucket, VolumeBucketRepository.Row row) {
+        if (ORDERS.equals(row.getMetric())) {
+            bucket.getOrders().merge(row.getMetricKey(), row.getTotal(), Long::sum);
+        } else if (ResultStatus.FINALIZED.name().equals(row.getMetricKey())) {
+            bucket.setFinalized(bucket.getFinalized() + row.getTotal());
+        } else if (ResultStatus.AMENDED.name().equals(row.getMetricKey())) {
+            bucket.setAmended(bucket.getAmended() + row.getTotal());
+        }
+    }
+
+    private static VolumeGranularity parseGranularity(String granularity) {
+        if (granularity == null) {
+            return VolumeGranularity.HOUR;
+        }
+        try {
+            return VolumeGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid granularity: " + granularity + ". Valid values: HOUR, DAY, MONTH");
+        }
+    }
+
+    static LocalDateTime parseTime(String value, String name) {
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid '" + name + "'. Use ISO 8601 (YYYY-MM-DD or YYYY-MM-DDTHH:MM)");
+        }
+    }
+
+    private PendingVolumes pendingVolumes() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Volume buckets can only change inside a transaction");
+        }
+        PendingVolumes pending = (PendingVolumes) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingVolumes();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private class PendingVolumes implements TransactionSynchronization {
+
+        // Sorted by hour, metric and key so that every transaction locks bucket rows in the same order
+        // and two writers touching the same buckets cannot deadlock
+        private final Map<List<Object>, Long> counts = new TreeMap<>(
+            Comparator.<List<Object>, LocalDateTime>comparing(key -> (LocalDateTime) key.get(0))
+                .thenComparing(key -> (String) key.get(1))
+                .thenComparing(key -> (String) key.get(2)));
+
+        void add(LocalDateTime occurredAt, String metric, String metricKey) {
+            LocalDateTime hour = VolumeGranularity.HOUR.truncate(Objects.requireNonNull(occurredAt));
+            counts.merge(List.of(hour, metric, metricKey), 1L, Long::sum);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            for (Map.Entry<List<Object>, Long> entry : counts.entrySet()) {
+                LocalDateTime hour = (LocalDateTime) entry.getKey().get(0);
+                String metric = (String) entry.getKey().get(1);
+                String metricKey = (String) entry.getKey().get(2);
+                if (bucketRepository.increment(VolumeGranularity.HOUR, hour, metric, metricKey, entry.getValue()) == 0) {
+                    bucketRepository.insert(VolumeGranularity.HOUR, hour, metric, metricKey, entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(VolumeRollupService.this);
+        }
+    }
+}
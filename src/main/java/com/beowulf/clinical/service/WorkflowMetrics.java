@@ -0,0 +1,60 @@
+package com.beowulf.clinical.service;
+
+import com.beowulf.clinical.event.StudyTransitionEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Workflow meters beyond the per-method service timers: committed study transitions, rejected
+ * requests, and the two statements of an amendment that insert the new result version and point the
+ * superseded one at it (one sample per update request or batch chunk, however many studies it amends).
+ */
+@Component
+public class WorkflowMetrics {
+
+    public static final String SERVICE_TIMER = "clinical.service";
+    static final String TRANSITIONS = "clinical.study.transitions";
+    static final String CONFLICTS = "clinical.conflicts";
+    static final String BUSINESS_RULE_REJECTIONS = "clinical.business.rule.rejections";
+    static final String AMEND_SUPERSEDE = "clinical.study.amend.supersede";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer amendSupersedeTimer;
+
+    public WorkflowMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.amendSupersedeTimer = Timer.builder(AMEND_SUPERSEDE)
+            .description("Insert of the amended result version and supersede of the previous one")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onStudyTransition(StudyTransitionEvent event) {
+        if (event.getFromStatus() == event.getToStatus()) {
+            return;
+        }
+        Counter.builder(TRANSITIONS)
+            .tag("from", event.getFromStatus().name())
+            .tag("to", event.getToStatus() != null ? event.getToStatus().name() : "DELETED")
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /** Conflicts on {@code /api/studies/{id}} are stale study versions, i.e. optimistic-lock failures. */
+    public void conflict(String uri, Class<? extends Exception> exception) {
+        Counter.builder(CONFLICTS).tag("uri", uri).tag("exception", exception.getSimpleName())
+            .register(meterRegistry).increment();
+    }
+
+    public void businessRuleRejection(String uri) {
+        Counter.builder(BUSINESS_RULE_REJECTIONS).tag("uri", uri).register(meterRegistry).increment();
+    }
+
+    public Timer amendSupersedeTimer() {
+        return amendSupersedeTimer;
+    }
+}
@@ -0,0 +1,19 @@
+CREATE SEQUENCE patient_seq START WITH 1 INCREMENT BY ${id_allocation_size};
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY ${id_allocation_size};
+CREATE SEQUENCE study_seq START WITH 1 INCREMENT BY ${id_allocation_size};
+CREATE SEQUENCE order_result_seq START WITH 1 INCREMENT BY ${id_allocation_size};
+
+ALTER SEQUENCE patient_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM patient);
+ALTER SEQUENCE orders_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM orders);
+ALTER SEQUENCE study_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM study);
+ALTER SEQUENCE order_result_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM order_result);
+
+ALTER TABLE patient ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE study ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE order_result ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE patient ALTER COLUMN id SET DEFAULT NEXT VALUE FOR patient_seq;
+ALTER TABLE orders ALTER COLUMN id SET DEFAULT NEXT VALUE FOR orders_seq;
+ALTER TABLE study ALTER COLUMN id SET DEFAULT NEXT VALUE FOR study_seq;
+ALTER TABLE order_result ALTER COLUMN id SET DEFAULT NEXT VALUE FOR order_result_seq;
@@ -0,0 +1,22 @@
+CREATE TABLE report_counter (
+    category VARCHAR(30) NOT NULL,
+    counter_key VARCHAR(30) NOT NULL,
+    stripe INT NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (category, counter_key, stripe)
+);
+
+INSERT INTO report_counter (category, counter_key, stripe, total)
+SELECT k.category, k.counter_key, s.X, 0
+FROM (VALUES
+    ('STUDY_STATUS', 'ORDERED'), ('STUDY_STATUS', 'FINALIZED'), ('STUDY_STATUS', 'AMENDED'), ('STUDY_STATUS', 'CANCELED'),
+    ('ORDER_TYPE', 'ECHO'), ('ORDER_TYPE', 'XRAY'), ('ORDER_TYPE', 'LAB'),
+    ('ORDER_TYPE', 'MRI'), ('ORDER_TYPE', 'CT'), ('ORDER_TYPE', 'ULTRASOUND')
+) AS k(category, counter_key)
+CROSS JOIN SYSTEM_RANGE(0, 7) s;
+
+UPDATE report_counter c SET total = (SELECT COUNT(*) FROM study s WHERE s.status = c.counter_key)
+WHERE c.category = 'STUDY_STATUS' AND c.stripe = 0;
+
+UPDATE report_counter c SET total = (SELECT COUNT(*) FROM orders o WHERE o.type = c.counter_key)
+WHERE c.category = 'ORDER_TYPE' AND c.stripe = 0;
@@ -0,0 +1,39 @@
+CREATE TABLE volume_bucket (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    metric VARCHAR(20) NOT NULL,
+    metric_key VARCHAR(30) NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, metric, metric_key)
+);
+
+CREATE TABLE volume_rollup (
+    granularity VARCHAR(10) PRIMARY KEY,
+    rolled_up_to TIMESTAMP NOT NULL
+);
+
+INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total)
+SELECT 'HOUR', DATE_TRUNC('HOUR', create_date), 'ORDERS', type, COUNT(*)
+FROM orders
+GROUP BY DATE_TRUNC('HOUR', create_date), type;
+
+INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total)
+SELECT 'HOUR', DATE_TRUNC('HOUR', signed_on), 'RESULTS', status, COUNT(*)
+FROM order_result
+GROUP BY DATE_TRUNC('HOUR', signed_on), status;
+
+INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total)
+SELECT 'DAY', DATE_TRUNC('DAY', bucket_start), metric, metric_key, SUM(total)
+FROM volume_bucket
+WHERE granularity = 'HOUR' AND bucket_start < DATE_TRUNC('DAY', LOCALTIMESTAMP)
+GROUP BY DATE_TRUNC('DAY', bucket_start), metric, metric_key;
+
+INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total)
+SELECT 'MONTH', DATE_TRUNC('MONTH', bucket_start), metric, metric_key, SUM(total)
+FROM volume_bucket
+WHERE granularity = 'DAY' AND bucket_start < DATE_TRUNC('MONTH', LOCALTIMESTAMP)
+GROUP BY DATE_TRUNC('MONTH', bucket_start), metric, metric_key;
+
+INSERT INTO volume_rollup (granularity, rolled_up_to) VALUES
+    ('DAY', DATE_TRUNC('DAY', LOCALTIMESTAMP)),
+    ('MONTH', DATE_TRUNC('MONTH', LOCALTIMESTAMP));
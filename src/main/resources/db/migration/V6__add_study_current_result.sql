@@ -0,0 +1,15 @@
+-- Each study points at its order's current result, so reading it is a primary-key lookup instead of a
+-- scan of the order's versions for the one flagged is_current.
+ALTER TABLE study ADD COLUMN current_result_id BIGINT;
+ALTER TABLE study ADD CONSTRAINT fk_study_current_result FOREIGN KEY (current_result_id) REFERENCES order_result(id);
+
+UPDATE study s SET current_result_id = (
+    SELECT r.id FROM order_result r WHERE r.order_id = s.order_id AND r.is_current = TRUE
+);
+
+-- A boolean index splits the table in two halves and is never selective. The composite below backs the
+-- order_id foreign key in place of idx_result_order, and a filter on an order's current row resolves
+-- inside it instead of reading every version.
+DROP INDEX idx_result_current;
+CREATE INDEX idx_result_order_current ON order_result(order_id, is_current);
+DROP INDEX idx_result_order;
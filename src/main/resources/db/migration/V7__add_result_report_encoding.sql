@@ -0,0 +1,3 @@
+-- FULL rows hold the report text; DELTA rows hold an edit script against the next version's text
+-- (see ReportDelta), written when the version is superseded while delta storage is enabled.
+ALTER TABLE order_result ADD COLUMN report_encoding VARCHAR(10) DEFAULT 'FULL' NOT NULL;
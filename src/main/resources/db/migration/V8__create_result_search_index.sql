@@ -0,0 +1,23 @@
+-- Inverted index over order_result.report, written by the application in the same transaction as each
+-- result. result_search_doc marks a result as indexed; each posting repeats its result's order type and
+-- signing time so filtered searches are answered from the postings of the query terms alone.
+-- Results that exist before this migration are indexed at startup.
+CREATE TABLE result_search_doc (
+    result_id BIGINT PRIMARY KEY,
+    order_type VARCHAR(20) NOT NULL,
+    signed_on TIMESTAMP NOT NULL,
+    term_count INT NOT NULL
+);
+
+CREATE TABLE result_term (
+    term VARCHAR(64) NOT NULL,
+    result_id BIGINT NOT NULL,
+    frequency INT NOT NULL,
+    order_type VARCHAR(20) NOT NULL,
+    signed_on TIMESTAMP NOT NULL
+);
+
+-- Named so queries can pick them explicitly: postings probes one (term, result) pair, rank walks a
+-- term's postings best-first so a single-term search stops after one page.
+CREATE UNIQUE INDEX idx_result_term_posting ON result_term (term, result_id);
+CREATE INDEX idx_result_term_rank ON result_term (term, frequency DESC, result_id DESC);
@@ -0,0 +1,19 @@
+-- Result notifications for downstream systems, written in the same transaction as each finalized or
+-- amended result, one row per configured destination. A dispatcher posts each destination's pending rows
+-- in id order and stamps delivered_at once the destination has acknowledged them.
+CREATE TABLE result_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    destination VARCHAR(500) NOT NULL,
+    result_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    signed_on TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    delivered_at TIMESTAMP,
+    last_error VARCHAR(500)
+);
+
+-- A destination's pending rows in delivery order
+CREATE INDEX idx_result_outbox_pending ON result_outbox (destination, delivered_at, id);
@@ -0,0 +1,6 @@
+-- Runs after every migrate, so a changed clinical.ids.allocation-size takes effect on the next start.
+-- The next value of each sequence is kept, so ids reserved before the change are never handed out again.
+ALTER SEQUENCE patient_seq INCREMENT BY ${id_allocation_size};
+ALTER SEQUENCE orders_seq INCREMENT BY ${id_allocation_size};
+ALTER SEQUENCE study_seq INCREMENT BY ${id_allocation_size};
+ALTER SEQUENCE order_result_seq INCREMENT BY ${id_allocation_size};
@@ -0,0 +1,64 @@
+package com.beowulf.clinical.controller;
+
+import com.beowulf.clinical.dto.OrderSummary;
+import com.beowulf.clinical.enums.OrderType;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the {@code GET /api/orders} list items from a page of summaries and serializes them with an
+ * ObjectMapper configured like the application's. No database involved.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderResponseBenchmark {
+
+    @Param("100")
+    public int pageSize;
+
+    private List<OrderSummary> page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 8, 30);
+        page = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            page.add(new OrderSummary(id, id / 10 + 1, "MRN-" + id, "First" + id, "Last" + id,
+                LocalDate.of(1970, 1, 1).plusDays(id), OrderType.values()[(int) (id % OrderType.values().length)],
+                created.plusMinutes(id), created.plusMinutes(id), id, StudyStatus.ORDERED));
+        }
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> buildListItems() {
+        List<Map<String, Object>> result = new ArrayList<>(page.size());
+        for (OrderSummary order : page) {
+            result.add(OrderController.toListItem(order));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeListItems() throws Exception {
+        return objectMapper.writeValueAsBytes(buildListItems());
+    }
+}
@@ -0,0 +1,52 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.service.OrderResultService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderResultServiceBenchmark {
+
+    @Param("10000")
+    public int orders;
+
+    @Param("1000")
+    public int historyOrders;
+
+    @Param("20")
+    public int historyVersions;
+
+    @Param("100")
+    public int limit;
+
+    private ConfigurableApplicationContext context;
+    private OrderResultService orderResultService;
+    private long[] orderIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SeededApplication.start(orders, historyOrders, historyVersions);
+        orderResultService = context.getBean(OrderResultService.class);
+        orderIds = SeededApplication.historyOrderIds(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPage<OrderResult> getResultHistory() {
+        long orderId = orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)];
+        return orderResultService.getResultHistory(orderId, null, limit);
+    }
+}
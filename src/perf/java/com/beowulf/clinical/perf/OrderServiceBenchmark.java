@@ -0,0 +1,55 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+
+    @Param("10000")
+    public int orders;
+
+    /** {@code clinical.ids.allocation-size}; 1 takes a sequence call per inserted row. */
+    @Param({"1", "50"})
+    public int idAllocationSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private int patients;
+    private final AtomicLong newMrns = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SeededApplication.start(orders, 0, 0, "--clinical.ids.allocation-size=" + idAllocationSize);
+        orderService = context.getBean(OrderService.class);
+        patients = Math.max(1, orders / 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order createOrderForNewPatient() {
+        return orderService.createOrder(new OrderRequest(
+            "NEW-" + newMrns.incrementAndGet(), "New", "Patient", "1980-05-05", "MRI"));
+    }
+
+    @Benchmark
+    public Order createOrderForExistingPatient() {
+        String mrn = SeededApplication.MRN_PREFIX + (ThreadLocalRandom.current().nextInt(patients) + 1);
+        return orderService.createOrder(new OrderRequest(mrn, "Bench", "Patient", "1970-01-01", "ECHO"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.entity.Patient;
+import com.beowulf.clinical.service.PatientPrefixIndex;
+import com.beowulf.clinical.service.PatientService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead over {@code patients} patients seeded through SQL, with 2,000 distinct first names and
+ * 50,000 distinct last names. {@code lookupIds} measures the prefix index alone; {@code searchPatients}
+ * adds loading the matching patients. Index load time and estimated size are printed after seeding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientSearchBenchmark {
+
+    @Param("1000000")
+    public int patients;
+
+    private ConfigurableApplicationContext context;
+    private PatientService patientService;
+    private PatientPrefixIndex prefixIndex;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SeededApplication.start(0, 0, 0);
+        context.getBean(JdbcTemplate.class).update(
+            "INSERT INTO patient (id, mrn, first_name, last_name, date_of_birth) " +
+            "SELECT NEXT VALUE FOR patient_seq, 'PS-' || X, 'First' || MOD(X * 7919, 2000), " +
+            "'Last' || MOD(X * 104729, 50000), DATE '1970-01-01' FROM SYSTEM_RANGE(1, ?)", patients);
+        patientService = context.getBean(PatientService.class);
+        prefixIndex = context.getBean(PatientPrefixIndex.class);
+        long started = System.nanoTime();
+        prefixIndex.rebuild();
+        System.out.printf("%nLoaded %,d patients in %,d ms, estimated %,d KB%n", patients,
+            (System.nanoTime() - started) / 1_000_000,
+            (long) context.getBean(MeterRegistry.class).get("clinical.patients.search.memory").gauge().value() / 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> lookupIds() {
+        return prefixIndex.search(randomPrefix(), PatientService.DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Benchmark
+    public List<Patient> searchPatients() {
+        return patientService.searchPatients(randomPrefix(), PatientService.DEFAULT_SEARCH_LIMIT);
+    }
+
+    /** An MRN, last name or first name prefix of varying length, most of them matching many patients. */
+    private String randomPrefix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (random.nextInt(3)) {
+            case 0 -> "ps-" + random.nextInt(1, 1000);
+            case 1 -> "last" + random.nextInt(1, 5000);
+            default -> "First" + random.nextInt(1, 200);
+        };
+    }
+}
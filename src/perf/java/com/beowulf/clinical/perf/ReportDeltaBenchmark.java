@@ -0,0 +1,120 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.config.CacheConfig;
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderResultService;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds {@code amendedOrders} studies through the services, each amended to {@code versions} results
+ * of roughly 3 KB that differ by one edited sentence, then reads full result histories with delta
+ * storage on and off. {@code readHistoryCold} clears the rebuilt-report cache before every call, so it
+ * measures the worst case of rebuilding every DELTA version from the nearest full text. Stored and
+ * logical report sizes are printed when a trial ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReportDeltaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class App {
+
+        @Param({"false", "true"})
+        public boolean delta;
+
+        @Param("200")
+        public int amendedOrders;
+
+        @Param("20")
+        public int versions;
+
+        ConfigurableApplicationContext context;
+        OrderResultService orderResultService;
+        Cache rebuiltReports;
+        long[] orderIds;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = SeededApplication.start(0, 0, 0, "--clinical.results.delta.enabled=" + delta);
+            OrderService orderService = context.getBean(OrderService.class);
+            StudyService studyService = context.getBean(StudyService.class);
+            orderIds = new long[amendedOrders];
+            for (int i = 0; i < amendedOrders; i++) {
+                orderIds[i] = orderService.createOrder(new OrderRequest(
+                    "DELTA-" + i, "Delta", "Patient", "1968-08-08", "ECHO")).getId();
+                amend(studyService, studyService.getStudyByOrderId(orderIds[i]));
+            }
+            orderResultService = context.getBean(OrderResultService.class);
+            rebuiltReports = context.getBean(CacheManager.class).getCache(CacheConfig.RESULT_REPORTS);
+        }
+
+        private void amend(StudyService studyService, Study study) {
+            String[] sentences = new String[48];
+            for (int s = 0; s < sentences.length; s++) {
+                sentences[s] = "Segment " + s + " demonstrates normal thickness with preserved systolic function. ";
+            }
+            for (int v = 1; v <= versions; v++) {
+                StudyUpdateRequest request = new StudyUpdateRequest();
+                request.setStatus(v == 1 ? "FINALIZED" : "AMENDED");
+                request.setReportText(String.join("", sentences) + "Impression: revision " + v + ".");
+                request.setVersion(study.getVersion());
+                study = studyService.updateStudy(study.getId(), request);
+                int s = ThreadLocalRandom.current().nextInt(sentences.length);
+                sentences[s] = "Segment " + s + " revised in amendment " + v + " after review of additional views. ";
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            long stored = jdbcTemplate.queryForObject("SELECT SUM(LENGTH(report)) FROM order_result", Long.class);
+            long full = 0;
+            for (long orderId : orderIds) {
+                for (OrderResult result : orderResultService.getResultHistory(orderId, null, versions).getItems()) {
+                    full += result.getReport().length();
+                }
+            }
+            System.out.printf("%n[delta=%s] stored report characters: %,d of %,d (%.1f%%)%n",
+                delta, stored, full, 100.0 * stored / full);
+            context.close();
+        }
+
+        long nextOrderId() {
+            return orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void clear(App app) {
+            app.rebuiltReports.clear();
+        }
+    }
+
+    @Benchmark
+    public CursorPage<OrderResult> readHistory(App app) {
+        return app.orderResultService.getResultHistory(app.nextOrderId(), null, app.versions);
+    }
+
+    @Benchmark
+    public CursorPage<OrderResult> readHistoryCold(App app, ColdCache cold) {
+        return app.orderResultService.getResultHistory(app.nextOrderId(), null, app.versions);
+    }
+}
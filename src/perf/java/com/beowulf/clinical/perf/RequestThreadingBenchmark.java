@@ -0,0 +1,125 @@
+package com.beowulf.clinical.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives {@code GET /api/orders} and {@code PATCH /api/studies/{id}} over HTTP from many client threads
+ * against a server running on platform threads (Tomcat's pool of 200) or on virtual threads (the
+ * {@code virtual-threads} profile, which also puts the connection limiter in front of the pool). Run it
+ * with more JMH threads than Tomcat has workers, e.g. {@code -t 400}; {@code virtual} needs Java 21.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(256)
+public class RequestThreadingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"platform", "virtual"})
+        public String threads;
+
+        @Param("10000")
+        public int orders;
+
+        @Param("50")
+        public int limit;
+
+        private ConfigurableApplicationContext context;
+        private CloseableHttpClient httpClient;
+        private String baseUrl;
+        private List<Long> studyIds;
+        private final AtomicInteger nextStudy = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start(BenchmarkParams params) {
+            if ("virtual".equals(threads) && Runtime.version().feature() < 21) {
+                throw new IllegalStateException("threads=virtual needs Java 21; run Maven on a JDK 21 with -Pperf,java21");
+            }
+            context = "virtual".equals(threads)
+                ? SeededApplication.startServer(orders, "--spring.profiles.active=virtual-threads")
+                : SeededApplication.startServer(orders);
+            baseUrl = SeededApplication.baseUrl(context);
+            studyIds = context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM study ORDER BY id", Long.class);
+            httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(params.getThreads())
+                    .setMaxConnPerRoute(params.getThreads())
+                    .build())
+                .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            httpClient.close();
+            context.close();
+        }
+    }
+
+    /** Each client thread edits the report text of its own ORDERED study so that versions never conflict. */
+    @State(Scope.Thread)
+    public static class ClientStudy {
+
+        private long studyId;
+        private long version;
+
+        @Setup(Level.Trial)
+        public void claim(Server server) {
+            studyId = server.studyIds.get(server.nextStudy.getAndIncrement());
+            version = 0;
+        }
+    }
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public int getOrders(Server server) throws IOException {
+        long after = ThreadLocalRandom.current().nextLong(Math.max(1, server.orders - server.limit));
+        return server.httpClient.execute(
+            ClassicRequestBuilder.get(server.baseUrl + "/api/orders?after=" + after + "&limit=" + server.limit).build(),
+            response -> {
+                EntityUtils.consume(response.getEntity());
+                return expectOk(response.getCode());
+            });
+    }
+
+    @Benchmark
+    public int updateStudy(Server server, ClientStudy study) throws IOException {
+        String body = "{\"reportText\":\"Draft " + study.version + "\",\"version\":" + study.version + "}";
+        return server.httpClient.execute(
+            ClassicRequestBuilder.patch(server.baseUrl + "/api/studies/" + study.studyId)
+                .setEntity(body, ContentType.APPLICATION_JSON).build(),
+            response -> {
+                JsonNode json = objectMapper.readTree(EntityUtils.toString(response.getEntity()));
+                expectOk(response.getCode());
+                study.version = json.get("version").asLong();
+                return response.getCode();
+            });
+    }
+
+    private static int expectOk(int status) {
+        if (status != 200) {
+            throw new IllegalStateException("Unexpected HTTP " + status);
+        }
+        return status;
+    }
+}
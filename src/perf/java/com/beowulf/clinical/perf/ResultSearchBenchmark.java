@@ -0,0 +1,100 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.dto.ResultSearchHit;
+import com.beowulf.clinical.service.ResultSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches {@code historyOrders * historyVersions} seeded results whose reports are 40 words drawn from a
+ * 2,000-word vocabulary with a skewed distribution: each of w0-w19 appears in 10-60% of the reports and
+ * each of w1500-w1999 in about 1%, "normal" in a third and "pericardial effusion" in 1%. The reports are written through SQL and indexed by the startup
+ * backfill, which is timed and printed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultSearchBenchmark {
+
+    @Param("50000")
+    public int historyOrders;
+
+    @Param("2")
+    public int historyVersions;
+
+    @Param("20")
+    public int limit;
+
+    private ConfigurableApplicationContext context;
+    private ResultSearchService resultSearchService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SeededApplication.start(historyOrders, historyOrders, historyVersions);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+        List<Object[]> reports = new ArrayList<>();
+        for (Long id : jdbcTemplate.queryForList("SELECT id FROM order_result", Long.class)) {
+            StringBuilder report = new StringBuilder();
+            for (int w = 0; w < 40; w++) {
+                // Squaring a uniform draw favours the low word numbers
+                double draw = random.nextDouble();
+                report.append("w").append((int) (draw * draw * 2000)).append(' ');
+            }
+            if (random.nextInt(3) == 0) {
+                report.append("normal ");
+            }
+            if (random.nextInt(100) == 0) {
+                report.append("small pericardial effusion");
+            }
+            reports.add(new Object[] {report.toString(), id});
+        }
+        jdbcTemplate.batchUpdate("UPDATE order_result SET report = ? WHERE id = ?", reports);
+
+        resultSearchService = context.getBean(ResultSearchService.class);
+        long started = System.nanoTime();
+        resultSearchService.indexUnindexedResults();
+        System.out.printf("%nIndexed %,d results in %,d ms%n", reports.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    // Each call picks its words at random: H2 reuses the result of an identical query on unchanged tables
+
+    @Benchmark
+    public CursorPage<ResultSearchHit> searchRareTerm() {
+        return resultSearchService.search(word(1500, 2000), null, null, null, false, null, limit);
+    }
+
+    @Benchmark
+    public CursorPage<ResultSearchHit> searchRarePhrase() {
+        return resultSearchService.search("pericardial effusion " + word(0, 20), null, null, null, false, null, limit);
+    }
+
+    @Benchmark
+    public CursorPage<ResultSearchHit> searchCommonTerm() {
+        return resultSearchService.search(word(0, 20), null, null, null, false, null, limit);
+    }
+
+    @Benchmark
+    public CursorPage<ResultSearchHit> searchCommonTermsFiltered() {
+        return resultSearchService.search("normal " + word(0, 20), "ECHO", null, null, true, null, limit);
+    }
+
+    private static String word(int from, int to) {
+        return "w" + ThreadLocalRandom.current().nextInt(from, to);
+    }
+}
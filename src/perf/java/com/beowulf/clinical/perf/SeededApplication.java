@@ -0,0 +1,83 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.ClinicalApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server against a private in-memory database and seeds it with
+ * {@code orders} orders spread over one patient per ten orders. The first {@code historyOrders} orders
+ * are amended studies with {@code historyVersions} results each; every other study is ORDERED.
+ * Seeding goes through SQL so a large database is ready in seconds; {@code args} are appended to the
+ * command line.
+ */
+public final class SeededApplication {
+
+    public static final String MRN_PREFIX = "BENCH-";
+
+    private SeededApplication() {}
+
+    public static ConfigurableApplicationContext start(int orders, int historyOrders, int historyVersions, String... args) {
+        List<String> commandLine = new ArrayList<>(List.of(
+            "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN"));
+        commandLine.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ClinicalApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(commandLine.toArray(String[]::new));
+        seed(context.getBean(JdbcTemplate.class), orders, historyOrders, historyVersions);
+        return context;
+    }
+
+    /**
+     * Same as {@link #start} but serves HTTP on a random port, with {@code args} appended to the command
+     * line (e.g. {@code --spring.profiles.active=virtual-threads}). Every study is ORDERED.
+     */
+    public static ConfigurableApplicationContext startServer(int orders, String... args) {
+        List<String> commandLine = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN"));
+        commandLine.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ClinicalApplication.class)
+            .run(commandLine.toArray(String[]::new));
+        seed(context.getBean(JdbcTemplate.class), orders, 0, 0);
+        return context;
+    }
+
+    public static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, int orders, int historyOrders, int historyVersions) {
+        int patients = Math.max(1, orders / 10);
+        jdbcTemplate.update("INSERT INTO patient (mrn, first_name, last_name, date_of_birth) " +
+            "SELECT '" + MRN_PREFIX + "' || X, 'Bench', 'Patient', DATE '1970-01-01' FROM SYSTEM_RANGE(1, ?)", patients);
+        jdbcTemplate.update("INSERT INTO orders (patient_id, mrn, first_name, last_name, date_of_birth, type) " +
+            "SELECT p.id, p.mrn, p.first_name, p.last_name, p.date_of_birth, " +
+            "CASEWHEN(MOD(r.X, 2) = 0, 'ECHO', 'XRAY') FROM SYSTEM_RANGE(1, ?) r " +
+            "JOIN patient p ON p.mrn = '" + MRN_PREFIX + "' || (MOD(r.X, ?) + 1)", orders, patients);
+        jdbcTemplate.update("INSERT INTO study (order_id, report_text, status, version) " +
+            "SELECT id, CASEWHEN(ROWNUM() <= ?, 'Amended report', NULL), CASEWHEN(ROWNUM() <= ?, 'AMENDED', 'ORDERED'), 0 " +
+            "FROM (SELECT id FROM orders ORDER BY id)", historyOrders, historyOrders);
+        jdbcTemplate.update("INSERT INTO order_result (order_id, version, result_type, report, signed_on, status, is_current) " +
+            "SELECT s.order_id, v.X, 'DIAGNOSTIC_REPORT', 'Report version ' || v.X, CURRENT_TIMESTAMP, " +
+            "CASEWHEN(v.X = 1, 'FINALIZED', 'AMENDED'), v.X = ? " +
+            "FROM study s CROSS JOIN SYSTEM_RANGE(1, ?) v WHERE s.status = 'AMENDED'", historyVersions, historyVersions);
+        jdbcTemplate.update("UPDATE study s SET current_result_id = (SELECT r.id FROM order_result r " +
+            "WHERE r.order_id = s.order_id AND r.is_current) WHERE s.status = 'AMENDED'");
+    }
+
+    public static long[] historyOrderIds(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class)
+            .queryForList("SELECT order_id FROM study WHERE status = 'AMENDED' ORDER BY order_id", Long.class)
+            .stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,89 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.ClinicalApplication;
+import com.beowulf.clinical.service.PatientPrefixIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launch to ready (the HTTP port open and every startup listener done) of the {@code durable}
+ * profile against a file database holding {@code orders} orders, one patient per ten orders, seeded
+ * through SQL. Each database is seeded once under {@code target/startup-bench} and reused by later runs;
+ * seeding 10 million orders takes over a quarter of an hour, hence the timeout. Every measurement is a
+ * fresh JVM, as in a real restart, so class loading and JIT warm-up are part of the time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(3)
+@Timeout(time = 2, timeUnit = TimeUnit.HOURS)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"1000000", "5000000", "10000000"})
+    public int orders;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void seed() throws IOException {
+        dir = Path.of("target", "startup-bench", "orders-" + orders).toAbsolutePath();
+        Path seeded = dir.resolve("seeded");
+        if (Files.exists(seeded)) {
+            return;
+        }
+        FileSystemUtils.deleteRecursively(dir);
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext seeding = start()) {
+            SeededApplication.seed(seeding.getBean(JdbcTemplate.class), orders, 0, 0);
+        }
+        Files.createFile(seeded);
+        System.out.printf("%nSeeded %,d orders in %,d s, %,d MB on disk%n", orders,
+            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), size(dir) / (1024 * 1024));
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startToReady() {
+        context = start();
+        return context;
+    }
+
+    /** Lets the patient search index finish loading so that it does not overlap the next start. */
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        PatientPrefixIndex prefixIndex = context.getBean(PatientPrefixIndex.class);
+        long started = System.nanoTime();
+        while (!prefixIndex.isLoaded()) {
+            Thread.sleep(10);
+        }
+        System.out.printf(" (patient search index loaded %,d ms later)", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        context.close();
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ClinicalApplication.class)
+            .profiles("durable")
+            .run("--clinical.storage.dir=" + dir,
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+    }
+
+    private static long size(Path dir) {
+        try (var files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.beowulf.clinical.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares time to the first successful {@code /actuator/health} of the plain {@code java -jar} entrypoint
+ * with the fast-start one the Docker image uses: the {@code target/optimized} layout of the {@code aot}
+ * Maven profile started with AOT bean definitions, a CDS archive and the {@code fast-start} Spring profile.
+ * When the archive is missing it is created first by a training run, as in the Dockerfile. Each run is a
+ * new JVM on a free port, timed from process launch; the two entrypoints take turns so that both see the
+ * same machine load. Options, all given as {@code --name=value}:
+ * <ul>
+ *   <li>{@code runs} starts per entrypoint (5)</li>
+ *   <li>{@code jar} the Spring Boot jar ({@code target/clinical-order-management-1.0.0.jar})</li>
+ *   <li>{@code optimized} the unpacked layout ({@code target/optimized})</li>
+ *   <li>{@code min-improvement} percent by which the fast-start median has to beat the {@code java -jar}
+ *       median (10)</li>
+ *   <li>{@code max-ms} upper bound for the fast-start median, unchecked by default</li>
+ *   <li>{@code timeout} seconds to wait for one start (300)</li>
+ *   <li>{@code report} JSON report path ({@code target/startup-report.json})</li>
+ * </ul>
+ * Exits with status 1 when a threshold is missed.
+ */
+public final class StartupTimeRunner {
+
+    private static final String HEALTH = "/actuator/health";
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    private final Map<String, String> options;
+    private final Path logDir = Path.of("target", "startup-logs");
+
+    private StartupTimeRunner(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            options.put(parts[0], parts[1]);
+        }
+        System.exit(new StartupTimeRunner(options).run() ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        double minImprovement = Double.parseDouble(options.getOrDefault("min-improvement", "10"));
+        String maxMs = options.get("max-ms");
+        File jar = new File(options.getOrDefault("jar", "target/clinical-order-management-1.0.0.jar")).getAbsoluteFile();
+        File optimized = new File(options.getOrDefault("optimized", "target/optimized")).getAbsoluteFile();
+        if (runs < 1 || !jar.isFile() || !new File(optimized, "app.jar").isFile()) {
+            throw new IllegalArgumentException("Needs --runs of at least 1 and both " + jar + " and " + optimized
+                + "/app.jar; build them with: mvn -Paot package -DskipTests");
+        }
+        Files.createDirectories(logDir);
+        if (!new File(optimized, "app.jsa").isFile()) {
+            train(optimized);
+        }
+
+        List<String> plain = List.of("-jar", jar.getPath());
+        List<String> fastStart = List.of("-XX:SharedArchiveFile=app.jsa", "-Dspring.aot.enabled=true",
+            "-Dspring.profiles.active=fast-start", "-jar", "app.jar");
+        long[] plainMs = new long[runs];
+        long[] fastStartMs = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            plainMs[i] = timeToHealthy("java-jar-" + i, jar.getParentFile(), plain);
+            fastStartMs[i] = timeToHealthy("fast-start-" + i, optimized, fastStart);
+            System.out.printf("Run %d: java -jar %,d ms, fast-start %,d ms%n", i + 1, plainMs[i], fastStartMs[i]);
+        }
+
+        long plainMedian = median(plainMs);
+        long fastStartMedian = median(fastStartMs);
+        double improvement = 100.0 * (plainMedian - fastStartMedian) / plainMedian;
+        System.out.printf("%nTime to first healthy /actuator/health over %d runs (median, min-max):%n", runs);
+        System.out.printf("  java -jar    %,7d ms  %,d-%,d ms%n", plainMedian, min(plainMs), max(plainMs));
+        System.out.printf("  fast-start   %,7d ms  %,d-%,d ms%n", fastStartMedian, min(fastStartMs), max(fastStartMs));
+        System.out.printf("  improvement  %6.1f %%%n", improvement);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runs", runs);
+        report.put("javaJarMs", plainMs);
+        report.put("fastStartMs", fastStartMs);
+        report.put("javaJarMedianMs", plainMedian);
+        report.put("fastStartMedianMs", fastStartMedian);
+        report.put("improvementPercent", improvement);
+        File reportFile = new File(options.getOrDefault("report", "target/startup-report.json"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        System.out.println("Report written to " + reportFile);
+
+        boolean passed = true;
+        if (improvement < minImprovement) {
+            System.out.printf("FAILED: fast-start is %.1f%% faster, expected at least %.1f%%%n", improvement, minImprovement);
+            passed = false;
+        }
+        if (maxMs != null && fastStartMedian > Long.parseLong(maxMs)) {
+            System.out.printf("FAILED: fast-start median %,d ms exceeds %s ms%n", fastStartMedian, maxMs);
+            passed = false;
+        }
+        return passed;
+    }
+
+    /** Refreshes the context once and exits, writing every class it loaded into {@code app.jsa}. */
+    private void train(File optimized) throws IOException, InterruptedException {
+        System.out.println("Creating the CDS archive " + optimized + "/app.jsa");
+        Process training = new ProcessBuilder(java, "-XX:ArchiveClassesAtExit=app.jsa", "-Dspring.aot.enabled=true",
+                "-Dspring.profiles.active=fast-start", "-Dspring.context.exit=onRefresh", "-jar", "app.jar")
+            .directory(optimized)
+            .redirectErrorStream(true)
+            .redirectOutput(logDir.resolve("training.log").toFile())
+            .start();
+        if (training.waitFor() != 0 || !new File(optimized, "app.jsa").isFile()) {
+            throw new IllegalStateException("Training run failed, see " + logDir.resolve("training.log"));
+        }
+    }
+
+    private long timeToHealthy(String name, File directory, List<String> jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        command.add("--server.port=" + port);
+        Path log = logDir.resolve(name + ".log");
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + HEALTH))
+            .timeout(Duration.ofSeconds(5))
+            .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout", "300")));
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .directory(directory)
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(name + " exited with status " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException(name + " was not healthy in time, see " + log);
+                }
+                try {
+                    if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(20);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted.length % 2 == 1 ? sorted[sorted.length / 2]
+            : (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+    }
+
+    private static long min(long[] values) {
+        return Arrays.stream(values).min().orElseThrow();
+    }
+
+    private static long max(long[] values) {
+        return Arrays.stream(values).max().orElseThrow();
+    }
+}
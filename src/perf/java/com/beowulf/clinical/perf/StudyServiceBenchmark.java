@@ -0,0 +1,105 @@
+package com.beowulf.clinical.perf;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finalize needs a fresh ORDERED study per call, so one is created in an invocation-level setup that
+ * JMH keeps out of the measurement. Amend keeps amending one study per thread, tracking its version;
+ * {@code priorAmendments} gives that study a longer result history before measurement starts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudyServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class App {
+
+        @Param("10000")
+        public int orders;
+
+        @Param("0")
+        public int priorAmendments;
+
+        ConfigurableApplicationContext context;
+        OrderService orderService;
+        StudyService studyService;
+        final AtomicLong mrns = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = SeededApplication.start(orders, 0, 0);
+            orderService = context.getBean(OrderService.class);
+            studyService = context.getBean(StudyService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+
+        Study newOrderedStudy() {
+            Long orderId = orderService.createOrder(new OrderRequest(
+                "STUDY-" + mrns.incrementAndGet(), "Study", "Patient", "1975-03-03", "CT")).getId();
+            return studyService.getStudyByOrderId(orderId);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OrderedStudy {
+
+        Study study;
+
+        @Setup(Level.Invocation)
+        public void create(App app) {
+            study = app.newOrderedStudy();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FinalizedStudy {
+
+        Study study;
+        int amendments;
+
+        @Setup(Level.Iteration)
+        public void create(App app) {
+            study = app.studyService.updateStudy(app.newOrderedStudy().getId(), request("FINALIZED", "Initial report", 0L));
+            for (int i = 0; i < app.priorAmendments; i++) {
+                study = app.studyService.updateStudy(study.getId(),
+                    request("AMENDED", "Prior amendment " + ++amendments, study.getVersion()));
+            }
+        }
+    }
+
+    @Benchmark
+    public Study finalizeStudy(App app, OrderedStudy ordered) {
+        return app.studyService.updateStudy(ordered.study.getId(),
+            request("FINALIZED", "Normal study", ordered.study.getVersion()));
+    }
+
+    @Benchmark
+    public Study amendStudy(App app, FinalizedStudy finalized) {
+        finalized.study = app.studyService.updateStudy(finalized.study.getId(),
+            request("AMENDED", "Amendment " + ++finalized.amendments, finalized.study.getVersion()));
+        return finalized.study;
+    }
+
+    private static StudyUpdateRequest request(String status, String reportText, Long version) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(version);
+        return request;
+    }
+}
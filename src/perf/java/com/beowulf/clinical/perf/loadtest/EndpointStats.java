@@ -0,0 +1,47 @@
+package com.beowulf.clinical.perf.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latencies in microseconds with three significant digits, plus an error count. */
+final class EndpointStats {
+
+    final String name;
+    final String description;
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    void record(long startNanos, boolean success) {
+        latencies.recordValue(Math.max(1, (System.nanoTime() - startNanos) / 1_000));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        errors.reset();
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    double maxMillis() {
+        return latencies.getMaxValue() / 1_000.0;
+    }
+}
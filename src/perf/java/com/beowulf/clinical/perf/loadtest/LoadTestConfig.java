@@ -0,0 +1,97 @@
+package com.beowulf.clinical.perf.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, all given as {@code --name=value}:
+ * <ul>
+ *   <li>{@code target} base URL; when absent an embedded server is started on a random port</li>
+ *   <li>{@code duration}, {@code warmup} measured and discarded seconds (60, 10)</li>
+ *   <li>{@code concurrency} maximum operations in flight (32)</li>
+ *   <li>{@code rate} operations started per second, or 0 for a closed loop (50)</li>
+ *   <li>{@code read-ratio} fraction of operations that are reads of an existing order (0.7)</li>
+ *   <li>{@code slo} comma separated thresholds in ms, e.g. {@code create.p99=250,history.p99.9=100},
+ *       plus {@code errors=0.01} for the maximum error ratio</li>
+ *   <li>{@code report} JSON report path (target/loadtest-report.json)</li>
+ * </ul>
+ */
+final class LoadTestConfig {
+
+    final String target;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final int concurrency;
+    final double rate;
+    final double readRatio;
+    final List<Slo> slos;
+    final Double maxErrorRatio;
+    final String report;
+
+    private LoadTestConfig(Map<String, String> options) {
+        target = options.remove("target");
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        rate = Double.parseDouble(options.getOrDefault("rate", "50"));
+        readRatio = Double.parseDouble(options.getOrDefault("read-ratio", "0.7"));
+        report = options.getOrDefault("report", "target/loadtest-report.json");
+        slos = new ArrayList<>();
+        Double errors = null;
+        String slo = options.get("slo");
+        if (slo != null && !slo.isBlank()) {
+            for (String threshold : slo.split(",")) {
+                String[] parts = threshold.trim().split("=", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid SLO threshold: " + threshold);
+                }
+                if (parts[0].equals("errors")) {
+                    errors = Double.parseDouble(parts[1]);
+                    continue;
+                }
+                int dot = parts[0].indexOf('.');
+                if (dot < 0 || !parts[0].startsWith("p", dot + 1)) {
+                    throw new IllegalArgumentException("SLO must look like <endpoint>.p<percentile>=<ms>: " + threshold);
+                }
+                slos.add(new Slo(parts[0].substring(0, dot), Double.parseDouble(parts[0].substring(dot + 2)),
+                    Double.parseDouble(parts[1])));
+            }
+        }
+        maxErrorRatio = errors;
+        if (concurrency < 1 || durationSeconds < 1 || warmupSeconds < 0 || rate < 0 || readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("Invalid load test options: " + options);
+        }
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            options.put(parts[0], parts[1]);
+        }
+        return new LoadTestConfig(options);
+    }
+
+    static final class Slo {
+
+        final String endpoint;
+        final double percentile;
+        final double maxMillis;
+
+        Slo(String endpoint, double percentile, double maxMillis) {
+            this.endpoint = endpoint;
+            this.percentile = percentile;
+            this.maxMillis = maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return endpoint + ".p" + percentile + " <= " + maxMillis + " ms";
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.beowulf.clinical.perf.loadtest;
+
+import com.beowulf.clinical.ClinicalApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the clinical workflow over HTTP and reports latency percentiles per endpoint. A write
+ * operation creates an order, finalizes and amends its study and reads the result history; a read
+ * operation fetches an order or the result history of an order written earlier in the run.
+ *
+ * <p>With a positive {@code rate} operations are started on a fixed schedule (open model) and the
+ * first request of each operation is timed from its scheduled start, so time spent waiting for a
+ * free slot counts against the latency instead of silently lowering the offered load. Exits with
+ * status 1 when an SLO threshold is exceeded.
+ */
+public final class LoadTestRunner {
+
+    private static final int KNOWN_ORDERS = 1 << 16;
+    private static final String[] TYPES = {"ECHO", "XRAY", "LAB", "MRI", "CT", "ULTRASOUND"};
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final AtomicLong mrns = new AtomicLong();
+    private final AtomicLongArray knownOrders = new AtomicLongArray(KNOWN_ORDERS);
+    private final AtomicLong knownOrderCount = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+
+    private LoadTestRunner(LoadTestConfig config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.concurrency)
+                .setMaxConnPerRoute(config.concurrency)
+                .build())
+            .build();
+        for (String[] endpoint : new String[][] {
+                {"create", "POST /api/orders"},
+                {"finalize", "PATCH /api/studies/{id} (FINALIZED)"},
+                {"amend", "PATCH /api/studies/{id} (AMENDED)"},
+                {"history", "GET /api/orders/{id}/results/history"},
+                {"read", "GET /api/orders/{id}"}}) {
+            stats.put(endpoint[0], new EndpointStats(endpoint[0], endpoint[1]));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ConfigurableApplicationContext server = null;
+        String baseUrl = config.target;
+        if (baseUrl == null) {
+            server = new SpringApplicationBuilder(ClinicalApplication.class)
+                .run("--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN");
+            baseUrl = "http://localhost:" + server.getEnvironment().getProperty("local.server.port");
+        }
+        boolean passed;
+        try {
+            passed = new LoadTestRunner(config, baseUrl).run();
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        System.out.printf("Load test against %s: %s, concurrency %d, read ratio %.2f, %ds warmup + %ds%n",
+            baseUrl, config.rate > 0 ? config.rate + " ops/s" : "closed loop", config.concurrency,
+            config.readRatio, config.warmupSeconds, config.durationSeconds);
+
+        drive(config.warmupSeconds);
+        stats.values().forEach(EndpointStats::reset);
+        dropped.set(0);
+        operations.set(0);
+
+        long start = System.nanoTime();
+        drive(config.durationSeconds);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        httpClient.close();
+
+        printReport(elapsedSeconds);
+        writeReport(elapsedSeconds);
+        return checkSlos();
+    }
+
+    private void drive(int seconds) throws InterruptedException {
+        if (seconds == 0) {
+            return;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        if (config.rate > 0) {
+            // Bounded backlog: once it is full, further arrivals are counted as dropped
+            Semaphore backlog = new Semaphore(config.concurrency * 50);
+            long interval = (long) (1e9 / config.rate);
+            for (long scheduled = System.nanoTime(); scheduled < end; scheduled += interval) {
+                LockSupport.parkNanos(scheduled - System.nanoTime());
+                if (!backlog.tryAcquire()) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                long intendedStart = scheduled;
+                workers.execute(() -> {
+                    try {
+                        runOperation(intendedStart);
+                    } finally {
+                        backlog.release();
+                    }
+                });
+            }
+        } else {
+            for (int i = 0; i < config.concurrency; i++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        runOperation(System.nanoTime());
+                    }
+                });
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private void runOperation(long intendedStart) {
+        operations.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long known = Math.min(knownOrderCount.get(), KNOWN_ORDERS);
+        long readOrderId = known > 0 && random.nextDouble() < config.readRatio
+            ? knownOrders.get(random.nextInt((int) known)) : 0;
+        if (readOrderId != 0) {
+            long orderId = readOrderId;
+            if (random.nextBoolean()) {
+                call("read", intendedStart, ClassicRequestBuilder.get(baseUrl + "/api/orders/" + orderId));
+            } else {
+                call("history", intendedStart, ClassicRequestBuilder.get(baseUrl + "/api/orders/" + orderId + "/results/history"));
+            }
+            return;
+        }
+
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("mrn", "LOAD-" + mrns.incrementAndGet());
+        order.put("firstName", "Load");
+        order.put("lastName", "Test");
+        order.put("dateOfBirth", "1980-05-15");
+        order.put("type", TYPES[random.nextInt(TYPES.length)]);
+        Map<?, ?> created = call("create", intendedStart, json(ClassicRequestBuilder.post(baseUrl + "/api/orders"), order));
+        if (created == null) {
+            return;
+        }
+        long orderId = ((Number) created.get("id")).longValue();
+        long studyId = ((Number) created.get("studyId")).longValue();
+
+        Map<?, ?> finalized = call("finalize", System.nanoTime(), json(ClassicRequestBuilder.patch(baseUrl + "/api/studies/" + studyId),
+            Map.of("status", "FINALIZED", "reportText", "Normal findings.", "version", 0)));
+        if (finalized == null) {
+            return;
+        }
+        Map<?, ?> amended = call("amend", System.nanoTime(), json(ClassicRequestBuilder.patch(baseUrl + "/api/studies/" + studyId),
+            Map.of("status", "AMENDED", "reportText", "Amended findings.", "version", finalized.get("version"))));
+        if (amended == null) {
+            return;
+        }
+        call("history", System.nanoTime(), ClassicRequestBuilder.get(baseUrl + "/api/orders/" + orderId + "/results/history"));
+        // A slot can be read before it is filled; readers treat 0 as "no order yet" and write instead
+        knownOrders.set((int) (knownOrderCount.getAndIncrement() % KNOWN_ORDERS), orderId);
+    }
+
+    private ClassicRequestBuilder json(ClassicRequestBuilder builder, Map<String, ?> body) {
+        try {
+            return builder.setEntity(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Returns the parsed JSON object body, or null when the request failed. */
+    private Map<?, ?> call(String endpoint, long startNanos, ClassicRequestBuilder request) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        try {
+            return httpClient.execute(request.build(), response -> {
+                byte[] body = EntityUtils.toByteArray(response.getEntity());
+                boolean success = response.getCode() < 400;
+                endpointStats.record(startNanos, success);
+                if (!success || body.length == 0 || body[0] != '{') {
+                    return null;
+                }
+                return objectMapper.readValue(body, Map.class);
+            });
+        } catch (Exception e) {
+            endpointStats.record(startNanos, false);
+            return null;
+        }
+    }
+
+    private void printReport(double elapsedSeconds) {
+        System.out.printf("%n%-40s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats endpoint : stats.values()) {
+            System.out.printf("%-40s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.description, endpoint.count(), endpoint.errors(), endpoint.count() / elapsedSeconds,
+                endpoint.percentileMillis(50), endpoint.percentileMillis(95), endpoint.percentileMillis(99),
+                endpoint.percentileMillis(99.9), endpoint.maxMillis());
+        }
+        System.out.printf("%noperations %d (%.1f/s), dropped arrivals %d%n",
+            operations.get(), operations.get() / elapsedSeconds, dropped.get());
+    }
+
+    private void writeReport(double elapsedSeconds) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", baseUrl);
+        report.put("durationSeconds", elapsedSeconds);
+        report.put("concurrency", config.concurrency);
+        report.put("rate", config.rate);
+        report.put("readRatio", config.readRatio);
+        report.put("operations", operations.get());
+        report.put("droppedArrivals", dropped.get());
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (EndpointStats endpoint : stats.values()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint.description);
+            row.put("requests", endpoint.count());
+            row.put("errors", endpoint.errors());
+            row.put("throughput", endpoint.count() / elapsedSeconds);
+            row.put("p50", endpoint.percentileMillis(50));
+            row.put("p95", endpoint.percentileMillis(95));
+            row.put("p99", endpoint.percentileMillis(99));
+            row.put("p99.9", endpoint.percentileMillis(99.9));
+            row.put("max", endpoint.maxMillis());
+            endpoints.put(endpoint.name, row);
+        }
+        report.put("endpoints", endpoints);
+        File file = new File(config.report);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        System.out.println("Report written to " + file);
+    }
+
+    private boolean checkSlos() {
+        List<String> violations = new ArrayList<>();
+        for (LoadTestConfig.Slo slo : config.slos) {
+            EndpointStats endpoint = stats.get(slo.endpoint);
+            if (endpoint == null) {
+                violations.add("unknown endpoint in SLO " + slo + " (use one of " + stats.keySet() + ")");
+            } else if (endpoint.percentileMillis(slo.percentile) > slo.maxMillis) {
+                violations.add(String.format("%s: measured %.2f ms", slo, endpoint.percentileMillis(slo.percentile)));
+            }
+        }
+        if (config.maxErrorRatio != null) {
+            long requests = stats.values().stream().mapToLong(EndpointStats::count).sum();
+            long errors = stats.values().stream().mapToLong(EndpointStats::errors).sum();
+            double ratio = requests == 0 ? 1.0 : (double) errors / requests;
+            if (ratio > config.maxErrorRatio) {
+                violations.add(String.format("error ratio %.4f exceeds %s", ratio, config.maxErrorRatio));
+            }
+        }
+        if (violations.isEmpty()) {
+            System.out.println(config.slos.isEmpty() && config.maxErrorRatio == null ? "No SLOs given" : "All SLOs met");
+            return true;
+        }
+        violations.forEach(violation -> System.out.println("SLO VIOLATED: " + violation));
+        return false;
+    }
+}
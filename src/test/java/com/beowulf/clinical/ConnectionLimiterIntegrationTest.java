@@ -0,0 +1,76 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.config.ConnectionLimitingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:limiterdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.datasource.hikari.maximum-pool-size=4",
+    "clinical.datasource.limiter.enabled=true",
+    "clinical.datasource.limiter.acquire-timeout-ms=200"
+})
+class ConnectionLimiterIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void limiterIsSizedToThePoolAndReleasesOnClose() throws Exception {
+        ConnectionLimitingDataSource limiter = dataSource.unwrap(ConnectionLimitingDataSource.class);
+        assertThat(limiter.getMaxConcurrent()).isEqualTo(4);
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                held.add(dataSource.getConnection());
+            }
+            assertThat(limiter.getAvailablePermits()).isZero();
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+            held.get(0).close();
+            held.get(0).close();
+            assertThat(limiter.getAvailablePermits()).isEqualTo(1);
+            held.set(0, dataSource.getConnection());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertThat(limiter.getAvailablePermits()).isEqualTo(4);
+    }
+
+    @Test
+    void exhaustedLimiterAnswersServiceUnavailable() throws Exception {
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                held.add(dataSource.getConnection());
+            }
+            ResponseEntity<Map> response = restTemplate.getForEntity("/api/orders", Map.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertThat(restTemplate.getForEntity("/api/orders", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
@@ -0,0 +1,83 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.config.ConnectionLimitingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** With a replica, each pool gets a limiter of its own size and the router in front of them gets none. */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:limiterprimarydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.datasource.hikari.maximum-pool-size=4",
+    "clinical.datasource.replica.url=" + ConnectionLimiterReplicaIntegrationTest.REPLICA_URL,
+    "clinical.datasource.replica.hikari.maximum-pool-size=2",
+    "clinical.datasource.replica.hikari.connection-timeout=250",
+    "clinical.datasource.limiter.enabled=true",
+    "clinical.datasource.limiter.acquire-timeout-ms=200"
+})
+class ConnectionLimiterReplicaIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:limiterreplicadb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    static {
+        Flyway.configure()
+            .dataSource(REPLICA_URL, "sa", "")
+            .placeholders(Map.of("id_allocation_size", "50"))
+            .load()
+            .migrate();
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void eachPoolIsLimitedToItsOwnSize() throws Exception {
+        assertThat(dataSource).isNotInstanceOf(ConnectionLimitingDataSource.class);
+        assertThat(primary).isInstanceOf(ConnectionLimitingDataSource.class);
+        assertThat(replica).isInstanceOf(ConnectionLimitingDataSource.class);
+        assertThat(((ConnectionLimitingDataSource) primary).getMaxConcurrent()).isEqualTo(4);
+        assertThat(((ConnectionLimitingDataSource) replica).getMaxConcurrent()).isEqualTo(2);
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            held.add(replica.getConnection());
+            held.add(replica.getConnection());
+            assertThat(meterRegistry.get("clinical.datasource.limiter.available").tag("pool", "replica").gauge().value())
+                .isZero();
+            assertThatThrownBy(replica::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+            // A full replica leaves the primary's permits alone
+            held.add(primary.getConnection());
+            assertThat(meterRegistry.get("clinical.datasource.limiter.available").tag("pool", "primary").gauge().value())
+                .isEqualTo(3);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertThat(((ConnectionLimitingDataSource) replica).getAvailablePermits()).isEqualTo(2);
+    }
+}
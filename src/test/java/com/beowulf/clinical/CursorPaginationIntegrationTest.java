@@ -0,0 +1,122 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.PatientRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.PatientService;
+import com.beowulf.clinical.service.StudyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:cursorpagingdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class CursorPaginationIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void patientPagesFollowTheCursorWithoutRepeats() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PatientRequest request = new PatientRequest();
+            request.setMrn("PAGE-P-" + i);
+            request.setFirstName("Page");
+            request.setLastName("Patient" + i);
+            request.setDateOfBirth("1970-01-01");
+            created.add(patientService.createPatient(request).getId());
+        }
+
+        List<Long> seen = allPages("/api/patients?limit=2", created.get(0) - 1);
+        assertEquals(created, seen.stream().filter(created::contains).toList());
+        assertEquals(seen.stream().distinct().sorted().toList(), seen);
+    }
+
+    @Test
+    public void resultHistoryPagesByVersion() {
+        Long orderId = orderService.createOrder(new OrderRequest("PAGE-H-1", "Page", "History", "1970-01-01", "CT")).getId();
+        Study study = update(studyService.getStudyByOrderId(orderId), "FINALIZED", "Version 1");
+        for (int version = 2; version <= 4; version++) {
+            study = update(study, "AMENDED", "Version " + version);
+        }
+
+        String url = "/api/orders/" + orderId + "/results/history?limit=3";
+        ResponseEntity<Map[]> first = restTemplate.getForEntity(url, Map[].class);
+        assertEquals(List.of(1, 2, 3), versions(first));
+        assertEquals("3", first.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+
+        ResponseEntity<Map[]> second = restTemplate.getForEntity(url + "&after=3", Map[].class);
+        assertEquals(List.of(4), versions(second));
+        assertNull(second.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void rejectsCursorsOutOfRange() {
+        Long orderId = orderService.createOrder(new OrderRequest("PAGE-H-2", "Page", "History", "1970-01-01", "CT")).getId();
+        for (String url : List.of("/api/orders/" + orderId + "/results/history?after=2147483648",
+                                  "/api/orders/" + orderId + "/results/history?after=-1",
+                                  "/api/patients?after=-1", "/api/orders?after=-1")) {
+            assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(url, String.class).getStatusCode(), url);
+        }
+    }
+
+    private List<Long> allPages(String url, long after) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = Long.toString(after);
+        do {
+            ResponseEntity<Map[]> page = restTemplate.getForEntity(url + "&after=" + cursor, Map[].class);
+            assertEquals(HttpStatus.OK, page.getStatusCode());
+            assertTrue(page.getBody().length <= 2);
+            for (Map<?, ?> row : page.getBody()) {
+                seen.add(((Number) row.get("id")).longValue());
+            }
+            cursor = page.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return seen;
+    }
+
+    private static List<Integer> versions(ResponseEntity<Map[]> response) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Integer> versions = new ArrayList<>();
+        for (Map<?, ?> row : response.getBody()) {
+            versions.add(((Number) row.get("version")).intValue());
+        }
+        return versions;
+    }
+
+    private Study update(Study study, String status, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+}
@@ -0,0 +1,83 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.controller.OrderController;
+import com.beowulf.clinical.service.PatientPrefixIndex;
+import com.beowulf.clinical.service.ReportCounterService;
+import com.beowulf.clinical.service.ResultOutboxService;
+import com.beowulf.clinical.service.VolumeRollupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:faststartdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("fast-start")
+public class FastStartIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private ScheduledTaskHolder scheduledTasks;
+
+    @Test
+    public void scheduledJobsAndPersistenceStartEagerly() {
+        Set<Class<?>> scheduled = scheduledTasks.getScheduledTasks().stream()
+            .map(task -> task.getTask().getRunnable().toString())
+            .map(FastStartIntegrationTest::declaringClass)
+            .collect(Collectors.toSet());
+        assertTrue(scheduled.containsAll(Set.of(PatientPrefixIndex.class, ReportCounterService.class,
+            ResultOutboxService.class, VolumeRollupService.class)), scheduled.toString());
+        assertTrue(created(EntityManagerFactory.class));
+    }
+
+    @Test
+    public void apiDocsAndControllersAreCreatedOnFirstUse() {
+        assertFalse(created(OpenApiWebMvcResource.class));
+        assertFalse(created(OrderController.class));
+
+        ResponseEntity<Map> health = restTemplate.getForEntity("/actuator/health", Map.class);
+        assertEquals(HttpStatus.OK, health.getStatusCode());
+        assertEquals("UP", health.getBody().get("status"));
+        assertFalse(created(OrderController.class));
+
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/orders", String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api-docs", String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/swagger-ui/index.html", String.class).getStatusCode());
+        assertTrue(created(OrderController.class));
+        assertTrue(created(OpenApiWebMvcResource.class));
+    }
+
+    private boolean created(Class<?> type) {
+        String[] names = beanFactory.getBeanNamesForType(type, true, false);
+        assertTrue(names.length > 0, "no " + type.getSimpleName() + " bean");
+        return Arrays.stream(names).map(name -> name.startsWith("&") ? name.substring(1) : name)
+            .allMatch(beanFactory::containsSingleton);
+    }
+
+    /** A scheduled method's runnable prints as {@code com.example.Service.method}. */
+    private static Class<?> declaringClass(String runnable) {
+        try {
+            return Class.forName(runnable.substring(0, runnable.lastIndexOf('.')));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(runnable, e);
+        }
+    }
+}
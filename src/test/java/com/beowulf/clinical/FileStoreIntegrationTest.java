@@ -0,0 +1,163 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.service.FileStoreService;
+import com.beowulf.clinical.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "clinical.storage.backup.keep=2",
+        "clinical.storage.compact.interval-ms=3600000",
+        "clinical.storage.compact.min-fill-rate=90"
+    })
+@ActiveProfiles("durable")
+public class FileStoreIntegrationTest {
+
+    private static final Path STORAGE_DIR;
+
+    static {
+        try {
+            STORAGE_DIR = Files.createTempDirectory("filestore");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("clinical.storage.dir", STORAGE_DIR::toString);
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private FileStoreService fileStoreService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void backupIsConsistentWhileOrdersAreBeingCreated() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger created = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            while (writing.get()) {
+                orderService.createOrder(new OrderRequest("FS-" + created.get() % 50, "File", "Store", "1990-02-02", "CT"));
+                created.incrementAndGet();
+            }
+        });
+        writer.start();
+        try {
+            while (created.get() < 50) {
+                Thread.sleep(10);
+            }
+            int before = count("SELECT COUNT(*) FROM orders");
+            ResponseEntity<Map> response = restTemplate.postForEntity("/actuator/backup", null, Map.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            int during = created.get();
+            Path backup = Path.of((String) response.getBody().get("file"));
+            assertEquals(Files.size(backup), ((Number) response.getBody().get("sizeBytes")).longValue());
+
+            Path restored = Files.createTempDirectory(STORAGE_DIR, "restored");
+            unzip(backup, restored);
+            try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + restored.resolve("clinicaldb"), "sa", "");
+                 Statement statement = connection.createStatement()) {
+                int orders = count(statement, "SELECT COUNT(*) FROM orders");
+                assertTrue(orders >= before, orders + " orders in the backup, " + before + " before it started");
+                assertTrue(orders > 0);
+                // Every order is written together with its study, so a consistent copy has no order without one
+                assertEquals(0, count(statement,
+                    "SELECT COUNT(*) FROM orders o WHERE NOT EXISTS (SELECT 1 FROM study s WHERE s.order_id = o.id)"));
+            }
+            while (created.get() < during + 20) {
+                Thread.sleep(10);
+            }
+        } finally {
+            writing.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheNewestBackups() throws IOException {
+        String first = fileStoreService.backup().getFile();
+        String second = fileStoreService.backup().getFile();
+        String third = fileStoreService.backup().getFile();
+        try (Stream<Path> files = Files.list(Path.of(first).getParent())) {
+            assertEquals(List.of(second, third), files.map(Path::toString).sorted().toList());
+        }
+        assertTrue(meterRegistry.get("clinical.storage.backup").timer().count() >= 3);
+    }
+
+    @Test
+    public void compactionShrinksTheFileWhileItIsOpen() {
+        // Otherwise H2 counts the chunks freed below as live for another 45 seconds
+        jdbcTemplate.execute("SET RETENTION_TIME 0");
+        jdbcTemplate.update("INSERT INTO patient (id, mrn, first_name, last_name, date_of_birth) " +
+            "SELECT NEXT VALUE FOR patient_seq, 'FILL-' || X, 'Fill', 'Er', DATE '1970-01-01' FROM SYSTEM_RANGE(1, 50000)");
+        jdbcTemplate.update("DELETE FROM patient WHERE mrn LIKE 'FILL-%'");
+        jdbcTemplate.execute("CHECKPOINT");
+        double size = meterRegistry.get("clinical.storage.size").gauge().value();
+        assertTrue(meterRegistry.get("clinical.storage.fill-rate").gauge().value() < 90);
+        long compactions = meterRegistry.get("clinical.storage.compaction").timer().count();
+
+        fileStoreService.compact();
+        assertTrue(meterRegistry.get("clinical.storage.size").gauge().value() < size / 2);
+        assertEquals(compactions + 1, meterRegistry.get("clinical.storage.compaction").timer().count());
+        assertEquals(0, count("SELECT COUNT(*) FROM patient WHERE mrn LIKE 'FILL-%'"));
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private static int count(Statement statement, String sql) throws Exception {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void unzip(Path zip, Path dir) throws IOException {
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                Files.copy(in, dir.resolve(entry.getName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.PatientRequest;
+import com.beowulf.clinical.entity.Patient;
+import com.beowulf.clinical.service.PatientService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=" + IdAllocationIntegrationTest.URL,
+    "clinical.ids.allocation-size=10"
+})
+public class IdAllocationIntegrationTest {
+
+    static final String URL = "jdbc:h2:mem:idallocationdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    static {
+        // An existing database whose sequences were created with the default size
+        Flyway.configure()
+            .dataSource(URL, "sa", "")
+            .placeholders(Map.of("id_allocation_size", "50"))
+            .load()
+            .migrate();
+    }
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void configuredAllocationSizeReachesSequencesAndHibernate() {
+        for (String sequence : List.of("PATIENT_SEQ", "ORDERS_SEQ", "STUDY_SEQ", "ORDER_RESULT_SEQ")) {
+            assertEquals(10, jdbcTemplate.queryForObject(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", Long.class, sequence));
+        }
+
+        long nextValue = baseValue();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            PatientRequest request = new PatientRequest();
+            request.setMrn("IDS-" + i);
+            request.setFirstName("Ida");
+            request.setLastName("Lloc");
+            request.setDateOfBirth("1990-01-01");
+            Patient patient = patientService.createPatient(request);
+            ids.add(patient.getId());
+        }
+
+        // Eleven ids take two blocks of ten, each starting where the sequence was
+        assertEquals(nextValue + 20, baseValue());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(nextValue + i, ids.get(i));
+        }
+    }
+
+    private long baseValue() {
+        return jdbcTemplate.queryForObject(
+            "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'PATIENT_SEQ'", Long.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.beowulf.clinical;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:metricsdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@AutoConfigureObservability(tracing = false)
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void prometheusEndpointExposesWorkflowMetrics() {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("mrn", "METRICS-1");
+        order.put("firstName", "Meta");
+        order.put("lastName", "Ric");
+        order.put("dateOfBirth", "1980-05-15");
+        order.put("type", "CT");
+        Map created = restTemplate.postForEntity("/api/orders", order, Map.class).getBody();
+        Long studyId = ((Number) created.get("studyId")).longValue();
+
+        assertEquals(HttpStatus.OK, patch(studyId, Map.of("status", "FINALIZED", "reportText", "Normal", "version", 0)));
+        assertEquals(HttpStatus.CONFLICT, patch(studyId, Map.of("status", "AMENDED", "reportText", "Stale", "version", 0)));
+        assertEquals(HttpStatus.BAD_REQUEST, patch(studyId, Map.of("status", "CANCELED", "version", 1)));
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+
+        assertTrue(metrics.contains("clinical_service_seconds_bucket{class=\"com.beowulf.clinical.service.PatientService\","
+            + "exception=\"none\",method=\"findOrCreatePatient\""), "service timer histogram");
+        assertTrue(metrics.contains("clinical_study_transitions_total{from=\"ORDERED\",to=\"FINALIZED\",} 1.0"));
+        assertTrue(metrics.contains("clinical_conflicts_total{exception=\"ConflictException\",uri=\"/api/studies/{id}\",} 1.0"));
+        assertTrue(metrics.contains("clinical_business_rule_rejections_total{uri=\"/api/studies/{id}\",} 1.0"));
+        assertTrue(metrics.contains("hibernate_request_statements_count{method=\"POST\",uri=\"/api/orders\",}"));
+        assertTrue(metrics.contains("hibernate_request_flushes_sum{method=\"PATCH\",uri=\"/api/studies/{id}\",}"));
+        assertTrue(metrics.contains("clinical_json_write_seconds_count{type=\"LinkedHashMap\",}"));
+        assertTrue(metrics.contains("hibernate_query_executions_total"));
+        assertTrue(metrics.contains("hikaricp_connections_active"));
+    }
+
+    @Test
+    public void streamedExportCountsTheStatementsOfItsAsyncThread() {
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/export/orders.ndjson", String.class).getStatusCode());
+
+        String metrics = restTemplate.getForEntity("/actuator/prometheus", String.class).getBody();
+        String series = "{method=\"GET\",uri=\"/api/export/orders.ndjson\",} ";
+        // Recorded once, by the dispatch that ends the request, and including the export query
+        assertEquals(1.0, value(metrics, "hibernate_request_statements_count" + series));
+        assertTrue(value(metrics, "hibernate_request_statements_sum" + series) >= 1.0, metrics);
+    }
+
+    private static double value(String metrics, String series) {
+        int start = metrics.indexOf(series);
+        assertTrue(start >= 0, series + " missing");
+        int end = metrics.indexOf('\n', start);
+        return Double.parseDouble(metrics.substring(start + series.length(), end).trim());
+    }
+
+    private HttpStatusCode patch(Long studyId, Map<String, Object> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.exchange("/api/studies/" + studyId, HttpMethod.PATCH, new HttpEntity<>(body, headers), Map.class)
+            .getStatusCode();
+    }
+}
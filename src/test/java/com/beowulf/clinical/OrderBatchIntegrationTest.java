@@ -0,0 +1,82 @@
+package com.beowulf.clinical;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:orderbatchdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "clinical.orders.batch.chunk-size=3"
+})
+public class OrderBatchIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void createsValidItemsAndReportsPerItemErrors() {
+        ResponseEntity<Map> existing = restTemplate.postForEntity("/api/orders",
+            order("BATCH-1", "Ann", "Lee", "1975-03-01", "XRAY"), Map.class);
+        assertEquals(HttpStatus.CREATED, existing.getStatusCode());
+        Long existingPatientId = ((Number) existing.getBody().get("patientId")).longValue();
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        batch.add(order("BATCH-1", "Ann", "Lee", "1975-03-01", "ECHO"));
+        batch.add(order("BATCH-1", "Anne", "Lee", "1975-03-01", "ECHO"));
+        batch.add(order("BATCH-2", "Bob", "Kay", "not-a-date", "ECHO"));
+        batch.add(order("BATCH-3", "Cy", "May", "1990-07-07", "SONAR"));
+        batch.add(order("BATCH-4", "Dee", "Fox", "1988-02-02", "MRI"));
+        batch.add(order("BATCH-4", "Dee", "Fox", "1988-02-02", "CT"));
+        batch.add(order("", "Eve", "Ng", "1988-02-02", "CT"));
+
+        ResponseEntity<Map[]> response = restTemplate.postForEntity("/api/orders/batch", batch, Map[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map[] results = response.getBody();
+        assertEquals(batch.size(), results.length);
+
+        assertEquals("CREATED", results[0].get("status"));
+        assertEquals(existingPatientId.intValue(), ((Number) results[0].get("patientId")).intValue());
+        assertEquals("CONFLICT", results[1].get("status"));
+        assertEquals(409, ((Number) results[1].get("errorStatus")).intValue());
+        assertEquals("INVALID", results[2].get("status"));
+        assertEquals("INVALID", results[3].get("status"));
+        assertTrue(results[3].get("message").toString().contains("Invalid order type"));
+        assertEquals("CREATED", results[4].get("status"));
+        assertEquals("CREATED", results[5].get("status"));
+        assertEquals(results[4].get("patientId"), results[5].get("patientId"));
+        assertEquals("INVALID", results[6].get("status"));
+
+        for (int i : new int[] {0, 4, 5}) {
+            Long orderId = ((Number) results[i].get("orderId")).longValue();
+            ResponseEntity<Map> order = restTemplate.getForEntity("/api/orders/" + orderId, Map.class);
+            assertEquals(HttpStatus.OK, order.getStatusCode());
+            Map study = (Map) order.getBody().get("study");
+            assertEquals(results[i].get("studyId"), study.get("id"));
+            assertEquals("ORDERED", study.get("status"));
+        }
+    }
+
+    private Map<String, Object> order(String mrn, String firstName, String lastName, String dob, String type) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("mrn", mrn);
+        request.put("firstName", firstName);
+        request.put("lastName", lastName);
+        request.put("dateOfBirth", dob);
+        request.put("type", type);
+        return request;
+    }
+}
@@ -0,0 +1,133 @@
+package com.beowulf.clinical;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a file-backed database so the heap only has to hold what the export itself retains. The build
+ * runs this class in its own JVM (surefire execution {@code export-heap}) with {@code -Xmx96m} and
+ * 200,000 rows, more than fit in that heap at once, so an export that buffers its rows fails. The
+ * application-wide async timeout is cut to one second, so the export also has to run on its own timeout.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.mvc.async.request-timeout=1000")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrderExportIntegrationTest {
+
+    private static final int ROWS = Integer.getInteger("export.rows", 20_000);
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("exportdb");
+        // Runs after the context has been closed at the end of the class, so the database files are released
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteRecursively(dir)));
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + dir.resolve("clinicaldb") + ";DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Best effort; the directory is under java.io.tmpdir
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO patient (mrn, first_name, last_name, date_of_birth) " +
+            "VALUES ('EXPORT-1', 'Export', 'Patient', DATE '1970-01-01')");
+        Long patientId = jdbcTemplate.queryForObject("SELECT id FROM patient WHERE mrn = 'EXPORT-1'", Long.class);
+        jdbcTemplate.update("INSERT INTO orders (patient_id, mrn, first_name, last_name, date_of_birth, type) " +
+            "SELECT ?, 'EXPORT-1', 'Export', 'Patient', DATE '1970-01-01', 'ECHO' FROM SYSTEM_RANGE(1, ?)",
+            patientId, ROWS);
+        jdbcTemplate.update("INSERT INTO study (order_id, report_text, status, version) " +
+            "SELECT id, CASE WHEN MOD(id, 2) = 0 THEN 'Signed report ' || id END, " +
+            "CASE WHEN MOD(id, 2) = 0 THEN 'FINALIZED' ELSE 'ORDERED' END, 0 FROM orders");
+        jdbcTemplate.update("INSERT INTO order_result (order_id, version, result_type, report, signed_on, status, is_current) " +
+            "SELECT order_id, 1, 'DIAGNOSTIC_REPORT', report_text, CURRENT_TIMESTAMP, 'FINALIZED', TRUE " +
+            "FROM study WHERE status = 'FINALIZED'");
+        jdbcTemplate.update("UPDATE study s SET current_result_id = (SELECT r.id FROM order_result r " +
+            "WHERE r.order_id = s.order_id) WHERE s.status = 'FINALIZED'");
+    }
+
+    @Test
+    public void streamsEveryOrderAsOneJsonLine() throws Exception {
+        HttpResponse<InputStream> response = get("/api/export/orders.ndjson");
+        assertEquals(200, response.statusCode());
+        assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(""));
+
+        assertEquals(ROWS, countLines(response.body(), true));
+    }
+
+    @Test
+    public void gzipExportContainsSameRows() throws Exception {
+        HttpResponse<InputStream> response = get("/api/export/orders.ndjson?gzip=true");
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(""));
+
+        assertEquals(ROWS, countLines(new GZIPInputStream(response.body()), false));
+    }
+
+    private HttpResponse<InputStream> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private long countLines(InputStream body, boolean verifyRows) throws Exception {
+        long count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (verifyRows && count < 2) {
+                    Map row = objectMapper.readValue(line, Map.class);
+                    assertEquals("EXPORT-1", row.get("mrn"));
+                    assertNotNull(row.get("studyId"));
+                    if ("FINALIZED".equals(row.get("studyStatus"))) {
+                        assertEquals(1, ((Number) row.get("resultVersion")).intValue());
+                        assertNotNull(row.get("report"));
+                    } else {
+                        assertNull(row.get("resultId"));
+                    }
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+}
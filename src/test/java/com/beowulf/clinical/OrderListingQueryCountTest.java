@@ -0,0 +1,110 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:orderlistingdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class OrderListingQueryCountTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void listingStatementCountDoesNotGrowWithRows() {
+        Long patientId = createOrders("LIST-A", 5, "ECHO").getPatientId();
+        String byPatient = "/api/orders?patientId=" + patientId;
+        assertEquals(1, restTemplate.getForEntity(byPatient, Map[].class).getBody().length);
+        long smallCount = statementsFor("/api/orders");
+        long smallPatientCount = statementsFor(byPatient);
+        long smallTypeCount = statementsFor("/api/orders?type=ECHO");
+        long smallBothCount = statementsFor(byPatient + "&type=ECHO");
+
+        createOrders("LIST-B", 50, "ECHO");
+        // The same patient again, so the patient's own listing grows too
+        for (int i = 0; i < 10; i++) {
+            orderService.createOrder(new OrderRequest("LIST-A-0", "Test", "Patient", "1970-01-01", "ECHO"));
+        }
+        assertEquals(11, restTemplate.getForEntity(byPatient, Map[].class).getBody().length);
+        assertEquals(smallCount, statementsFor("/api/orders"));
+        assertEquals(smallPatientCount, statementsFor(byPatient));
+        assertEquals(smallTypeCount, statementsFor("/api/orders?type=ECHO"));
+        assertEquals(smallBothCount, statementsFor(byPatient + "&type=ECHO"));
+        assertEquals(1, smallCount);
+    }
+
+    @Test
+    public void listingIncludesStudyIdAndStatus() {
+        createOrders("LIST-C", 1, "MRI");
+
+        ResponseEntity<Map[]> response = restTemplate.getForEntity("/api/orders?type=MRI", Map[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map order = response.getBody()[0];
+        assertNotNull(order.get("studyId"));
+        assertEquals("ORDERED", order.get("studyStatus"));
+    }
+
+    @Test
+    public void listingPagesWithKeysetCursor() {
+        createOrders("LIST-D", 5, "CT");
+
+        ResponseEntity<Map[]> first = restTemplate.getForEntity("/api/orders?type=CT&limit=3", Map[].class);
+        assertEquals(3, first.getBody().length);
+        String cursor = first.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER);
+        assertEquals(first.getBody()[2].get("id").toString(), cursor);
+
+        ResponseEntity<Map[]> second = restTemplate.getForEntity("/api/orders?type=CT&limit=3&after=" + cursor, Map[].class);
+        assertEquals(2, second.getBody().length);
+        assertNull(second.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER));
+        assertTrue(((Number) second.getBody()[0].get("id")).longValue() > Long.parseLong(cursor));
+    }
+
+    /** Creates one order for each of {@code count} new patients and returns the first order. */
+    private Order createOrders(String mrnPrefix, int count, String type) {
+        Order first = null;
+        for (int i = 0; i < count; i++) {
+            Order order = orderService.createOrder(new OrderRequest(mrnPrefix + "-" + i, "Test", "Patient", "1970-01-01", type));
+            if (first == null) {
+                first = order;
+            }
+        }
+        return first;
+    }
+
+    private long statementsFor(String url) {
+        statistics.clear();
+        ResponseEntity<Map[]> response = restTemplate.getForEntity(url, Map[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return statistics.getPrepareStatementCount();
+    }
+}
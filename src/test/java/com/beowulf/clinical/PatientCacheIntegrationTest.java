@@ -0,0 +1,116 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.config.CacheConfig;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.PatientUpdateRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.exception.ConflictException;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.PatientService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:patientcachedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class PatientCacheIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cache cache;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        cache = cacheManager.getCache(CacheConfig.PATIENTS_BY_MRN);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void repeatOrderSkipsPatientLookup() {
+        Order first = orderService.createOrder(new OrderRequest("CACHE-1", "Ada", "Byron", "1980-01-01", "ECHO"));
+        assertNotNull(cache.get("CACHE-1"));
+
+        statistics.clear();
+        Order second = orderService.createOrder(new OrderRequest("CACHE-1", "Ada", "Byron", "1980-01-01", "LAB"));
+        assertEquals(first.getPatientId(), second.getPatientId());
+        assertEquals(0, statistics.getQueryExecutionCount());
+
+        assertThrows(ConflictException.class, () ->
+            orderService.createOrder(new OrderRequest("CACHE-1", "Ada", "Lovelace", "1980-01-01", "LAB")));
+    }
+
+    @Test
+    public void rolledBackCreateIsNotCached() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            patientService.findOrCreatePatient("CACHE-2", "Bo", "Diddley", LocalDate.of(1970, 2, 2));
+            status.setRollbackOnly();
+        });
+
+        assertNull(cache.get("CACHE-2"));
+        assertTrue(patientService.findByMrn("CACHE-2").isEmpty());
+    }
+
+    @Test
+    public void updateEvictsCachedPatient() {
+        Order order = orderService.createOrder(new OrderRequest("CACHE-3", "Cy", "Twombly", "1960-03-03", "CT"));
+        assertNotNull(cache.get("CACHE-3"));
+
+        PatientUpdateRequest update = new PatientUpdateRequest();
+        update.setFirstName("Cyrus");
+        update.setLastName("Twombly");
+        update.setDateOfBirth("1960-03-03");
+        patientService.updatePatient(order.getPatientId(), update);
+        assertNull(cache.get("CACHE-3"));
+
+        Order renamed = orderService.createOrder(new OrderRequest("CACHE-3", "Cyrus", "Twombly", "1960-03-03", "CT"));
+        assertEquals(order.getPatientId(), renamed.getPatientId());
+    }
+
+    @Test
+    public void readThatRacesAnUpdateDoesNotCacheTheOldPatient() {
+        Order order = orderService.createOrder(new OrderRequest("CACHE-4", "Di", "Arbus", "1923-03-14", "CT"));
+        cache.evict("CACHE-4");
+
+        PatientUpdateRequest update = new PatientUpdateRequest();
+        update.setFirstName("Diane");
+        update.setLastName("Arbus");
+        update.setDateOfBirth("1923-03-14");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Reads the old name, then an update commits and evicts before this transaction does
+            patientService.findOrCreatePatient("CACHE-4", "Di", "Arbus", LocalDate.of(1923, 3, 14));
+            CompletableFuture.runAsync(() -> patientService.updatePatient(order.getPatientId(), update)).join();
+        });
+
+        assertNull(cache.get("CACHE-4"));
+        Order renamed = orderService.createOrder(new OrderRequest("CACHE-4", "Diane", "Arbus", "1923-03-14", "CT"));
+        assertEquals(order.getPatientId(), renamed.getPatientId());
+    }
+}
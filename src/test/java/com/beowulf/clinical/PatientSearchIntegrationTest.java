@@ -0,0 +1,141 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.service.OrderBatchService;
+import com.beowulf.clinical.service.PatientPrefixIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:patientsearchdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class PatientSearchIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PatientPrefixIndex prefixIndex;
+
+    @Autowired
+    private OrderBatchService orderBatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() throws InterruptedException {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        // Loaded in the background once the application is ready
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!prefixIndex.isLoaded()) {
+            assertTrue(System.nanoTime() < deadline, "patient search index not loaded");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void matchesMrnThenLastThenFirstNamePrefixesIgnoringCase() {
+        Long byMrn = createPatient("SMI-100", "Ada", "Jones");
+        Long byLast = createPatient("TA-101", "Grace", "Smith");
+        Long byFirst = createPatient("TA-102", "Smitty", "Brown");
+        createPatient("TA-103", "Alan", "Turing");
+
+        assertEquals(List.of(byMrn, byLast, byFirst), ids(search("q=smi")));
+        assertEquals(List.of(byMrn, byLast), ids(search("q=smi&limit=2")));
+        assertEquals(List.of(byLast), ids(search("q=SMITH")));
+        assertEquals(List.of(byFirst), ids(search("q=smitt")));
+        assertEquals(List.of(), ids(search("q=zzz")));
+    }
+
+    @Test
+    public void followsRenamesAndSurvivesCompaction() {
+        Long id = createPatient("TA-200", "Rosalind", "Franklyn");
+        assertEquals(List.of(id), ids(search("q=franklyn")));
+
+        Map<String, Object> update = Map.of("firstName", "Rosalind", "lastName", "Franklin", "dateOfBirth", "1920-07-25");
+        assertEquals(HttpStatus.OK, restTemplate.exchange("/api/patients/" + id, HttpMethod.PUT, new HttpEntity<>(update), Map.class)
+            .getStatusCode());
+        assertEquals(List.of(), ids(search("q=franklyn")));
+        assertEquals(List.of(id), ids(search("q=franklin")));
+
+        prefixIndex.compact();
+        assertEquals(List.of(), ids(search("q=franklyn")));
+        assertEquals(List.of(id), ids(search("q=franklin")));
+        assertEquals(List.of(id), ids(search("q=rosa")));
+    }
+
+    @Test
+    public void indexesPatientsFromOrdersBatchesAndTheDatabase() {
+        orderBatchService.createOrders(List.of(new OrderRequest("TA-300", "Barbara", "McClintock", "1902-06-16", "LAB")));
+        assertEquals(1, ids(search("q=mcclint")).size());
+
+        jdbcTemplate.update("INSERT INTO patient (id, mrn, first_name, last_name, date_of_birth) " +
+            "VALUES (NEXT VALUE FOR patient_seq, 'TA-301', 'Dorothy', 'Hodgkin', DATE '1910-05-12')");
+        assertEquals(0, ids(search("q=hodgkin")).size());
+        prefixIndex.rebuild();
+        assertEquals(1, ids(search("q=hodgkin")).size());
+        assertEquals(1, ids(search("q=mcclint")).size());
+
+        assertTrue(meterRegistry.get("clinical.patients.search.memory").gauge().value() > 0);
+        assertTrue(meterRegistry.get("clinical.patients.search.entries").gauge().value() >= 6);
+    }
+
+    @Test
+    public void answersFromTheDatabaseUntilLoaded() {
+        Long byMrn = createPatient("UL-400", "Lise", "Meitner");
+        Long byLast = createPatient("TA-401", "Ada", "Ulam");
+        Long byFirst = createPatient("TA-402", "Ulla", "Hahn");
+
+        PatientPrefixIndex unloaded = new PatientPrefixIndex(jdbcTemplate);
+        assertFalse(unloaded.isLoaded());
+        assertEquals(List.of(byMrn, byLast, byFirst), unloaded.search("UL", 10));
+        assertEquals(List.of(byMrn, byLast), unloaded.search("ul", 2));
+        for (String prefix : List.of("ul", "ul-4", " ULAM ", "u_", "u%", "zzz")) {
+            assertEquals(prefixIndex.search(prefix, 10), unloaded.search(prefix, 10), prefix);
+        }
+    }
+
+    @Test
+    public void rejectsBlankQueriesAndOutOfRangeLimits() {
+        for (String query : List.of("q=", "limit=5", "q=ab&limit=0", "q=ab&limit=51")) {
+            assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity("/api/patients/search?" + query, String.class)
+                .getStatusCode(), query);
+        }
+    }
+
+    private Long createPatient(String mrn, String firstName, String lastName) {
+        Map<String, Object> body = Map.of("mrn", mrn, "firstName", firstName, "lastName", lastName, "dateOfBirth", "1970-01-01");
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/patients", body, Map.class);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        return ((Number) response.getBody().get("id")).longValue();
+    }
+
+    private ResponseEntity<List<Map<String, Object>>> search(String query) {
+        return restTemplate.exchange("/api/patients/search?" + query, HttpMethod.GET, null,
+            new ParameterizedTypeReference<>() {});
+    }
+
+    private static List<Long> ids(ResponseEntity<List<Map<String, Object>>> response) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().stream().map(patient -> ((Number) patient.get("id")).longValue()).toList();
+    }
+}
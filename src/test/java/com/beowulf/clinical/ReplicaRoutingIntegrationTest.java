@@ -0,0 +1,129 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.config.ReadWriteRoutingDataSource;
+import com.beowulf.clinical.config.ReadYourWritesFilter;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.entity.Patient;
+import com.beowulf.clinical.service.PatientService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and its replica. Nothing replicates between them,
+ * so a read shows which one served it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+    "clinical.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+    "clinical.datasource.replica.pin-seconds=30"
+})
+public class ReplicaRoutingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routingprimarydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    static final String REPLICA_URL = "jdbc:h2:mem:routingreplicadb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    private static final long REPLICA_ONLY_ID = 1_000_000L;
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    static {
+        Flyway.configure()
+            .dataSource(REPLICA_URL, "sa", "")
+            .placeholders(Map.of("id_allocation_size", "50"))
+            .load()
+            .migrate();
+        replica.update("INSERT INTO patient (id, mrn, first_name, last_name, date_of_birth) VALUES (?, ?, ?, ?, ?)",
+            REPLICA_ONLY_ID, "REPLICA-ONLY", "Rita", "Replica", "1970-01-01");
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Test
+    public void readsGoToTheReplicaUntilTheClientWrites() throws Exception {
+        ReadWriteRoutingDataSource router = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        long replicaReads = router.getReplicaReads();
+        long pinnedReads = router.getPinnedReads();
+
+        assertEquals(HttpStatus.OK, get("/api/patients/" + REPLICA_ONLY_ID, null).getStatusCode());
+        assertEquals(replicaReads + 1, router.getReplicaReads());
+
+        ResponseEntity<Patient> created = restTemplate.postForEntity("/api/patients",
+            Map.of("mrn", "ROUTING-1", "firstName", "Pia", "lastName", "Primary", "dateOfBirth", "1980-01-01"), Patient.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        String pin = created.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertNotNull(pin);
+        assertTrue(pin.startsWith(ReadYourWritesFilter.PIN_COOKIE + "="), pin);
+        String cookie = pin.substring(0, pin.indexOf(';'));
+
+        String patientUri = "/api/patients/" + created.getBody().getId();
+        assertEquals(HttpStatus.NOT_FOUND, get(patientUri, null).getStatusCode());
+        assertEquals(HttpStatus.OK, get(patientUri, cookie).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, get("/api/patients/" + REPLICA_ONLY_ID, cookie).getStatusCode());
+        assertEquals(pinnedReads + 2, router.getPinnedReads());
+
+        // A cookie the client wrote itself, or whose signature does not match its time, pins nothing
+        long farFuture = System.currentTimeMillis() + 3_600_000;
+        String signature = cookie.substring(cookie.indexOf('.') + 1);
+        assertEquals(HttpStatus.NOT_FOUND, get(patientUri, ReadYourWritesFilter.PIN_COOKIE + "=" + farFuture).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND,
+            get(patientUri, ReadYourWritesFilter.PIN_COOKIE + "=" + farFuture + "." + signature).getStatusCode());
+        assertEquals(pinnedReads + 2, router.getPinnedReads());
+    }
+
+    @Test
+    public void readsAfterAWriteInTheSameRequestGoToThePrimary() {
+        ResponseEntity<Map> created = restTemplate.postForEntity("/api/orders",
+            new OrderRequest("ROUTING-2", "Otto", "Order", "1975-05-05", "ECHO"), Map.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertNotNull(created.getBody().get("studyId"));
+    }
+
+    @Test
+    public void readsOutsideARequestAreNeverPinned() {
+        assertEquals("REPLICA-ONLY", patientService.getPatientById(REPLICA_ONLY_ID).getMrn());
+    }
+
+    @Test
+    public void metricsShowTheReadWriteSplit() {
+        get("/api/patients/" + REPLICA_ONLY_ID, null);
+        for (String tags : List.of("route:read&tag=target:replica", "route:read&tag=target:primary",
+                "route:write&tag=target:primary")) {
+            ResponseEntity<Map> metric = restTemplate.getForEntity(
+                "/actuator/metrics/clinical.datasource.connections?tag=" + tags, Map.class);
+            assertEquals(HttpStatus.OK, metric.getStatusCode(), tags);
+        }
+        Map<?, ?> replicaReads = restTemplate.getForObject(
+            "/actuator/metrics/clinical.datasource.connections?tag=target:replica", Map.class);
+        Map<?, ?> measurement = (Map<?, ?>) ((List<?>) replicaReads.get("measurements")).get(0);
+        assertTrue(((Number) measurement.get("value")).doubleValue() >= 1, replicaReads.toString());
+    }
+
+    private ResponseEntity<String> get(String uri, String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cookie != null) {
+            headers.add(HttpHeaders.COOKIE, cookie);
+        }
+        return restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
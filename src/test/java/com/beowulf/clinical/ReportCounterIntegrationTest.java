@@ -0,0 +1,73 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.exception.ConflictException;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.ReportCounterService;
+import com.beowulf.clinical.service.StudyService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:reportcounterdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ReportCounterIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private ReportCounterService reportCounterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void countersFollowEveryTransitionAndReconcileFixesDrift() {
+        Study signed = studyFor(orderService.createOrder(new OrderRequest("RC-1", "Al", "One", "1970-01-01", "ECHO")));
+        Study amended = studyFor(orderService.createOrder(new OrderRequest("RC-2", "Bo", "Two", "1970-01-01", "ECHO")));
+        Study canceled = studyFor(orderService.createOrder(new OrderRequest("RC-3", "Cy", "Three", "1970-01-01", "MRI")));
+        Study deleted = studyFor(orderService.createOrder(new OrderRequest("RC-4", "Di", "Four", "1970-01-01", "LAB")));
+        assertThrows(ConflictException.class, () ->
+            orderService.createOrder(new OrderRequest("RC-1", "Al", "Changed", "1970-01-01", "CT")));
+
+        signed = update(signed, "FINALIZED", "Normal");
+        amended = update(amended, "FINALIZED", "Normal");
+        amended = update(amended, "AMENDED", "Amended");
+        update(canceled, "CANCELED", null);
+        studyService.deleteStudy(deleted.getId());
+
+        Map<String, Long> statuses = reportCounterService.getStudyStatusSummary();
+        assertEquals(Map.of("FINALIZED", 1L, "AMENDED", 1L, "CANCELED", 1L), statuses);
+        assertEquals(Map.of("ECHO", 2L, "MRI", 1L, "LAB", 1L), reportCounterService.getOrdersByType());
+        assertTrue(reportCounterService.reconcile().values().stream().allMatch(Map::isEmpty));
+
+        jdbcTemplate.update("UPDATE report_counter SET total = total + 5 WHERE category = 'ORDER_TYPE' AND counter_key = 'XRAY' AND stripe = 3");
+        Map<String, Map<String, Long>> drift = reportCounterService.reconcile();
+        assertEquals(Map.of("XRAY", 5L), drift.get("ORDER_TYPE"));
+        assertFalse(reportCounterService.getOrdersByType().containsKey("XRAY"));
+    }
+
+    private Study studyFor(Order order) {
+        return studyService.getStudyByOrderId(order.getId());
+    }
+
+    private Study update(Study study, String status, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+}
@@ -0,0 +1,74 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.ReportCounterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:counterlockdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ReportCounterLockOrderIntegrationTest {
+
+    private static final int WRITERS = 4;
+    private static final int ORDERS_PER_WRITER = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ReportCounterService reportCounterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void reconcileRepairsDriftWhileOrdersAreCreated() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        int reconciled = 0;
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                String prefix = "LOCK-" + w + "-";
+                writers.add(executor.submit(() -> {
+                    // Each order locks an ORDER_TYPE and a STUDY_STATUS counter row before it commits
+                    for (int i = 0; i < ORDERS_PER_WRITER; i++) {
+                        orderService.createOrder(new OrderRequest(prefix + i, "Lock", "Order", "1970-01-01", "XRAY"));
+                    }
+                    return null;
+                }));
+            }
+            while (writers.stream().anyMatch(writer -> !writer.isDone())) {
+                // Drift makes reconcile lock every counter row while the writers hold some of them
+                jdbcTemplate.update("UPDATE report_counter SET total = total + 1 "
+                    + "WHERE category = 'ORDER_TYPE' AND counter_key = 'XRAY' AND stripe = 7");
+                Map<String, Map<String, Long>> drift = reportCounterService.reconcile();
+                assertEquals(Map.of("XRAY", 1L), drift.get(ReportCounterService.ORDER_TYPE));
+                assertEquals(Map.of(), drift.get(ReportCounterService.STUDY_STATUS));
+                reconciled++;
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(reconciled > 0);
+        assertTrue(reportCounterService.reconcile().values().stream().allMatch(Map::isEmpty));
+        assertEquals((long) WRITERS * ORDERS_PER_WRITER, reportCounterService.getOrdersByType().get("XRAY"));
+        assertEquals((long) WRITERS * ORDERS_PER_WRITER, reportCounterService.getStudyStatusSummary().get("ORDERED"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.repository.OrderResultRepository;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:resultcachingdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class ResultCachingIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private OrderResultRepository orderResultRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void supersededResultIsImmutableAndRevalidatesWithOneProbe() {
+        Long orderId = signedOrder("CACHE-1", 1);
+        List<OrderResult> history = orderResultRepository.findByOrderIdOrderByVersionAsc(orderId);
+        String url = "/api/results/" + history.get(0).getId();
+
+        ResponseEntity<String> first = get(url, null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertEquals("\"result-" + history.get(0).getId() + "-" + history.get(1).getId() + "\"", etag);
+        assertTrue(first.getHeaders().getCacheControl().contains("immutable"));
+
+        statistics.clear();
+        ResponseEntity<String> revalidated = get(url, etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertEquals(etag, revalidated.getHeaders().getETag());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void resultTagIsOnlyHonouredIfItIsTheResultsOwn() {
+        Long orderId = signedOrder("CACHE-4", 1);
+        List<OrderResult> history = orderResultRepository.findByOrderIdOrderByVersionAsc(orderId);
+        Long superseded = history.get(0).getId();
+        Long current = history.get(1).getId();
+
+        // A made-up successor, and a superseded-looking tag for a result that is still current
+        assertEquals(HttpStatus.OK, get("/api/results/" + superseded, "\"result-" + superseded + "-999999\"").getStatusCode());
+        ResponseEntity<String> currentResult = get("/api/results/" + current, "\"result-" + current + "-999999\"");
+        assertEquals(HttpStatus.OK, currentResult.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED,
+            get("/api/results/" + current, currentResult.getHeaders().getETag()).getStatusCode());
+
+        assertEquals(HttpStatus.NOT_FOUND, get("/api/results/999999", "\"result-999999-1000000\"").getStatusCode());
+    }
+
+    @Test
+    public void currentResultChangesItsETagWhenSuperseded() {
+        Long orderId = signedOrder("CACHE-2", 0);
+        String url = "/api/orders/" + orderId + "/results";
+
+        ResponseEntity<String> first = get(url, null);
+        String etag = first.getHeaders().getETag();
+        assertTrue(etag.endsWith("-current\""));
+        assertEquals("no-cache", first.getHeaders().getCacheControl());
+        assertEquals(etag, get("/api/results/" + studyService.getStudyByOrderId(orderId).getCurrentResultId(), null)
+            .getHeaders().getETag());
+
+        statistics.clear();
+        assertEquals(HttpStatus.NOT_MODIFIED, get(url, etag).getStatusCode());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        amend(studyService.getStudyByOrderId(orderId), "Amended");
+        ResponseEntity<String> changed = get(url, etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    public void historyETagFollowsTheLatestVersion() {
+        Long orderId = signedOrder("CACHE-3", 2);
+        String url = "/api/orders/" + orderId + "/results/history";
+
+        ResponseEntity<String> first = get(url, null);
+        String etag = first.getHeaders().getETag();
+        assertEquals("\"history-" + orderId + "-3\"", etag);
+
+        statistics.clear();
+        assertEquals(HttpStatus.NOT_MODIFIED, get(url, etag).getStatusCode());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        amend(studyService.getStudyByOrderId(orderId), "Amended again");
+        ResponseEntity<String> changed = get(url, etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals("\"history-" + orderId + "-4\"", changed.getHeaders().getETag());
+    }
+
+    private Long signedOrder(String mrn, int amendments) {
+        Long orderId = orderService.createOrder(new OrderRequest(mrn, "Test", "Patient", "1970-01-01", "ECHO")).getId();
+        Study study = studyService.getStudyByOrderId(orderId);
+        StudyUpdateRequest finalize = new StudyUpdateRequest();
+        finalize.setStatus("FINALIZED");
+        finalize.setReportText("Original report");
+        finalize.setVersion(study.getVersion());
+        study = studyService.updateStudy(study.getId(), finalize);
+        for (int i = 1; i <= amendments; i++) {
+            study = amend(study, "Amendment " + i);
+        }
+        return orderId;
+    }
+
+    private Study amend(Study study, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus("AMENDED");
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+
+    private ResponseEntity<String> get(String url, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.config.CacheConfig;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderResultService;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:deltadb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "clinical.results.delta.enabled=true",
+    "clinical.results.delta.snapshot-interval=3",
+    "clinical.results.delta.cache-max-chars=5000"
+})
+public class ResultDeltaStorageIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private OrderResultService orderResultService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void historyReadsBackEveryVersionAsWritten() {
+        Long orderId = orderService.createOrder(new OrderRequest("DELTA-1", "Test", "Patient", "1970-01-01", "ECHO")).getId();
+        List<String> written = amend(orderId, 8);
+
+        cacheManager.getCache(CacheConfig.RESULT_REPORTS).clear();
+        assertEquals(written, reports(orderResultService.getResultHistory(orderId, null, null).getItems()));
+        // A cold single-version read walks the chain itself, and a second page starts mid-chain
+        cacheManager.getCache(CacheConfig.RESULT_REPORTS).clear();
+        OrderResult second = orderResultService.getResultHistory(orderId, 1L, 1).getItems().get(0);
+        assertEquals(written.get(1), second.getReport());
+        cacheManager.getCache(CacheConfig.RESULT_REPORTS).clear();
+        assertEquals(written.get(1), orderResultService.getResultById(second.getId()).getReport());
+        assertEquals(written.subList(4, 8), reports(orderResultService.getResultHistory(orderId, 4L, 10).getItems()));
+    }
+
+    @Test
+    public void rebuiltReportsHaveTheirOwnCharacterBound() {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(CacheConfig.RESULT_REPORTS);
+        Policy.Eviction<Object, Object> eviction = cache.getNativeCache().policy().eviction().orElseThrow();
+        assertTrue(eviction.isWeighted());
+        assertEquals(5000, eviction.getMaximum());
+    }
+
+    @Test
+    public void supersededVersionsAreDeltasBetweenSnapshots() {
+        Long orderId = orderService.createOrder(new OrderRequest("DELTA-2", "Test", "Patient", "1970-01-01", "MRI")).getId();
+        List<String> written = amend(orderId, 8);
+
+        List<String> encodings = jdbcTemplate.queryForList(
+            "SELECT report_encoding FROM order_result WHERE order_id = ? ORDER BY version", String.class, orderId);
+        assertEquals(List.of("DELTA", "DELTA", "FULL", "DELTA", "DELTA", "FULL", "DELTA", "FULL"), encodings);
+        Long stored = jdbcTemplate.queryForObject(
+            "SELECT SUM(LENGTH(report)) FROM order_result WHERE order_id = ?", Long.class, orderId);
+        assertTrue(stored < written.stream().mapToInt(String::length).sum() / 2, "stored " + stored + " characters");
+
+        Long currentId = orderResultService.getCurrentResultId(orderId);
+        assertEquals(written.get(7), orderResultService.getResultById(currentId).getReport());
+    }
+
+    /** Finalizes the order's study and amends it until it has {@code versions} results; returns their texts. */
+    private List<String> amend(Long orderId, int versions) {
+        Study study = studyService.getStudyByOrderId(orderId);
+        StringBuilder findings = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            findings.append("Segment ").append(i).append(" shows normal wall motion and thickness. ");
+        }
+        List<String> written = new ArrayList<>();
+        for (int v = 1; v <= versions; v++) {
+            String text = findings + "Impression: revision " + v + ".";
+            study = update(study, v == 1 ? "FINALIZED" : "AMENDED", text);
+            written.add(text);
+            findings.replace(0, 9, "Segment " + v);
+        }
+        return written;
+    }
+
+    private static List<String> reports(List<OrderResult> results) {
+        return results.stream().map(OrderResult::getReport).toList();
+    }
+
+    private Study update(Study study, String status, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+}
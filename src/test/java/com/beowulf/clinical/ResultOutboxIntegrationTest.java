@@ -0,0 +1,219 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:resultoutboxdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "clinical.outbox.poll-interval-ms=100",
+    "clinical.outbox.batch-size=2",
+    "clinical.outbox.timeout-ms=30000",
+    "clinical.outbox.retry.initial-delay-ms=50",
+    "clinical.outbox.retry.max-delay-ms=200"
+})
+public class ResultOutboxIntegrationTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final HttpServer STUB;
+    private static final List<Map<String, Object>> EMR_RECEIVED = new CopyOnWriteArrayList<>();
+    private static final List<Map<String, Object>> ARCHIVE_RECEIVED = new CopyOnWriteArrayList<>();
+    private static final List<Map<String, Object>> STALLED_RECEIVED = new CopyOnWriteArrayList<>();
+    private static final CountDownLatch STALLED_RELEASE = new CountDownLatch(1);
+    private static final ExecutorService STUB_THREADS = Executors.newCachedThreadPool();
+    private static final AtomicInteger EMR_FAILURES_LEFT = new AtomicInteger();
+    private static volatile boolean archiveUp;
+
+    static {
+        try {
+            STUB = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        STUB.createContext("/emr", exchange -> receive(exchange, EMR_RECEIVED, EMR_FAILURES_LEFT.getAndDecrement() <= 0));
+        STUB.createContext("/archive", exchange -> receive(exchange, ARCHIVE_RECEIVED, archiveUp));
+        // Answers only once released; the client's read timeout is longer than any await below
+        STUB.createContext("/stalled", exchange -> {
+            try {
+                STALLED_RELEASE.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            receive(exchange, STALLED_RECEIVED, true);
+        });
+        STUB.setExecutor(STUB_THREADS);
+        STUB.start();
+    }
+
+    @DynamicPropertySource
+    static void endpoints(DynamicPropertyRegistry registry) {
+        String base = "http://localhost:" + STUB.getAddress().getPort();
+        // The stalled endpoint comes first, so it would hold up the others if destinations were drained in turn
+        registry.add("clinical.outbox.endpoints", () -> base + "/stalled," + base + "/emr," + base + "/archive");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STALLED_RELEASE.countDown();
+        STUB.stop(0);
+        STUB_THREADS.shutdownNow();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void deliversEachDestinationInOrderAndRetriesFailedBatches() throws Exception {
+        double emrFailures = counter("clinical.outbox.failures", "/emr");
+        double emrDelivered = counter("clinical.outbox.delivered", "/emr");
+        EMR_FAILURES_LEFT.set(2);
+        Order order = newOrder("OUTBOX-1");
+        update(order, "FINALIZED", "Signed");
+        update(order, "AMENDED", "First amendment");
+        update(order, "AMENDED", "Second amendment");
+
+        await(() -> received(EMR_RECEIVED, order).size() == 3, "EMR did not receive all notifications");
+        List<Map<String, Object>> emr = received(EMR_RECEIVED, order);
+        assertEquals(List.of("FINALIZED", "AMENDED", "AMENDED"), emr.stream().map(n -> n.get("status")).toList());
+        assertEquals(List.of(1, 2, 3), emr.stream().map(n -> n.get("version")).toList());
+        assertEquals("OUTBOX-1", emr.get(0).get("mrn"));
+        assertEquals("MRI", emr.get(0).get("orderType"));
+        assertEquals(studyService.getStudyByOrderId(order.getId()).getCurrentResultId().intValue(), emr.get(2).get("resultId"));
+        assertEquals(3, jdbcTemplate.queryForObject(
+            "SELECT attempts FROM result_outbox WHERE destination LIKE '%/emr' AND order_id = ? ORDER BY id LIMIT 1",
+            Integer.class, order.getId()));
+        // The stub records a batch before it answers, and the counters move once the answer is back
+        await(() -> counter("clinical.outbox.delivered", "/emr") - emrDelivered == 3, "EMR deliveries not counted");
+        assertEquals(2.0, counter("clinical.outbox.failures", "/emr") - emrFailures);
+
+        // The archive keeps failing without holding up the EMR, and its rows stay pending in order
+        await(() -> gauge("clinical.outbox.pending", "/archive") >= 3, "archive notifications not pending");
+        await(() -> gauge("clinical.outbox.lag", "/archive") > 0, "archive lag not reported");
+        assertTrue(counter("clinical.outbox.failures", "/archive") >= 1);
+        assertTrue(ARCHIVE_RECEIVED.isEmpty());
+
+        archiveUp = true;
+        await(() -> received(ARCHIVE_RECEIVED, order).size() == 3, "archive did not catch up");
+        assertEquals(List.of(1, 2, 3), received(ARCHIVE_RECEIVED, order).stream().map(n -> n.get("version")).toList());
+        await(() -> gauge("clinical.outbox.pending", "/archive") == 0 && gauge("clinical.outbox.lag", "/archive") == 0,
+            "archive backlog not drained");
+    }
+
+    @Test
+    public void stalledDestinationDoesNotHoldUpTheOthers() throws Exception {
+        double emrDelivered = counter("clinical.outbox.delivered", "/emr");
+        Order order = newOrder("OUTBOX-3");
+        try {
+            update(order, "FINALIZED", "Signed while a destination hangs");
+            await(() -> counter("clinical.outbox.delivered", "/emr") - emrDelivered == 1,
+                "EMR waited for the stalled destination");
+            assertEquals(1, received(EMR_RECEIVED, order).size());
+            assertTrue(received(STALLED_RECEIVED, order).isEmpty());
+        } finally {
+            STALLED_RELEASE.countDown();
+        }
+        await(() -> received(STALLED_RECEIVED, order).size() == 1, "stalled destination did not catch up");
+    }
+
+    @Test
+    public void rolledBackResultWritesNoNotification() {
+        Order order = newOrder("OUTBOX-2");
+        transactionTemplate.executeWithoutResult(status -> {
+            update(order, "FINALIZED", "Signed, then rolled back");
+            status.setRollbackOnly();
+        });
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM result_outbox WHERE order_id = ?", Integer.class, order.getId()));
+    }
+
+    private static void receive(HttpExchange exchange, List<Map<String, Object>> received, boolean accept) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (accept) {
+            received.addAll(JSON.readValue(body, JSON.getTypeFactory().constructCollectionType(List.class, Map.class)));
+        }
+        exchange.sendResponseHeaders(accept ? 204 : 503, -1);
+        exchange.close();
+    }
+
+    private static List<Map<String, Object>> received(List<Map<String, Object>> notifications, Order order) {
+        return notifications.stream().filter(n -> order.getId().intValue() == (Integer) n.get("orderId")).toList();
+    }
+
+    private double counter(String name, String path) {
+        return meterRegistry.get(name).tag("destination", "http://localhost:" + STUB.getAddress().getPort() + path)
+            .counter().count();
+    }
+
+    private double gauge(String name, String path) {
+        return meterRegistry.get(name).tag("destination", "http://localhost:" + STUB.getAddress().getPort() + path)
+            .gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(20);
+        }
+    }
+
+    private Order newOrder(String mrn) {
+        OrderRequest request = new OrderRequest();
+        request.setMrn(mrn);
+        request.setFirstName("Out");
+        request.setLastName("Box");
+        request.setDateOfBirth("1975-03-01");
+        request.setType("MRI");
+        return orderService.createOrder(request);
+    }
+
+    private void update(Order order, String status, String reportText) {
+        Study study = studyService.getStudyByOrderId(order.getId());
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        studyService.updateStudy(study.getId(), request);
+    }
+}
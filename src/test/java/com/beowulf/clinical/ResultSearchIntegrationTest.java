@@ -0,0 +1,168 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.CursorPage;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.ResultSearchService;
+import com.beowulf.clinical.service.StudyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:resultsearchdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class ResultSearchIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private ResultSearchService resultSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void matchesEveryTermRanksByOccurrencesAndFilters() {
+        Long small = signed("SEARCH-1", "ECHO", "Small pericardial effusion. Normal valves.");
+        Long large = signed("SEARCH-2", "ECHO", "Large pericardial effusion; effusion is circumferential.");
+        Long xray = signed("SEARCH-3", "XRAY", "Pericardial effusion suspected on the lateral view.");
+        signed("SEARCH-4", "ECHO", "Pericardial thickening without fluid.");
+
+        // Equal scores put the newer result first
+        assertEquals(List.of(large, xray, small), resultIds(search("q=Pericardial+EFFUSION")));
+        assertEquals(List.of(large, small), resultIds(search("q=pericardial effusion&type=ECHO")));
+        assertEquals(List.of(), resultIds(search("q=pericardial effusion&from=2000-01-01&to=2000-02-01")));
+
+        Map<?, ?> top = search("q=effusion&type=ECHO").getBody().get(0);
+        assertEquals(2, top.get("score"));
+        assertEquals("ECHO", top.get("orderType"));
+        assertEquals(true, top.get("current"));
+    }
+
+    @Test
+    public void currentOnlySkipsSupersededVersions() {
+        Long orderId = orderService.createOrder(new OrderRequest("SEARCH-5", "Test", "Patient", "1970-01-01", "MRI")).getId();
+        Study study = update(studyService.getStudyByOrderId(orderId), "FINALIZED", "Meniscal tear, lateral horn.");
+        Long first = study.getCurrentResultId();
+        study = update(study, "AMENDED", "Meniscal tear, medial horn.");
+
+        assertEquals(List.of(study.getCurrentResultId(), first), resultIds(search("q=meniscal")));
+        assertEquals(List.of(study.getCurrentResultId()), resultIds(search("q=meniscal&currentOnly=true")));
+        assertEquals(List.of(first), resultIds(search("q=lateral meniscal")));
+    }
+
+    @Test
+    public void pagesFollowTheCursorWithoutRepeats() {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 5; i >= 1; i--) {
+            expected.add(signed("SEARCH-PAGE-" + i, "CT", "Nodule ".repeat(i) + "in the right upper lobe."));
+        }
+
+        assertEquals(expected, allPages("q=nodule"));
+        assertEquals(expected, allPages("q=upper nodule"));
+    }
+
+    private List<Long> allPages(String query) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ResponseEntity<List<Map<String, Object>>> page = search(query + "&limit=2" + (cursor != null ? "&after=" + cursor : ""));
+            assertTrue(page.getBody().size() <= 2);
+            seen.addAll(resultIds(page));
+            cursor = page.getHeaders().getFirst(CursorPage.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return seen;
+    }
+
+    @Test
+    public void resultsWrittenOutsideTheApplicationAreIndexedOnStartup() {
+        Long orderId = orderService.createOrder(new OrderRequest("SEARCH-6", "Test", "Patient", "1970-01-01", "LAB")).getId();
+        jdbcTemplate.update("INSERT INTO order_result (order_id, version, result_type, report, signed_on, status, is_current) " +
+            "VALUES (?, 1, 'DIAGNOSTIC_REPORT', 'Elevated troponin', CURRENT_TIMESTAMP, 'FINALIZED', TRUE)", orderId);
+        assertEquals(List.of(), resultIds(search("q=troponin")));
+
+        resultSearchService.indexUnindexedResults();
+        assertEquals(1, resultIds(search("q=troponin")).size());
+    }
+
+    @Test
+    public void backfillSkipsAResultThatCannotBeIndexed() {
+        Long orderId = orderService.createOrder(new OrderRequest("SEARCH-7", "Test", "Patient", "1970-01-01", "LAB")).getId();
+        Long broken = insertResult(orderId, 1, "Hemolyzed sample");
+        // A stray posting makes every attempt to index the broken result violate the unique posting index
+        jdbcTemplate.update("INSERT INTO result_term (term, result_id, frequency, order_type, signed_on) " +
+            "VALUES ('hemolyzed', ?, 1, 'LAB', CURRENT_TIMESTAMP)", broken);
+        insertResult(orderId, 2, "Repeat potassium normal");
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> resultSearchService.indexUnindexedResults());
+        assertEquals(1, resultIds(search("q=potassium")).size());
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM result_search_doc WHERE result_id = ?", Integer.class, broken));
+    }
+
+    private Long insertResult(Long orderId, int version, String report) {
+        jdbcTemplate.update("INSERT INTO order_result (order_id, version, result_type, report, signed_on, status, is_current) " +
+            "VALUES (?, ?, 'DIAGNOSTIC_REPORT', ?, CURRENT_TIMESTAMP, 'FINALIZED', FALSE)", orderId, version, report);
+        return jdbcTemplate.queryForObject("SELECT id FROM order_result WHERE order_id = ? AND version = ?",
+            Long.class, orderId, version);
+    }
+
+    @Test
+    public void rejectsQueriesWithoutSearchableWords() {
+        for (String query : List.of("q=of the", "limit=5", "q=effusion&type=PET", "q=effusion&from=2024-02-01&to=2024-01-01")) {
+            assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/api/results/search?" + query, String.class).getStatusCode(), query);
+        }
+    }
+
+    private ResponseEntity<List<Map<String, Object>>> search(String query) {
+        return restTemplate.exchange("/api/results/search?" + query, HttpMethod.GET, null,
+            new ParameterizedTypeReference<>() {});
+    }
+
+    private static List<Long> resultIds(ResponseEntity<List<Map<String, Object>>> response) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody().stream().map(hit -> ((Number) hit.get("resultId")).longValue()).toList();
+    }
+
+    private Long signed(String mrn, String type, String report) {
+        Long orderId = orderService.createOrder(new OrderRequest(mrn, "Test", "Patient", "1970-01-01", type)).getId();
+        return update(studyService.getStudyByOrderId(orderId), "FINALIZED", report).getCurrentResultId();
+    }
+
+    private Study update(Study study, String status, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+}
@@ -0,0 +1,134 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.OrderResult;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.repository.OrderResultRepository;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:amendmentdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class StudyAmendmentStatementCountTest {
+
+    /** Records the SQL of every statement prepared through the application's DataSource. */
+    @TestConfiguration
+    static class StatementRecorder {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return recording(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        statements.add(((String) args[0]).toLowerCase(Locale.ROOT));
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private OrderResultRepository orderResultRepository;
+
+    @Test
+    public void amendmentWritesTwoResultStatementsWhateverTheHistoryLength() {
+        Long orderId = orderService.createOrder(new OrderRequest("AMEND-1", "Test", "Patient", "1970-01-01", "ECHO")).getId();
+        Study study = studyService.getStudyByOrderId(orderId);
+        study = update(study, "FINALIZED", "Original report");
+        // The first amendment also moves the report counters from FINALIZED to AMENDED
+        study = update(study, "AMENDED", "First amendment");
+
+        List<String> first = null;
+        for (int i = 1; i <= 5; i++) {
+            StatementRecorder.statements.clear();
+            study = update(study, "AMENDED", "Amendment " + i);
+            List<String> statements = StatementRecorder.statements.stream()
+                .filter(sql -> !sql.startsWith("select next value for")).toList();
+            assertEquals(2, statements.stream().filter(sql -> sql.contains("order_result")).count(), statements::toString);
+            assertTrue(statements.stream().anyMatch(sql -> sql.startsWith("update order_result") && sql.endsWith("where id = ?")),
+                statements::toString);
+            if (first == null) {
+                first = statements;
+            } else {
+                assertEquals(first, statements);
+            }
+        }
+    }
+
+    @Test
+    public void amendmentsKeepTheSupersedeChain() {
+        Long orderId = orderService.createOrder(new OrderRequest("AMEND-2", "Test", "Patient", "1970-01-01", "MRI")).getId();
+        Study study = studyService.getStudyByOrderId(orderId);
+        study = update(study, "FINALIZED", "Original report");
+        assertEquals(orderResultRepository.findByOrderIdOrderByVersionAsc(orderId).get(0).getId(), study.getCurrentResultId());
+        for (int i = 1; i <= 3; i++) {
+            study = update(study, "AMENDED", "Amendment " + i);
+        }
+
+        List<OrderResult> history = orderResultRepository.findByOrderIdOrderByVersionAsc(orderId);
+        assertEquals(4, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            OrderResult result = history.get(i);
+            boolean last = i == history.size() - 1;
+            assertEquals(i + 1, result.getVersion());
+            assertEquals(last, result.getIsCurrent());
+            assertEquals(last ? null : history.get(i + 1).getId(), result.getSupersededById());
+        }
+        assertEquals("Amendment 3", history.get(3).getReport());
+        assertEquals(history.get(3).getId(), studyService.getStudyByOrderId(orderId).getCurrentResultId());
+    }
+
+    private Study update(Study study, String status, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+}
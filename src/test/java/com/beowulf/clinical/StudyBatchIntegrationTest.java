@@ -0,0 +1,279 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.BatchStudyItemResult;
+import com.beowulf.clinical.dto.BatchStudyUpdateRequest;
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyBatchService;
+import com.beowulf.clinical.service.StudyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:studybatchdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "clinical.studies.batch.chunk-size=3"
+})
+public class StudyBatchIntegrationTest {
+
+    /** Records the SQL of every statement prepared through the application's DataSource. */
+    @TestConfiguration
+    static class StatementRecorder {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return recording(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        statements.add(((String) args[0]).toLowerCase(Locale.ROOT));
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private StudyBatchService studyBatchService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+    }
+
+    @Test
+    public void appliesEachItemAndReportsPerItemOutcomes() {
+        double conflicts = meterRegistry.counter("clinical.conflicts", "uri", "/api/studies/batch",
+            "exception", "ConflictException").count();
+        double businessRuleRejections = meterRegistry.counter("clinical.business.rule.rejections",
+            "uri", "/api/studies/batch").count();
+        Study signed = newStudy("SIGN-1");
+        Study stale = newStudy("SIGN-2");
+        Study noReport = newStudy("SIGN-3");
+        Study badStatus = newStudy("SIGN-4");
+        Study canceled = newStudy("SIGN-5");
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        batch.add(item(signed.getId(), signed.getVersion(), "FINALIZED", "Normal study."));
+        batch.add(item(stale.getId(), stale.getVersion() + 1, "FINALIZED", "Normal study."));
+        batch.add(item(noReport.getId(), noReport.getVersion(), "FINALIZED", null));
+        batch.add(item(999_999L, 0L, "FINALIZED", "Normal study."));
+        batch.add(item(badStatus.getId(), badStatus.getVersion(), "SIGNED", null));
+        batch.add(item(signed.getId(), signed.getVersion(), "FINALIZED", "Normal study."));
+        batch.add(item(canceled.getId(), null, "CANCELED", null));
+        batch.add(item(canceled.getId(), canceled.getVersion(), "CANCELED", null));
+
+        ResponseEntity<Map[]> response = restTemplate.exchange("/api/studies/batch", HttpMethod.PATCH,
+            new HttpEntity<>(batch), Map[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map[] results = response.getBody();
+        assertEquals(batch.size(), results.length);
+
+        assertEquals("UPDATED", results[0].get("status"));
+        assertEquals("FINALIZED", results[0].get("studyStatus"));
+        assertEquals(signed.getVersion() + 1, ((Number) results[0].get("version")).longValue());
+        assertNotNull(results[0].get("currentResultId"));
+        assertEquals("CONFLICT", results[1].get("status"));
+        assertEquals(409, ((Number) results[1].get("errorStatus")).intValue());
+        assertEquals("INVALID", results[2].get("status"));
+        assertTrue(results[2].get("message").toString().contains("without report text"));
+        assertEquals("NOT_FOUND", results[3].get("status"));
+        assertEquals(404, ((Number) results[3].get("errorStatus")).intValue());
+        assertEquals("INVALID", results[4].get("status"));
+        assertTrue(results[4].get("message").toString().contains("Invalid status"));
+        assertEquals("INVALID", results[5].get("status"));
+        assertEquals("INVALID", results[6].get("status"));
+        assertEquals("UPDATED", results[7].get("status"));
+        assertEquals("CANCELED", results[7].get("studyStatus"));
+        // Counted like the same rejections of PATCH /api/studies/{id}; malformed items are not
+        assertEquals(conflicts + 1, meterRegistry.counter("clinical.conflicts", "uri", "/api/studies/batch",
+            "exception", "ConflictException").count());
+        assertEquals(businessRuleRejections + 1, meterRegistry.counter("clinical.business.rule.rejections",
+            "uri", "/api/studies/batch").count());
+
+        ResponseEntity<Map> result = restTemplate.getForEntity(
+            "/api/orders/" + signed.getOrderId() + "/results", Map.class);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("Normal study.", result.getBody().get("report"));
+        assertEquals(results[0].get("currentResultId"), result.getBody().get("id"));
+
+        for (Study untouched : List.of(stale, noReport, badStatus)) {
+            Study current = studyService.getStudyById(untouched.getId());
+            assertEquals(StudyStatus.ORDERED, current.getStatus());
+            assertEquals(untouched.getVersion(), current.getVersion());
+            assertNull(current.getReportText());
+        }
+    }
+
+    @Test
+    public void loadsEachChunkOnceAndBatchesTheResultInserts() {
+        List<BatchStudyUpdateRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Study study = newStudy("BULK-" + i);
+            BatchStudyUpdateRequest request = new BatchStudyUpdateRequest();
+            request.setId(study.getId());
+            request.setVersion(study.getVersion());
+            request.setStatus("FINALIZED");
+            request.setReportText("No acute findings.");
+            batch.add(request);
+        }
+
+        StatementRecorder.statements.clear();
+        List<BatchStudyItemResult> results = studyBatchService.updateStudies(batch);
+        assertTrue(results.stream().allMatch(result -> result.getStatus().equals("UPDATED")), results::toString);
+
+        List<String> statements = StatementRecorder.statements;
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("select") && sql.contains(" from study ")).count(),
+            statements::toString);
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into order_result")).count(),
+            statements::toString);
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("update study")).count(), statements::toString);
+    }
+
+    @Test
+    public void writesAmendmentsAndTheirIndexEntriesInBatches() {
+        Study finalize = newStudy("MIXED-1");
+        List<Study> amend = new ArrayList<>();
+        for (int i = 2; i <= 3; i++) {
+            Study study = newStudy("MIXED-" + i);
+            StudyUpdateRequest sign = new StudyUpdateRequest();
+            sign.setStatus("FINALIZED");
+            sign.setReportText("Original report " + i);
+            sign.setVersion(study.getVersion());
+            amend.add(studyService.updateStudy(study.getId(), sign));
+        }
+
+        List<BatchStudyUpdateRequest> batch = new ArrayList<>();
+        batch.add(batchItem(finalize, "FINALIZED", "Mild cardiomegaly."));
+        for (Study study : amend) {
+            batch.add(batchItem(study, "AMENDED", "Amended: pleural effusion."));
+        }
+        StatementRecorder.statements.clear();
+        List<BatchStudyItemResult> results = studyBatchService.updateStudies(batch);
+        assertTrue(results.stream().allMatch(result -> result.getStatus().equals("UPDATED")), results::toString);
+
+        List<String> statements = StatementRecorder.statements;
+        for (String prefix : List.of("insert into order_result (id, order_id, version", "update order_result",
+                "insert into result_search_doc", "insert into result_term", "select id, type from orders")) {
+            assertEquals(1, statements.stream().filter(sql -> sql.startsWith(prefix)).count(), prefix + " " + statements);
+        }
+        for (Study study : amend) {
+            Study amended = studyService.getStudyById(study.getId());
+            assertEquals(StudyStatus.AMENDED, amended.getStatus());
+            ResponseEntity<Map> result = restTemplate.getForEntity(
+                "/api/orders/" + study.getOrderId() + "/results", Map.class);
+            assertEquals(amended.getCurrentResultId().intValue(), result.getBody().get("id"));
+            assertEquals(2, result.getBody().get("version"));
+        }
+        ResponseEntity<Map[]> hits = restTemplate.getForEntity("/api/results/search?q=pleural effusion", Map[].class);
+        assertEquals(HttpStatus.OK, hits.getStatusCode());
+        assertEquals(2, hits.getBody().length);
+    }
+
+    @Test
+    public void rejectsReportTextTheColumnCannotHold() {
+        Study oversized = newStudy("LONG-1");
+        Study normal = newStudy("LONG-2");
+        String tooLong = "x".repeat(5001);
+
+        List<Map<String, Object>> batch = List.of(
+            item(oversized.getId(), oversized.getVersion(), "FINALIZED", tooLong),
+            item(normal.getId(), normal.getVersion(), "FINALIZED", "Normal study."));
+        ResponseEntity<Map[]> response = restTemplate.exchange("/api/studies/batch", HttpMethod.PATCH,
+            new HttpEntity<>(batch), Map[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("INVALID", response.getBody()[0].get("status"));
+        assertTrue(response.getBody()[0].get("message").toString().contains("at most 5000"));
+        assertEquals("UPDATED", response.getBody()[1].get("status"));
+        assertEquals(StudyStatus.ORDERED, studyService.getStudyById(oversized.getId()).getStatus());
+
+        ResponseEntity<Map> single = restTemplate.exchange("/api/studies/" + oversized.getId(), HttpMethod.PATCH,
+            new HttpEntity<>(item(null, oversized.getVersion(), "FINALIZED", tooLong)), Map.class);
+        assertEquals(HttpStatus.BAD_REQUEST, single.getStatusCode());
+    }
+
+    private Study newStudy(String mrn) {
+        Long orderId = orderService.createOrder(new OrderRequest(mrn, "Test", "Patient", "1970-01-01", "XRAY")).getId();
+        return studyService.getStudyByOrderId(orderId);
+    }
+
+    private static BatchStudyUpdateRequest batchItem(Study study, String status, String reportText) {
+        BatchStudyUpdateRequest request = new BatchStudyUpdateRequest();
+        request.setId(study.getId());
+        request.setVersion(study.getVersion());
+        request.setStatus(status);
+        request.setReportText(reportText);
+        return request;
+    }
+
+    private Map<String, Object> item(Long id, Long version, String status, String reportText) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put("version", version);
+        item.put("status", status);
+        item.put("reportText", reportText);
+        return item;
+    }
+}
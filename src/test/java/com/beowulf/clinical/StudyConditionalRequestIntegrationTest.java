@@ -0,0 +1,100 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.datasource.url=jdbc:h2:mem:studyconditionaldb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class StudyConditionalRequestIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void studyETagIsTheVersionAndRevalidatesWithOneProbe() {
+        Study study = newStudy("COND-1");
+        for (String url : new String[] {"/api/studies/" + study.getId(), "/api/orders/" + study.getOrderId() + "/study"}) {
+            ResponseEntity<Map> first = exchange(HttpMethod.GET, url, HttpHeaders.IF_NONE_MATCH, null, null);
+            assertEquals("\"0\"", first.getHeaders().getETag());
+            assertEquals("no-cache", first.getHeaders().getCacheControl());
+
+            statistics.clear();
+            ResponseEntity<Map> revalidated = exchange(HttpMethod.GET, url, HttpHeaders.IF_NONE_MATCH, "\"0\"", null);
+            assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+        }
+
+        ResponseEntity<Map> updated = exchange(HttpMethod.PATCH, "/api/studies/" + study.getId(), HttpHeaders.IF_MATCH, "\"0\"",
+            Map.of("reportText", "Draft", "version", 0));
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals("\"1\"", updated.getHeaders().getETag());
+        assertEquals(HttpStatus.OK,
+            exchange(HttpMethod.GET, "/api/studies/" + study.getId(), HttpHeaders.IF_NONE_MATCH, "\"0\"", null).getStatusCode());
+    }
+
+    @Test
+    public void staleIfMatchIsRejectedBeforeTheStudyIsLoaded() {
+        Study study = newStudy("COND-2");
+        String url = "/api/studies/" + study.getId();
+        exchange(HttpMethod.PATCH, url, HttpHeaders.IF_MATCH, "\"0\"", Map.of("reportText", "First", "version", 0));
+
+        statistics.clear();
+        ResponseEntity<Map> stale = exchange(HttpMethod.PATCH, url, HttpHeaders.IF_MATCH, "\"0\"",
+            Map.of("reportText", "Second", "version", 0));
+        assertEquals(HttpStatus.PRECONDITION_FAILED, stale.getStatusCode());
+        assertEquals(412, stale.getBody().get("status"));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("First", studyService.getStudyById(study.getId()).getReportText());
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exchange(HttpMethod.PATCH, url, HttpHeaders.IF_MATCH, "W/\"1\"",
+            Map.of("reportText", "Weak", "version", 1)).getStatusCode());
+        assertEquals(HttpStatus.OK, exchange(HttpMethod.PATCH, url, HttpHeaders.IF_MATCH, "*",
+            Map.of("reportText", "Any", "version", 1)).getStatusCode());
+    }
+
+    private Study newStudy(String mrn) {
+        Long orderId = orderService.createOrder(new OrderRequest(mrn, "Test", "Patient", "1970-01-01", "CT")).getId();
+        return studyService.getStudyByOrderId(orderId);
+    }
+
+    private ResponseEntity<Map> exchange(HttpMethod method, String url, String header, String value, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (value != null) {
+            headers.set(header, value);
+        }
+        return restTemplate.exchange(url, method, new HttpEntity<>(body, headers), Map.class);
+    }
+}
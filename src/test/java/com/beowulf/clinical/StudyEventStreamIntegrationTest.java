@@ -0,0 +1,237 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.entity.Order;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.enums.StudyStatus;
+import com.beowulf.clinical.event.StudyTransitionEvent;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyEventBroadcaster;
+import com.beowulf.clinical.service.StudyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:studyeventsdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "clinical.studies.events.subscriber-queue=8"
+    })
+public class StudyEventStreamIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private StudyEventBroadcaster broadcaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    public void orderStreamPushesCommittedChangesOfThatOrderOnly() throws Exception {
+        Order order = newOrder("EVT-1");
+        Order other = newOrder("EVT-2");
+        try (EventStream stream = open("?orderId=" + order.getId(), null)) {
+            update(other, null, "Other draft");
+            update(order, null, "Draft");
+            Map<String, Object> draft = stream.next("study");
+            assertEquals("REPORT_UPDATED", draft.get("type"));
+            assertEquals(order.getId().intValue(), draft.get("orderId"));
+            assertEquals("ORDERED", draft.get("status"));
+
+            assertThrows(RuntimeException.class, () -> update(order, "AMENDED", "Not finalized yet"));
+            update(order, "FINALIZED", "Signed");
+            Map<String, Object> finalized = stream.next("study");
+            assertEquals("FINALIZED", finalized.get("type"));
+            assertEquals(studyService.getStudyByOrderId(order.getId()).getId().intValue(), finalized.get("studyId"));
+
+            update(order, "AMENDED", "First amendment");
+            assertEquals("AMENDED", stream.next("study").get("type"));
+            update(order, "AMENDED", "Second amendment");
+            Map<String, Object> amendedAgain = stream.next("study");
+            assertEquals("AMENDED", amendedAgain.get("type"));
+            assertEquals("AMENDED", amendedAgain.get("status"));
+        }
+    }
+
+    @Test
+    public void resumesAfterLastEventIdAndResetsWhenItIsNoLongerBuffered() throws Exception {
+        Order order = newOrder("EVT-3");
+        String firstId;
+        try (EventStream stream = open("?orderId=" + order.getId(), null)) {
+            update(order, null, "Draft");
+            stream.next("study");
+            firstId = stream.lastId;
+            update(order, "FINALIZED", "Signed");
+            assertEquals("FINALIZED", stream.next("study").get("type"));
+        }
+        update(order, "AMENDED", "Amended while away");
+
+        try (EventStream resumed = open("?orderId=" + order.getId(), firstId)) {
+            assertEquals("FINALIZED", resumed.next("study").get("type"));
+            assertEquals("AMENDED", resumed.next("study").get("type"));
+        }
+        try (EventStream stale = open("?orderId=" + order.getId(), "1")) {
+            stale.next("reset");
+        }
+    }
+
+    @Test
+    public void patientStreamFollowsOrdersCreatedAfterSubscribing() throws Exception {
+        Order first = newOrder("EVT-4");
+        try (EventStream stream = open("?patientId=" + first.getPatientId(), null)) {
+            newOrder("EVT-5");
+            Order second = newOrder("EVT-4");
+            Map<String, Object> created = stream.next("study");
+            assertEquals("CREATED", created.get("type"));
+            assertEquals(second.getId().intValue(), created.get("orderId"));
+            assertEquals(first.getPatientId().intValue(), created.get("patientId"));
+
+            update(second, "CANCELED", null);
+            assertEquals("CANCELED", stream.next("study").get("type"));
+            update(first, "FINALIZED", "Signed");
+            Map<String, Object> finalized = stream.next("study");
+            assertEquals(first.getId().intValue(), finalized.get("orderId"));
+        }
+    }
+
+    @Test
+    public void subscriberThatStopsReadingIsDisconnected() throws Exception {
+        double droppedBefore = meterRegistry.get("clinical.studies.events.dropped").functionCounter().count();
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(1024);
+            socket.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /api/studies/events HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // Publish until the socket buffers and then the bounded queue fill up; the socket is never read.
+            // No other stream in this class subscribes to all studies, so only this one can be dropped.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (meterRegistry.get("clinical.studies.events.dropped").functionCounter().count() == droppedBefore) {
+                assertTrue(System.nanoTime() < deadline, "slow subscriber was not dropped");
+                for (int i = 0; i < 1000; i++) {
+                    broadcaster.onStudyTransition(new StudyTransitionEvent(
+                        -1L, -1L, StudyStatus.ORDERED, StudyStatus.ORDERED, LocalDateTime.now()));
+                }
+            }
+        }
+    }
+
+    private Order newOrder(String mrn) {
+        OrderRequest request = new OrderRequest();
+        request.setMrn(mrn);
+        request.setFirstName("Event");
+        request.setLastName("Stream");
+        request.setDateOfBirth("1980-01-01");
+        request.setType("CT");
+        return orderService.createOrder(request);
+    }
+
+    private void update(Order order, String status, String reportText) {
+        Study study = studyService.getStudyByOrderId(order.getId());
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        studyService.updateStudy(study.getId(), request);
+    }
+
+    private EventStream open(String query, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/studies/events" + query))
+            .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        return new EventStream(response.body());
+    }
+
+    /** Reads SSE frames on a background thread so that a test can wait for the next one with a timeout. */
+    private class EventStream implements AutoCloseable {
+
+        private final Stream<String> lines;
+        private final BlockingQueue<String[]> frames = new LinkedBlockingQueue<>();
+        String lastId;
+
+        EventStream(Stream<String> lines) {
+            this.lines = lines;
+            Thread reader = new Thread(() -> {
+                String id = null;
+                String name = null;
+                StringBuilder data = new StringBuilder();
+                try {
+                    for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                        String line = it.next();
+                        if (line.isEmpty()) {
+                            if (name != null) {
+                                frames.add(new String[] {id, name, data.toString()});
+                            }
+                            id = null;
+                            name = null;
+                            data.setLength(0);
+                        } else if (line.startsWith("id:")) {
+                            id = line.substring(3);
+                        } else if (line.startsWith("event:")) {
+                            name = line.substring(6);
+                        } else if (line.startsWith("data:")) {
+                            data.append(line.substring(5));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // Stream closed by the test
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        Map<String, Object> next(String expectedName) throws Exception {
+            String[] frame = frames.poll(10, TimeUnit.SECONDS);
+            assertNotNull(frame, "no '" + expectedName + "' event received");
+            assertEquals(expectedName, frame[1]);
+            lastId = frame[0];
+            return frame[2].isEmpty() ? Map.of() : objectMapper.readValue(frame[2], Map.class);
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
+    }
+}
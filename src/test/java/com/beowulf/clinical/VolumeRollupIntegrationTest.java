@@ -0,0 +1,107 @@
+package com.beowulf.clinical;
+
+import com.beowulf.clinical.dto.OrderRequest;
+import com.beowulf.clinical.dto.StudyUpdateRequest;
+import com.beowulf.clinical.dto.VolumeBucket;
+import com.beowulf.clinical.entity.Study;
+import com.beowulf.clinical.service.OrderService;
+import com.beowulf.clinical.service.StudyService;
+import com.beowulf.clinical.service.VolumeRollupService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:volumerollupdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class VolumeRollupIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudyService studyService;
+
+    @Autowired
+    private VolumeRollupService volumeRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void liveWritesAreVisibleAtEveryGranularity() {
+        orderService.createOrder(new OrderRequest("VOL-1", "Al", "One", "1970-01-01", "ECHO"));
+        orderService.createOrder(new OrderRequest("VOL-2", "Bo", "Two", "1970-01-01", "MRI"));
+        Long orderId = orderService.createOrder(new OrderRequest("VOL-3", "Cy", "Three", "1970-01-01", "ECHO")).getId();
+        Study study = update(studyService.getStudyByOrderId(orderId), "FINALIZED", "Normal");
+        update(study, "AMENDED", "Amended");
+
+        String today = LocalDate.now().toString();
+        for (String granularity : List.of("HOUR", "DAY", "MONTH")) {
+            Map<String, Long> totals = totals(volumeRollupService.getVolume(today, null, granularity));
+            assertEquals(Map.of("ECHO", 2L, "MRI", 1L, "finalized", 1L, "amended", 1L), totals, granularity);
+        }
+    }
+
+    @Test
+    public void rollupMovesClosedDaysIntoCoarserTiersAndPrunesHours() {
+        insertHour("2020-03-10T09:00", "ORDERS", "CT", 4);
+        insertHour("2020-03-10T17:00", "RESULTS", "FINALIZED", 2);
+        insertHour("2020-03-11T08:00", "ORDERS", "CT", 3);
+        jdbcTemplate.update("UPDATE volume_rollup SET rolled_up_to = TIMESTAMP '2020-03-01 00:00:00'");
+
+        volumeRollupService.rollup(LocalDateTime.now());
+
+        // Those hours are pruned, so an hourly query for them is refused rather than answered with nothing
+        IllegalArgumentException pruned = assertThrows(IllegalArgumentException.class,
+            () -> volumeRollupService.getVolume("2020-03-10", "2020-03-12", "HOUR"));
+        assertTrue(pruned.getMessage().contains("kept for 90 days"), pruned.getMessage());
+        String retained = LocalDate.now().minusDays(90).toString();
+        assertNotNull(volumeRollupService.getVolume(retained, null, "HOUR"));
+
+        List<VolumeBucket> days = volumeRollupService.getVolume("2020-03-01", "2020-04-01", "DAY");
+        assertEquals(2, days.size());
+        assertEquals(LocalDateTime.parse("2020-03-10T00:00"), days.get(0).getBucketStart());
+        assertEquals(4L, days.get(0).getOrders().get("CT"));
+        assertEquals(2L, days.get(0).getFinalized());
+        assertEquals(3L, days.get(1).getOrders().get("CT"));
+
+        List<VolumeBucket> months = volumeRollupService.getVolume("2020-01-01", "2020-12-31", "MONTH");
+        assertEquals(1, months.size());
+        assertEquals(LocalDateTime.parse("2020-03-01T00:00"), months.get(0).getBucketStart());
+        assertEquals(7L, months.get(0).getOrders().get("CT"));
+
+        assertThrows(IllegalArgumentException.class, () -> volumeRollupService.getVolume("2000-01-01", null, "HOUR"));
+    }
+
+    private void insertHour(String hour, String metric, String key, long total) {
+        jdbcTemplate.update("INSERT INTO volume_bucket (granularity, bucket_start, metric, metric_key, total) VALUES ('HOUR', ?, ?, ?, ?)",
+            LocalDateTime.parse(hour), metric, key, total);
+    }
+
+    private static Map<String, Long> totals(List<VolumeBucket> buckets) {
+        Map<String, Long> totals = new HashMap<>();
+        for (VolumeBucket bucket : buckets) {
+            bucket.getOrders().forEach((type, count) -> totals.merge(type, count, Long::sum));
+            totals.merge("finalized", bucket.getFinalized(), Long::sum);
+            totals.merge("amended", bucket.getAmended(), Long::sum);
+        }
+        return totals;
+    }
+
+    private Study update(Study study, String status, String reportText) {
+        StudyUpdateRequest request = new StudyUpdateRequest();
+        request.setStatus(status);
+        request.setReportText(reportText);
+        request.setVersion(study.getVersion());
+        return studyService.updateStudy(study.getId(), request);
+    }
+}
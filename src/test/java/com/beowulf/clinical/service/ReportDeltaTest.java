@@ -0,0 +1,91 @@
+package com.beowulf.clinical.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportDeltaTest {
+
+    @Test
+    public void emptyTexts() {
+        assertRoundTrip("", "");
+        assertEquals("", ReportDelta.encode("", ""));
+        assertRoundTrip("", "New report");
+        assertRoundTrip("Old report", "");
+        assertEquals("-10", ReportDelta.encode("Old report", ""));
+    }
+
+    @Test
+    public void identicalTextIsOneCopy() {
+        String report = "No acute cardiopulmonary process.";
+        assertEquals("=" + report.length(), ReportDelta.encode(report, report));
+        assertRoundTrip(report, report);
+    }
+
+    @Test
+    public void fullyReplacedText() {
+        assertRoundTrip("Normal sinus rhythm", "Atrial fibrillation with rapid ventricular response");
+        assertRoundTrip("a b c", "x-y-z!");
+    }
+
+    @Test
+    public void insertedTextMayContainDigitsAndColons() {
+        assertRoundTrip("EF measured.", "EF 55: measured at 10:42, +3 since 2024-01-01.");
+    }
+
+    @Test
+    public void unicodeText() {
+        assertRoundTrip("Befund: unauffällig. Größe 3 cm.", "Befund: auffällig. Größe 4 cm, Ödem.");
+        assertRoundTrip("所见：未见异常。", "所见：右肺结节，约 5 mm。");
+        assertRoundTrip("Patient 😀 stable", "Patient 😷 stable, café");
+        assertRoundTrip("étude", "études");
+    }
+
+    @Test
+    public void editsAtBothEndsOfALongReportStayShort() {
+        StringBuilder middle = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            middle.append("finding ").append(i).append(' ');
+        }
+        String base = "Preliminary. " + middle + "Signed by A.";
+        String target = "Final. " + middle + "Signed by B.";
+        String delta = ReportDelta.encode(base, target);
+        assertEquals(target, ReportDelta.apply(base, delta));
+        assertTrue(delta.length() < 40, delta);
+    }
+
+    @Test
+    public void manyScatteredEditsStillRoundTrip() {
+        Random random = new Random(42);
+        StringBuilder base = new StringBuilder();
+        StringBuilder target = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String word = "w" + random.nextInt(50);
+            base.append(word).append(' ');
+            target.append(random.nextInt(3) == 0 ? "x" + random.nextInt(50) : word).append(' ');
+        }
+        assertRoundTrip(base.toString(), target.toString());
+    }
+
+    @Test
+    public void randomEditsRoundTrip() {
+        Random random = new Random(7);
+        String[] words = {"no", "acute", "effusion", " ", ", ", ".", "ödem", "5", "mm", "\n"};
+        for (int run = 0; run < 500; run++) {
+            assertRoundTrip(randomText(random, words), randomText(random, words));
+        }
+    }
+
+    private static String randomText(Random random, String[] words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(40); i > 0; i--) {
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.toString();
+    }
+
+    private static void assertRoundTrip(String base, String target) {
+        assertEquals(target, ReportDelta.apply(base, ReportDelta.encode(base, target)));
+    }
+}